@@ -0,0 +1,114 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/** Простейший измерительный стенд: прогрев, замер в нескольких потоках и подсчёт выделенной памяти
+ *
+ *  Время операции усредняется по всем потокам, а выделенная память берётся из
+ *  счётчиков HotSpot (com.sun.management.ThreadMXBean), как это делает профилировщик GC в JMH.
+ */
+public final class BenchmarkHarness {
+    // Как часто (в операциях) проверяется, не истекло ли время замера
+    private static final int BATCH_SIZE = 1024;
+
+    /** Замеряемая операция; результат нужно вернуть, чтобы JIT не выбросил вычисления */
+    public interface Operation {
+        long run(int index);
+    }
+
+    /** Результат замера одной операции в заданном числе потоков */
+    public record Result(String name, int threads, long operations, long nanos, long allocatedBytes,
+                         double operationsPerSecond) {
+        /** Среднее время одной операции в одном потоке */
+        public double nanosPerOperation() {
+            return (double) nanos / operations;
+        }
+
+        public double bytesPerOperation() {
+            return (double) allocatedBytes / operations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s threads=%-3d %12.2f ns/op %16.0f ops/s %10.2f B/op",
+                    name, threads, nanosPerOperation(), operationsPerSecond, bytesPerOperation());
+        }
+    }
+
+    private BenchmarkHarness() {
+    }
+
+    /** Прогревает и замеряет операцию в заданном числе потоков
+     *
+     */
+    public static Result run(String name, Operation operation, int threads, long warmupMillis, long measureMillis)
+            throws InterruptedException {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        AtomicLong operations = new AtomicLong();
+        AtomicLong nanos = new AtomicLong();
+        AtomicLong allocatedBytes = new AtomicLong();
+        AtomicLong sink = new AtomicLong();
+        DoubleAdder throughput = new DoubleAdder();
+        CyclicBarrier start = new CyclicBarrier(threads);
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7919;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+
+                long result = 0;
+                int index = offset;
+
+                // Прогрев
+                long deadline = System.nanoTime() + warmupMillis * 1_000_000L;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        result += operation.run(index++);
+                    }
+                }
+
+                // Замер
+                long count = 0;
+                long bytesBefore = threadBean.getCurrentThreadAllocatedBytes();
+                long begin = System.nanoTime();
+                deadline = begin + measureMillis * 1_000_000L;
+                long now;
+                do {
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        result += operation.run(index++);
+                    }
+                    count += BATCH_SIZE;
+                    now = System.nanoTime();
+                } while (now < deadline);
+
+                allocatedBytes.addAndGet(threadBean.getCurrentThreadAllocatedBytes() - bytesBefore);
+                nanos.addAndGet(now - begin);
+                operations.addAndGet(count);
+                throughput.add(count * 1e9 / (now - begin));
+                sink.addAndGet(result);
+            });
+        }
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Результат операций используется, чтобы JIT не мог посчитать их ненужными
+        if (sink.get() == Long.MIN_VALUE) {
+            System.out.println();
+        }
+
+        return new Result(name, threads, operations.get(), nanos.get(), allocatedBytes.get(), throughput.sum());
+    }
+}
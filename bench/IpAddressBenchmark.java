@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/** Набор замеров всех операций IpAddress и смешанной нагрузки
+ *
+ *  Запуск без аргументов (или с регулярным выражением для выбора замеров) выполняет каждый замер
+ *  в отдельной JVM на 1, 4 и N (по числу ядер) потоках, чтобы профиль JIT одного замера не влиял на другие.
+ *  Каждая строка результата содержит среднее время операции, общую пропускную способность
+ *  и количество выделенных байтов на операцию.
+ */
+public class IpAddressBenchmark {
+    private static final int ADDRESSES_COUNT = 1 << 12;
+    private static final int INDEX_MASK = ADDRESSES_COUNT - 1;
+
+    // Смешанная нагрузка: 10 млн случайных адресов и 1000 подсетей
+    private static final int MIXED_ADDRESSES_COUNT = 10_000_000;
+    private static final int MIXED_SUBNETS_COUNT = 1000;
+
+    // Отображение диапазонов: 5 млн диапазонов, как в базах GeoIP/ASN
+    private static final int RANGES_COUNT = 5_000_000;
+
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    private static final Map<String, Supplier<BenchmarkHarness.Operation>> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("constructFromOctets", () -> {
+            int[][] rawAddresses = randomAddresses().rawAddresses;
+            return i -> new IpAddress(rawAddresses[i & INDEX_MASK]).toInt();
+        });
+        BENCHMARKS.put("constructFromInt", () -> {
+            int[] packed = randomAddresses().packed;
+            return i -> IpAddress.fromInt(packed[i & INDEX_MASK]).toInt();
+        });
+        BENCHMARKS.put("constructMask", () -> i -> new IpAddress(1 + (i & 31)).toInt());
+        BENCHMARKS.put("parse", () -> {
+            String[] texts = randomAddresses().texts;
+            return i -> IpAddressParser.tryParse(texts[i & INDEX_MASK]);
+        });
+        BENCHMARKS.put("applyMask", () -> {
+            Addresses data = randomAddresses();
+            return i -> data.addresses[i & INDEX_MASK].applyMask(data.masks[i & INDEX_MASK]).toInt();
+        });
+        BENCHMARKS.put("belongsToSubnet", () -> {
+            Addresses data = randomAddresses();
+            return i -> {
+                int j = i & INDEX_MASK;
+                return data.addresses[j].belongsToSubnet(data.networks[(j * 31) & INDEX_MASK], data.masks[j]) ? 1 : 0;
+            };
+        });
+        BENCHMARKS.put("countHostsBetween", () -> {
+            Addresses data = randomAddresses();
+            return i -> {
+                int j = i & INDEX_MASK;
+                return data.addresses[j].countHostsBetween(data.networks[j], data.masks[j]);
+            };
+        });
+        BENCHMARKS.put("toLong", () -> {
+            IpAddress[] addresses = randomAddresses().addresses;
+            return i -> addresses[i & INDEX_MASK].toLong();
+        });
+        BENCHMARKS.put("toString", () -> {
+            IpAddress[] addresses = randomAddresses().addresses;
+            return i -> addresses[i & INDEX_MASK].toString().length();
+        });
+        BENCHMARKS.put("equals", () -> {
+            IpAddress[] addresses = randomAddresses().addresses;
+            return i -> addresses[i & INDEX_MASK].equals(addresses[(i + 1) & INDEX_MASK]) ? 1 : 0;
+        });
+        BENCHMARKS.put("mixed.belongsToSubnetScan", () -> {
+            Mixed data = mixedWorkload();
+            return i -> {
+                IpAddress address = data.addresses[Math.floorMod(i, MIXED_ADDRESSES_COUNT)];
+                for (int j = 0; j < MIXED_SUBNETS_COUNT; j++) {
+                    if (address.belongsToSubnet(data.networks[j], data.masks[j])) {
+                        return j;
+                    }
+                }
+                return -1;
+            };
+        });
+        BENCHMARKS.put("mixed.prefixTableLookup", () -> {
+            Mixed data = mixedWorkload();
+            return i -> {
+                Integer subnet = data.table.lookup(data.addresses[Math.floorMod(i, MIXED_ADDRESSES_COUNT)]);
+                return subnet == null ? -1 : subnet;
+            };
+        });
+        BENCHMARKS.put("rangeMapLookup", () -> {
+            RangeMap<Integer> map = randomRanges();
+            int[] packed = randomAddresses().packed;
+            return i -> map.indexOf(packed[i & INDEX_MASK] + i);
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Дочерняя JVM: выполнить один замер
+        if (args.length == 2) {
+            String name = args[0];
+            int threads = Integer.parseInt(args[1]);
+            System.out.println(BenchmarkHarness.run(name, BENCHMARKS.get(name).get(), threads,
+                    WARMUP_MILLIS, MEASURE_MILLIS));
+            return;
+        }
+
+        Pattern include = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        int cores = Runtime.getRuntime().availableProcessors();
+        String java = System.getProperty("java.home") + "/bin/java";
+
+        for (String name : BENCHMARKS.keySet()) {
+            if (!include.matcher(name).find()) {
+                continue;
+            }
+
+            for (int threads : IntStream.of(1, 4, cores).distinct().toArray()) {
+                new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        IpAddressBenchmark.class.getName(), name, Integer.toString(threads))
+                        .inheritIO()
+                        .start()
+                        .waitFor();
+            }
+        }
+    }
+
+
+    /** Случайные адреса, маски от /8 до /30 и соответствующие им сети */
+    private static final class Addresses {
+        final int[][] rawAddresses = new int[ADDRESSES_COUNT][];
+        final int[] packed = new int[ADDRESSES_COUNT];
+        final String[] texts = new String[ADDRESSES_COUNT];
+        final IpAddress[] addresses = new IpAddress[ADDRESSES_COUNT];
+        final IpAddress[] masks = new IpAddress[ADDRESSES_COUNT];
+        final IpAddress[] networks = new IpAddress[ADDRESSES_COUNT];
+    }
+
+    private static Addresses randomAddresses() {
+        Random random = new Random(42);
+        Addresses data = new Addresses();
+
+        for (int i = 0; i < ADDRESSES_COUNT; i++) {
+            data.packed[i] = random.nextInt();
+            data.addresses[i] = IpAddress.fromInt(data.packed[i]);
+            data.rawAddresses[i] = data.addresses[i].getRawAddress();
+            data.texts[i] = data.addresses[i].toString();
+            data.masks[i] = new IpAddress(8 + random.nextInt(23));
+            data.networks[i] = data.addresses[i].applyMask(data.masks[i]);
+        }
+
+        return data;
+    }
+
+    /** Адреса для классификации (половина попадает в одну из подсетей) и сами подсети */
+    private static final class Mixed {
+        final IpAddress[] addresses = new IpAddress[MIXED_ADDRESSES_COUNT];
+        final IpAddress[] networks = new IpAddress[MIXED_SUBNETS_COUNT];
+        final IpAddress[] masks = new IpAddress[MIXED_SUBNETS_COUNT];
+        final PrefixTable<Integer> table = new PrefixTable<>();
+    }
+
+    private static Mixed mixedWorkload() {
+        Random random = new Random(42);
+        Mixed data = new Mixed();
+
+        Subnet[] subnets = new Subnet[MIXED_SUBNETS_COUNT];
+        for (int i = 0; i < MIXED_SUBNETS_COUNT; i++) {
+            subnets[i] = Subnet.of(random.nextInt(), 8 + random.nextInt(17));
+            data.networks[i] = subnets[i].network();
+            data.masks[i] = subnets[i].mask();
+            data.table.put(subnets[i], i);
+        }
+
+        for (int i = 0; i < MIXED_ADDRESSES_COUNT; i++) {
+            int address = random.nextInt();
+            if ((i & 1) == 0) {
+                Subnet subnet = subnets[random.nextInt(MIXED_SUBNETS_COUNT)];
+                address = subnet.networkInt() | (address & ~subnet.maskInt());
+            }
+            data.addresses[i] = IpAddress.fromInt(address);
+        }
+
+        return data;
+    }
+
+    /** Случайные непересекающиеся диапазоны, покрывающие около половины пространства адресов */
+    private static RangeMap<Integer> randomRanges() {
+        long[] bounds = new Random(42).longs(RANGES_COUNT * 2L, 0, 1L << 32).sorted().distinct().toArray();
+        int size = bounds.length / 2;
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = (int) bounds[2 * i];
+            ends[i] = (int) bounds[2 * i + 1];
+            values[i] = i;
+        }
+
+        return RangeMap.of(starts, ends, values);
+    }
+}
@@ -0,0 +1,220 @@
+import java.util.Arrays;
+import java.util.List;
+
+/** Скомпилированный упорядоченный список правил доступа (ACL) с семантикой первого совпадения
+ *
+ *  Правила разбивают пространство адресов на элементарные интервалы, для каждого из которых заранее
+ *  определяется первое подходящее правило; соседние интервалы с одинаковым правилом склеиваются.
+ *  Проверка адреса - двоичный поиск по началам интервалов: O(log n) без выделения памяти.
+ *  Объект неизменяем и безопасен для одновременного использования из многих потоков.
+ */
+public final class Acl {
+    /** Действие правила */
+    public enum Action {
+        ALLOW,
+        DENY
+    }
+
+    /** Правило: подсеть и действие для адресов из неё
+     *
+     */
+    public static final class Rule {
+        private final Subnet _subnet;
+        private final Action _action;
+
+        public Rule(Subnet subnet, Action action) {
+            if (subnet == null || action == null) {
+                throw new IllegalArgumentException("Rule subnet and action cannot be null");
+            }
+
+            this._subnet = subnet;
+            this._action = action;
+        }
+
+        public Rule(IpAddress address, IpAddress mask, Action action) {
+            this(new Subnet(address, mask), action);
+        }
+
+        public static Rule allow(Subnet subnet) {
+            return new Rule(subnet, Action.ALLOW);
+        }
+
+        public static Rule deny(Subnet subnet) {
+            return new Rule(subnet, Action.DENY);
+        }
+
+        public Subnet subnet() {
+            return this._subnet;
+        }
+
+        public Action action() {
+            return this._action;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s", this._action, this._subnet);
+        }
+    }
+
+    // Признак интервала, не покрытого ни одним правилом
+    private static final int NO_RULE = -1;
+
+    private final List<Rule> _rules;
+    private final Action _defaultAction;
+    // Начала интервалов с инвертированным знаковым битом, чтобы сравнивать их как обычные int
+    private final int[] _starts;
+    // Номер первого подходящего правила для каждого интервала или NO_RULE
+    private final int[] _ruleIndexes;
+    private final Action[] _actions;
+
+    private Acl(List<Rule> rules, Action defaultAction, int[] starts, int[] ruleIndexes, Action[] actions) {
+        this._rules = rules;
+        this._defaultAction = defaultAction;
+        this._starts = starts;
+        this._ruleIndexes = ruleIndexes;
+        this._actions = actions;
+    }
+
+    /** Компилирует упорядоченный список правил; адреса, не попавшие ни в одно правило, получают defaultAction
+     *
+     */
+    public static Acl compile(List<Rule> rules, Action defaultAction) {
+        if (rules == null || defaultAction == null) {
+            throw new IllegalArgumentException("Rules and default action cannot be null");
+        }
+        List<Rule> copy = List.copyOf(rules);
+
+        // Границы элементарных интервалов: начала правил и адреса, следующие за их концами
+        long[] boundaries = new long[copy.size() * 2 + 1];
+        int count = 0;
+        boundaries[count++] = 0;
+        for (Rule rule : copy) {
+            boundaries[count++] = Integer.toUnsignedLong(rule.subnet().networkInt());
+            boundaries[count++] = Integer.toUnsignedLong(rule.subnet().broadcastInt()) + 1;
+        }
+        Arrays.sort(boundaries, 0, count);
+        int intervals = 0;
+        for (int i = 0; i < count; i++) {
+            // Граница 2^32 лежит за пределами пространства адресов и интервала не начинает
+            if (boundaries[i] <= 0xFFFFFFFFL && (intervals == 0 || boundaries[i] != boundaries[intervals - 1])) {
+                boundaries[intervals++] = boundaries[i];
+            }
+        }
+
+        // Правила перебираются по порядку; каждый интервал получает первое покрывшее его правило.
+        // next[i] указывает на ближайший ещё не назначенный интервал не левее i (система непересекающихся
+        // множеств со сжатием путей), поэтому каждый интервал назначается ровно один раз
+        int[] assigned = new int[intervals];
+        Arrays.fill(assigned, NO_RULE);
+        int[] next = new int[intervals + 1];
+        for (int i = 0; i <= intervals; i++) {
+            next[i] = i;
+        }
+        for (int ruleIndex = 0; ruleIndex < copy.size(); ruleIndex++) {
+            Subnet subnet = copy.get(ruleIndex).subnet();
+            int first = Arrays.binarySearch(boundaries, 0, intervals, Integer.toUnsignedLong(subnet.networkInt()));
+            long end = Integer.toUnsignedLong(subnet.broadcastInt());
+
+            for (int i = findNext(next, first); i < intervals && boundaries[i] <= end; i = findNext(next, i)) {
+                assigned[i] = ruleIndex;
+                next[i] = i + 1;
+            }
+        }
+
+        // Склеиваем соседние интервалы с одинаковым правилом
+        int[] starts = new int[intervals];
+        int[] ruleIndexes = new int[intervals];
+        int size = 0;
+        for (int i = 0; i < intervals; i++) {
+            if (size == 0 || ruleIndexes[size - 1] != assigned[i]) {
+                starts[size] = (int) boundaries[i] ^ Integer.MIN_VALUE;
+                ruleIndexes[size] = assigned[i];
+                size++;
+            }
+        }
+
+        Action[] actions = new Action[size];
+        for (int i = 0; i < size; i++) {
+            actions[i] = ruleIndexes[i] == NO_RULE ? defaultAction : copy.get(ruleIndexes[i]).action();
+        }
+
+        return new Acl(copy, defaultAction, Arrays.copyOf(starts, size), Arrays.copyOf(ruleIndexes, size), actions);
+    }
+
+    /** Возвращает действие для IP-адреса
+     *
+     */
+    public Action evaluate(IpAddress address) {
+        return evaluate(address.toInt());
+    }
+
+    /** Возвращает действие для упакованного IP-адреса
+     *
+     */
+    public Action evaluate(int address) {
+        return this._actions[intervalOf(address)];
+    }
+
+    /** Возвращает номер первого правила, которому соответствует упакованный IP-адрес, или -1
+     *
+     */
+    public int matchingRule(int address) {
+        return this._ruleIndexes[intervalOf(address)];
+    }
+
+    /** Возвращает исходные правила в порядке приоритета
+     *
+     */
+    public List<Rule> rules() {
+        return this._rules;
+    }
+
+    /** Возвращает действие для адресов, не попавших ни в одно правило
+     *
+     */
+    public Action defaultAction() {
+        return this._defaultAction;
+    }
+
+    /** Возвращает количество интервалов скомпилированной таблицы
+     *
+     */
+    public int intervalsCount() {
+        return this._starts.length;
+    }
+
+
+    /** Находит последний интервал, начало которого не больше адреса (первый интервал начинается с 0.0.0.0)
+     *
+     */
+    private int intervalOf(int address) {
+        int key = address ^ Integer.MIN_VALUE;
+        int low = 0;
+        int high = this._starts.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this._starts[middle] <= key) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    private static int findNext(int[] next, int index) {
+        int root = index;
+        while (next[root] != root) {
+            root = next[root];
+        }
+        while (next[index] != root) {
+            int parent = next[index];
+            next[index] = root;
+            index = parent;
+        }
+
+        return root;
+    }
+}
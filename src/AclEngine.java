@@ -0,0 +1,66 @@
+import java.util.List;
+
+/** Точка проверки адресов по списку правил доступа с атомарной заменой правил
+ *
+ *  Новый список компилируется целиком до публикации и подменяется одной записью volatile-ссылки,
+ *  поэтому читатели не блокируются и всегда видят либо старый, либо новый список целиком.
+ */
+public class AclEngine {
+    private volatile Acl _acl;
+
+    /** Создаёт точку проверки с пустым списком правил и заданным действием по умолчанию
+     *
+     */
+    public AclEngine(Acl.Action defaultAction) {
+        this._acl = Acl.compile(List.of(), defaultAction);
+    }
+
+    public AclEngine(Acl acl) {
+        if (acl == null) {
+            throw new IllegalArgumentException("ACL cannot be null");
+        }
+
+        this._acl = acl;
+    }
+
+    /** Возвращает действие для IP-адреса по текущему списку правил
+     *
+     */
+    public Acl.Action evaluate(IpAddress address) {
+        return this._acl.evaluate(address);
+    }
+
+    /** Возвращает действие для упакованного IP-адреса по текущему списку правил
+     *
+     */
+    public Acl.Action evaluate(int address) {
+        return this._acl.evaluate(address);
+    }
+
+    /** Возвращает текущий скомпилированный список правил
+     *
+     */
+    public Acl current() {
+        return this._acl;
+    }
+
+    /** Компилирует новый список правил и атомарно подменяет им текущий; возвращает прежний список
+     *
+     */
+    public synchronized Acl reload(List<Acl.Rule> rules, Acl.Action defaultAction) {
+        return swap(Acl.compile(rules, defaultAction));
+    }
+
+    /** Атомарно подменяет текущий список правил уже скомпилированным; возвращает прежний список
+     *
+     */
+    public synchronized Acl swap(Acl acl) {
+        if (acl == null) {
+            throw new IllegalArgumentException("ACL cannot be null");
+        }
+
+        Acl previous = this._acl;
+        this._acl = acl;
+        return previous;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AclTest {
+
+    static final List<Acl.Rule> RULES = List.of(
+            Acl.Rule.deny(Subnet.parse("10.1.2.3/32")),
+            Acl.Rule.allow(Subnet.parse("10.1.0.0/16")),
+            Acl.Rule.deny(Subnet.parse("10.0.0.0/8")),
+            Acl.Rule.allow(Subnet.parse("192.168.0.0/16")),
+            Acl.Rule.deny(Subnet.parse("192.168.1.0/24")),
+            Acl.Rule.allow(Subnet.parse("255.255.255.255/32")));
+
+    @ParameterizedTest
+    @MethodSource("testEvaluateProvider")
+    @DisplayName("Первое совпавшее правило определяет действие")
+    void testEvaluate(String address, Acl.Action expected, int expectedRule) {
+        Acl acl = Acl.compile(RULES, Acl.Action.DENY);
+
+        assertEquals(expected, acl.evaluate(IpAddress.parse(address)));
+        assertEquals(expectedRule, acl.matchingRule(IpAddress.parse(address).toInt()));
+    }
+
+    static Stream<Arguments> testEvaluateProvider() {
+        return Stream.of(
+                arguments("10.1.2.3", Acl.Action.DENY, 0),
+                arguments("10.1.2.4", Acl.Action.ALLOW, 1),
+                arguments("10.2.0.0", Acl.Action.DENY, 2),
+                arguments("192.168.1.1", Acl.Action.ALLOW, 3),
+                arguments("255.255.255.255", Acl.Action.ALLOW, 5),
+                arguments("255.255.255.254", Acl.Action.DENY, -1),
+                arguments("0.0.0.0", Acl.Action.DENY, -1)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testRandomProvider")
+    @DisplayName("Скомпилированный список совпадает с последовательной проверкой правил")
+    void testRandom(int rulesCount) {
+        Random random = new Random(rulesCount);
+        List<Acl.Rule> rules = new ArrayList<>();
+        for (int i = 0; i < rulesCount; i++) {
+            Subnet subnet = Subnet.of(random.nextInt(), random.nextInt(33));
+            rules.add(new Acl.Rule(subnet.network(), subnet.mask(),
+                    random.nextBoolean() ? Acl.Action.ALLOW : Acl.Action.DENY));
+        }
+
+        Acl acl = Acl.compile(rules, Acl.Action.ALLOW);
+
+        for (int i = 0; i < 10000; i++) {
+            // Половина адресов берётся рядом с границами правил
+            int address = random.nextInt();
+            if (rulesCount > 0 && random.nextBoolean()) {
+                Subnet subnet = rules.get(random.nextInt(rulesCount)).subnet();
+                address = (random.nextBoolean() ? subnet.networkInt() : subnet.broadcastInt()) + random.nextInt(3) - 1;
+            }
+
+            int expected = -1;
+            IpAddress ipAddress = IpAddress.fromInt(address);
+            for (int j = 0; j < rules.size() && expected < 0; j++) {
+                Subnet subnet = rules.get(j).subnet();
+                if (ipAddress.belongsToSubnet(subnet.network(), subnet.mask())) {
+                    expected = j;
+                }
+            }
+
+            assertEquals(expected, acl.matchingRule(address));
+            assertEquals(expected < 0 ? Acl.Action.ALLOW : rules.get(expected).action(), acl.evaluate(address));
+        }
+    }
+
+    static Stream<Arguments> testRandomProvider() {
+        return Stream.of(
+                arguments(0),
+                arguments(1),
+                arguments(100),
+                arguments(20000)
+        );
+    }
+
+    @Test
+    @DisplayName("Атомарная замена списка правил")
+    void testEngineReload() {
+        AclEngine engine = new AclEngine(Acl.Action.ALLOW);
+        IpAddress address = IpAddress.parse("10.1.2.3");
+        assertEquals(Acl.Action.ALLOW, engine.evaluate(address));
+
+        Acl previous = engine.reload(RULES, Acl.Action.ALLOW);
+
+        assertEquals(Acl.Action.DENY, engine.evaluate(address));
+        assertEquals(Acl.Action.ALLOW, previous.evaluate(address));
+        assertSame(RULES.get(0).subnet(), engine.current().rules().get(0).subnet());
+    }
+}
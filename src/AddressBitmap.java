@@ -0,0 +1,387 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** Битовая карта всего пространства IPv4-адресов (2^32 бит)
+ *
+ *  Пространство делится на 65536 блоков по одной сети /16; каждый блок - битовая карта из 1024 чисел long
+ *  (8 КБ), которая создаётся только при первом обращении. Полностью заполненные блоки разделяют один
+ *  общий неизменяемый блок, поэтому добавление крупных подсетей почти не расходует память.
+ *
+ *  Карту можно сохранить в файл и загрузить обратно через отображение файла в память: блоки читаются
+ *  прямо из файла без разбора и копирования, а копируются лишь при первом изменении.
+ *  Класс не потокобезопасен для изменений, но допускает одновременное чтение из многих потоков.
+ */
+public class AddressBitmap {
+    private static final int BLOCKS_COUNT = 1 << 16;
+    private static final int BLOCK_BITS = 1 << 16;
+    private static final int WORDS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+    private static final int BLOCK_BYTES = WORDS_PER_BLOCK * Long.BYTES;
+
+    private static final int FILE_MAGIC = 0x49504D42;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private static final LongBuffer FULL_BLOCK = createFullBlock();
+
+    private final LongBuffer[] _blocks = new LongBuffer[BLOCKS_COUNT];
+
+    /** Проверяет наличие IP-адреса в карте
+     *
+     */
+    public boolean contains(IpAddress address) {
+        return contains(address.toInt());
+    }
+
+    public boolean contains(int address) {
+        LongBuffer block = this._blocks[address >>> 16];
+        return block != null && (block.get((address & 0xFFFF) >>> 6) & (1L << address)) != 0;
+    }
+
+    /** Добавляет IP-адрес в карту
+     *
+     */
+    public void add(IpAddress address) {
+        add(address.toInt());
+    }
+
+    public void add(int address) {
+        if (!contains(address)) {
+            LongBuffer block = writableBlock(address >>> 16);
+            int word = (address & 0xFFFF) >>> 6;
+            block.put(word, block.get(word) | (1L << address));
+        }
+    }
+
+    /** Удаляет IP-адрес из карты
+     *
+     */
+    public void remove(IpAddress address) {
+        remove(address.toInt());
+    }
+
+    public void remove(int address) {
+        if (contains(address)) {
+            LongBuffer block = writableBlock(address >>> 16);
+            int word = (address & 0xFFFF) >>> 6;
+            block.put(word, block.get(word) & ~(1L << address));
+        }
+    }
+
+    /** Добавляет все адреса подсети
+     *
+     */
+    public void add(Subnet subnet) {
+        addRange(subnet.networkInt(), subnet.broadcastInt());
+    }
+
+    /** Удаляет все адреса подсети
+     *
+     */
+    public void remove(Subnet subnet) {
+        removeRange(subnet.networkInt(), subnet.broadcastInt());
+    }
+
+    /** Добавляет все адреса из диапазона [first, last] (границы сравниваются без знака)
+     *
+     */
+    public void addRange(int first, int last) {
+        updateRange(first, last, true);
+    }
+
+    /** Удаляет все адреса из диапазона [first, last] (границы сравниваются без знака)
+     *
+     */
+    public void removeRange(int first, int last) {
+        updateRange(first, last, false);
+    }
+
+    /** Возвращает количество адресов в карте
+     *
+     */
+    public long cardinality() {
+        long cardinality = 0;
+        for (LongBuffer block : this._blocks) {
+            if (block == FULL_BLOCK) {
+                cardinality += BLOCK_BITS;
+            } else if (block != null) {
+                for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+                    cardinality += Long.bitCount(block.get(i));
+                }
+            }
+        }
+
+        return cardinality;
+    }
+
+    /** Объединение: добавляет все адреса другой карты
+     *
+     */
+    public void or(AddressBitmap other) {
+        for (int index = 0; index < BLOCKS_COUNT; index++) {
+            LongBuffer theirs = other._blocks[index];
+            LongBuffer ours = this._blocks[index];
+            if (theirs == null || ours == FULL_BLOCK) {
+                continue;
+            }
+
+            if (ours == null || theirs == FULL_BLOCK) {
+                this._blocks[index] = share(theirs);
+                continue;
+            }
+
+            LongBuffer block = writableBlock(index);
+            for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+                block.put(i, block.get(i) | theirs.get(i));
+            }
+        }
+    }
+
+    /** Пересечение: оставляет только адреса, которые есть и в другой карте
+     *
+     */
+    public void and(AddressBitmap other) {
+        for (int index = 0; index < BLOCKS_COUNT; index++) {
+            LongBuffer theirs = other._blocks[index];
+            LongBuffer ours = this._blocks[index];
+            if (ours == null || theirs == FULL_BLOCK) {
+                continue;
+            }
+
+            if (theirs == null) {
+                this._blocks[index] = null;
+                continue;
+            }
+
+            if (ours == FULL_BLOCK) {
+                this._blocks[index] = share(theirs);
+                continue;
+            }
+
+            LongBuffer block = writableBlock(index);
+            for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+                block.put(i, block.get(i) & theirs.get(i));
+            }
+        }
+    }
+
+    /** Разность: удаляет все адреса, которые есть в другой карте
+     *
+     */
+    public void andNot(AddressBitmap other) {
+        for (int index = 0; index < BLOCKS_COUNT; index++) {
+            LongBuffer theirs = other._blocks[index];
+            if (theirs == null || this._blocks[index] == null) {
+                continue;
+            }
+
+            if (theirs == FULL_BLOCK) {
+                this._blocks[index] = null;
+                continue;
+            }
+
+            LongBuffer block = writableBlock(index);
+            for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+                block.put(i, block.get(i) & ~theirs.get(i));
+            }
+        }
+    }
+
+    /** Сохраняет карту в файл (пустые блоки не записываются)
+     *
+     *  Данные пишутся во временный файл рядом с целевым, который затем атомарно заменяет его: блоки карт,
+     *  загруженных из этого файла, остаются отображёнными на прежнее содержимое и не повреждаются.
+     */
+    public void save(Path path) throws IOException {
+        int blocksCount = 0;
+        for (int index = 0; index < BLOCKS_COUNT; index++) {
+            if (!isEmpty(this._blocks[index])) {
+                blocksCount++;
+            }
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(dataOffset(blocksCount));
+                header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(blocksCount).putInt(0);
+                for (int index = 0; index < BLOCKS_COUNT; index++) {
+                    if (!isEmpty(this._blocks[index])) {
+                        header.putInt(index);
+                    }
+                }
+                header.clear();
+                writeFully(channel, header);
+
+                ByteBuffer data = ByteBuffer.allocate(BLOCK_BYTES);
+                for (int index = 0; index < BLOCKS_COUNT; index++) {
+                    LongBuffer block = this._blocks[index];
+                    if (isEmpty(block)) {
+                        continue;
+                    }
+
+                    data.clear();
+                    for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+                        data.putLong(block.get(i));
+                    }
+                    data.flip();
+                    writeFully(channel, data);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Загружает карту, отображая файл в память; блоки не копируются до первого изменения
+     *
+     */
+    public static AddressBitmap load(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != FILE_MAGIC) {
+            throw new IllegalArgumentException(String.format("%s is not an address bitmap file", path));
+        }
+        if (mapped.getInt(4) != FILE_VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported address bitmap version %d", mapped.getInt(4)));
+        }
+
+        int blocksCount = mapped.getInt(8);
+        int dataOffset = dataOffset(blocksCount);
+        if (blocksCount < 0 || blocksCount > BLOCKS_COUNT
+                || mapped.capacity() != dataOffset + (long) blocksCount * BLOCK_BYTES) {
+            throw new IllegalArgumentException(String.format("Address bitmap file %s is corrupted", path));
+        }
+
+        AddressBitmap bitmap = new AddressBitmap();
+        for (int i = 0; i < blocksCount; i++) {
+            int index = mapped.getInt(HEADER_BYTES + i * Integer.BYTES);
+            if (index < 0 || index >= BLOCKS_COUNT) {
+                throw new IllegalArgumentException(String.format("Address bitmap file %s is corrupted", path));
+            }
+
+            bitmap._blocks[index] = mapped.slice(dataOffset + i * BLOCK_BYTES, BLOCK_BYTES).asLongBuffer();
+        }
+
+        return bitmap;
+    }
+
+
+    /** Устанавливает или сбрасывает биты диапазона [first, last], целиком заполненные блоки делая общими
+     *
+     */
+    private void updateRange(int first, int last, boolean value) {
+        if (Integer.compareUnsigned(first, last) > 0) {
+            throw new IllegalArgumentException("Range start must not exceed range end");
+        }
+
+        for (int index = first >>> 16; index <= last >>> 16; index++) {
+            int from = index == first >>> 16 ? first & 0xFFFF : 0;
+            int to = index == last >>> 16 ? last & 0xFFFF : BLOCK_BITS - 1;
+
+            if (from == 0 && to == BLOCK_BITS - 1) {
+                this._blocks[index] = value ? FULL_BLOCK : null;
+                continue;
+            }
+
+            if (this._blocks[index] == (value ? FULL_BLOCK : null)) {
+                continue;
+            }
+
+            LongBuffer block = writableBlock(index);
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long bits = -1L;
+                if (word == from >>> 6) {
+                    bits &= -1L << from;
+                }
+                if (word == to >>> 6) {
+                    bits &= -1L >>> (Long.SIZE - 1 - (to & (Long.SIZE - 1)));
+                }
+
+                block.put(word, value ? block.get(word) | bits : block.get(word) & ~bits);
+            }
+        }
+    }
+
+    /** Возвращает блок, пригодный для изменения, создавая или копируя его при необходимости
+     *
+     */
+    private LongBuffer writableBlock(int index) {
+        LongBuffer block = this._blocks[index];
+        if (block == null) {
+            block = LongBuffer.wrap(new long[WORDS_PER_BLOCK]);
+            this._blocks[index] = block;
+        } else if (block.isReadOnly()) {
+            long[] words = new long[WORDS_PER_BLOCK];
+            block.get(0, words);
+            block = LongBuffer.wrap(words);
+            this._blocks[index] = block;
+        }
+
+        return block;
+    }
+
+    /** Возвращает блок другой карты для совместного использования: неизменяемые блоки разделяются, остальные копируются
+     *
+     */
+    private static LongBuffer share(LongBuffer block) {
+        if (block.isReadOnly()) {
+            return block;
+        }
+
+        long[] words = new long[WORDS_PER_BLOCK];
+        block.get(0, words);
+        return LongBuffer.wrap(words);
+    }
+
+    private static boolean isEmpty(LongBuffer block) {
+        if (block == null) {
+            return true;
+        }
+
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            if (block.get(i) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int dataOffset(int blocksCount) {
+        // Данные блоков выравниваются на границу 8 байт
+        int indexEnd = HEADER_BYTES + blocksCount * Integer.BYTES;
+        return (indexEnd + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static LongBuffer createFullBlock() {
+        long[] words = new long[WORDS_PER_BLOCK];
+        Arrays.fill(words, -1L);
+        return LongBuffer.wrap(words).asReadOnlyBuffer();
+    }
+}
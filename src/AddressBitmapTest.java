@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AddressBitmapTest {
+
+    @ParameterizedTest
+    @MethodSource("testAddSubnetProvider")
+    @DisplayName("Добавление подсети в битовую карту")
+    void testAddSubnet(Subnet subnet, IpAddress inside, IpAddress outside) {
+        AddressBitmap bitmap = new AddressBitmap();
+        bitmap.add(subnet);
+
+        assertEquals(bitmap.cardinality(), subnet.size());
+        assertTrue(bitmap.contains(subnet.network()));
+        assertTrue(bitmap.contains(subnet.broadcast()));
+        assertTrue(bitmap.contains(inside));
+        assertFalse(bitmap.contains(outside));
+    }
+
+    static Stream<Arguments> testAddSubnetProvider() {
+        return Stream.of(
+                arguments(Subnet.parse("10.0.0.0/8"), IpAddress.parse("10.200.1.2"), IpAddress.parse("11.0.0.0")),
+                arguments(Subnet.parse("192.168.1.64/26"), IpAddress.parse("192.168.1.100"), IpAddress.parse("192.168.1.128")),
+                arguments(Subnet.parse("172.16.3.0/23"), IpAddress.parse("172.16.2.255"), IpAddress.parse("172.16.4.0")),
+                arguments(Subnet.parse("255.255.255.255/32"), IpAddress.parse("255.255.255.255"), IpAddress.parse("255.255.255.254"))
+        );
+    }
+
+    @Test
+    @DisplayName("Объединение, пересечение и разность битовых карт")
+    void testSetOperations() {
+        AddressBitmap first = new AddressBitmap();
+        first.add(Subnet.parse("10.0.0.0/16"));
+        first.add(IpAddress.parse("192.168.0.1"));
+
+        AddressBitmap second = new AddressBitmap();
+        second.add(Subnet.parse("10.0.128.0/17"));
+        second.add(Subnet.parse("10.1.0.0/24"));
+
+        AddressBitmap union = copyOf(first);
+        union.or(second);
+        assertEquals(union.cardinality(), 65536 + 1 + 256);
+
+        AddressBitmap intersection = copyOf(first);
+        intersection.and(second);
+        assertEquals(intersection.cardinality(), 32768);
+        assertTrue(intersection.contains(IpAddress.parse("10.0.200.1")));
+
+        AddressBitmap difference = copyOf(first);
+        difference.andNot(second);
+        assertEquals(difference.cardinality(), 32768 + 1);
+        assertFalse(difference.contains(IpAddress.parse("10.0.200.1")));
+        assertTrue(difference.contains(IpAddress.parse("10.0.100.1")));
+
+        // Исходные карты не меняются
+        assertEquals(first.cardinality(), 65537);
+        assertEquals(second.cardinality(), 32768 + 256);
+    }
+
+    @Test
+    @DisplayName("Удаление адресов из полностью заполненного блока")
+    void testRemoveFromFullBlock() {
+        AddressBitmap bitmap = new AddressBitmap();
+        bitmap.add(Subnet.parse("10.0.0.0/8"));
+        bitmap.remove(IpAddress.parse("10.5.5.5"));
+        bitmap.remove(Subnet.parse("10.6.0.0/24"));
+
+        assertFalse(bitmap.contains(IpAddress.parse("10.5.5.5")));
+        assertFalse(bitmap.contains(IpAddress.parse("10.6.0.77")));
+        assertTrue(bitmap.contains(IpAddress.parse("10.6.1.0")));
+        assertEquals(bitmap.cardinality(), (1L << 24) - 1 - 256);
+    }
+
+    @Test
+    @DisplayName("Сохранение и загрузка битовой карты через отображение файла в память")
+    void testSaveAndLoad() throws IOException {
+        AddressBitmap bitmap = new AddressBitmap();
+        bitmap.add(Subnet.parse("10.0.0.0/15"));
+        bitmap.add(IpAddress.parse("8.8.8.8"));
+        bitmap.add(IpAddress.parse("255.255.255.255"));
+
+        // Отображённый в память файл нельзя удалить сразу на всех системах
+        Path file = Files.createTempFile("bitmap", ".bin");
+        file.toFile().deleteOnExit();
+
+        bitmap.save(file);
+        AddressBitmap loaded = AddressBitmap.load(file);
+
+        assertEquals(loaded.cardinality(), bitmap.cardinality());
+        assertTrue(loaded.contains(IpAddress.parse("8.8.8.8")));
+        assertTrue(loaded.contains(IpAddress.parse("10.1.255.255")));
+        assertFalse(loaded.contains(IpAddress.parse("8.8.8.9")));
+
+        // Загруженная карта изменяема, а файл при этом не меняется
+        loaded.add(IpAddress.parse("8.8.8.9"));
+        assertTrue(loaded.contains(IpAddress.parse("8.8.8.9")));
+        assertFalse(AddressBitmap.load(file).contains(IpAddress.parse("8.8.8.9")));
+    }
+
+    @Test
+    @DisplayName("Сохранение изменённой загруженной карты в тот же файл")
+    void testSaveOverLoadedFile() throws IOException {
+        AddressBitmap bitmap = new AddressBitmap();
+        bitmap.add(Subnet.parse("10.0.0.0/16"));
+        bitmap.add(IpAddress.parse("8.8.8.8"));
+
+        // Отображённый в память файл нельзя удалить сразу на всех системах
+        Path file = Files.createTempFile("bitmap", ".bin");
+        file.toFile().deleteOnExit();
+        bitmap.save(file);
+
+        AddressBitmap loaded = AddressBitmap.load(file);
+        AddressBitmap untouched = AddressBitmap.load(file);
+        loaded.add(IpAddress.parse("8.8.8.9"));
+        loaded.remove(Subnet.parse("10.0.0.0/17"));
+        loaded.save(file);
+
+        // Карты, отображённые на прежний файл, по-прежнему читаются и видят старое содержимое
+        assertTrue(untouched.contains(IpAddress.parse("10.0.0.1")));
+        assertFalse(untouched.contains(IpAddress.parse("8.8.8.9")));
+        assertEquals(65537, untouched.cardinality());
+        assertTrue(loaded.contains(IpAddress.parse("10.0.255.255")));
+        assertEquals(32770, loaded.cardinality());
+
+        AddressBitmap reloaded = AddressBitmap.load(file);
+        assertEquals(32770, reloaded.cardinality());
+        assertTrue(reloaded.contains(IpAddress.parse("8.8.8.9")));
+        assertFalse(reloaded.contains(IpAddress.parse("10.0.0.1")));
+        assertTrue(reloaded.contains(IpAddress.parse("10.0.128.0")));
+    }
+
+    @Test
+    @DisplayName("Исключение при загрузке файла неизвестного формата")
+    void testLoadInvalidFile() throws IOException {
+        // Отображённый в память файл нельзя удалить сразу на всех системах
+        Path file = Files.createTempFile("bitmap", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            AddressBitmap.load(file);
+        });
+    }
+
+    static AddressBitmap copyOf(AddressBitmap bitmap) {
+        AddressBitmap copy = new AddressBitmap();
+        copy.or(bitmap);
+        return copy;
+    }
+}
@@ -0,0 +1,62 @@
+/** Результат проверки IP-адреса или маски без создания исключений
+ *
+ *  Методы вида tryXxx класса {@link IpAddress} возвращают неотрицательное число при успехе
+ *  и отрицательный код ошибки ({@link #code()}) иначе; {@link #of(long)} превращает такой результат
+ *  обратно в значение перечисления. Ни проверка, ни преобразование ничего не выделяют.
+ */
+public enum AddressError {
+    OK("OK"),
+    NULL_ADDRESS("IP address cannot be null"),
+    WRONG_OCTET_COUNT("IP address must consist only of 4 octets"),
+    OCTET_OUT_OF_RANGE("Each octet in IP address must be in range [0..255]"),
+    NULL_MASK("Mask cannot be null"),
+    NON_CONTIGUOUS_MASK("Invalid mask"),
+    MASK_LENGTH_OUT_OF_RANGE("Mask length must be in range [0..32]"),
+    NOT_IN_SAME_SUBNET("IP-addresses not in the same net");
+
+    // Копия values(), чтобы преобразование кода не создавало новый массив
+    private static final AddressError[] VALUES = values();
+
+    private final String _message;
+
+    AddressError(String message) {
+        this._message = message;
+    }
+
+    /** Возвращает отрицательный код ошибки (0 для OK)
+     *
+     */
+    public long code() {
+        return -ordinal();
+    }
+
+    /** Возвращает текст сообщения об ошибке
+     *
+     */
+    public String message() {
+        return this._message;
+    }
+
+    /** Возвращает ошибку по результату метода tryXxx: OK для неотрицательного результата
+     *
+     */
+    public static AddressError of(long result) {
+        if (result >= 0) {
+            return OK;
+        }
+        if (result < -(VALUES.length - 1)) {
+            throw new IllegalArgumentException(String.format("Unknown error code %d", result));
+        }
+
+        return VALUES[(int) -result];
+    }
+
+    /** Бросает IllegalArgumentException с сообщением этой ошибки, если она не OK
+     *
+     */
+    public void throwIfError() {
+        if (this != OK) {
+            throw new IllegalArgumentException(this._message);
+        }
+    }
+}
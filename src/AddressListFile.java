@@ -0,0 +1,431 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/** Компактный двоичный файл со списком IP-адресов или подсетей
+ *
+ *  Записи хранятся отсортированными ключами: для адреса - беззнаковое значение адреса, для подсети -
+ *  (беззнаковый адрес сети << 8) | длина префикса. Ключи разбиты на блоки по 64 записи; первый ключ
+ *  каждого блока хранится в индексе целиком, остальные - как разности с предыдущим ключом в формате varint.
+ *  Поиск выполняется двоичным поиском по индексу и чтением одного блока прямо из отображённого файла.
+ *
+ *  Формат (big-endian): заголовок из 40 байтов (сигнатура, версия, вид списка, число записей, число блоков,
+ *  CRC32, битовая маска встречающихся длин префиксов, резерв), индекс блоков (ключ long и смещение int
+ *  данных блока) и данные блоков. CRC32 считается по всему файлу, кроме поля самой контрольной суммы.
+ *  Файл записывается во временный файл и атомарно переименовывается, поэтому его можно обновлять,
+ *  не останавливая читателей.
+ */
+public final class AddressListFile {
+    /** Вид хранимого списка */
+    public enum Kind {
+        ADDRESSES,
+        SUBNETS
+    }
+
+    private static final int FILE_MAGIC = 0x4950414C;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int CRC_OFFSET = 20;
+    private static final int INDEX_ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int BLOCK_SIZE = 64;
+    // Разность ключей не превышает 2^40, поэтому занимает не более 6 байтов
+    private static final int MAX_VARINT_BYTES = 6;
+    private static final int PREFIX_BITS = 8;
+    private static final int PREFIX_MASK = 0xFF;
+    private static final int MAX_PREFIX_LENGTH = 32;
+
+    private final ByteBuffer _buffer;
+    private final Kind _kind;
+    private final int _count;
+    private final int _blocksCount;
+    private final long _prefixLengths;
+    private final int _dataOffset;
+
+    private AddressListFile(ByteBuffer buffer, Kind kind, int count, int blocksCount, long prefixLengths) {
+        this._buffer = buffer;
+        this._kind = kind;
+        this._count = count;
+        this._blocksCount = blocksCount;
+        this._prefixLengths = prefixLengths;
+        this._dataOffset = HEADER_BYTES + blocksCount * INDEX_ENTRY_BYTES;
+    }
+
+    /** Записывает первые length адресов массива (порядок и повторы не важны)
+     *
+     */
+    public static void writeAddresses(Path path, int[] addresses, int length) throws IOException {
+        if (length < 0 || length > addresses.length) {
+            throw new IllegalArgumentException(String.format("Length %d is out of range", length));
+        }
+
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = Integer.toUnsignedLong(addresses[i]);
+        }
+
+        write(path, Kind.ADDRESSES, keys, 0);
+    }
+
+    /** Записывает все адреса множества
+     *
+     */
+    public static void writeAddresses(Path path, IpAddressSet set) throws IOException {
+        long[] keys = new long[set.size()];
+        int[] count = {0};
+        set.forEach(address -> keys[count[0]++] = Integer.toUnsignedLong(address));
+
+        write(path, Kind.ADDRESSES, keys, 0);
+    }
+
+    /** Записывает подсети (порядок и повторы не важны)
+     *
+     */
+    public static void writeSubnets(Path path, Collection<Subnet> subnets) throws IOException {
+        long[] keys = new long[subnets.size()];
+        long prefixLengths = 0;
+        int count = 0;
+        for (Subnet subnet : subnets) {
+            keys[count++] = subnetKey(subnet.networkInt(), subnet.prefixLength());
+            prefixLengths |= 1L << subnet.prefixLength();
+        }
+
+        write(path, Kind.SUBNETS, keys, prefixLengths);
+    }
+
+    /** Открывает файл, отображая его в память, и проверяет заголовок и контрольную сумму
+     *
+     */
+    public static AddressListFile open(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(String.format("%s is not an address list file", path));
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != FILE_MAGIC) {
+            throw new IllegalArgumentException(String.format("%s is not an address list file", path));
+        }
+        if (mapped.getInt(4) != FILE_VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported address list version %d", mapped.getInt(4)));
+        }
+
+        int kind = mapped.getInt(8);
+        int count = mapped.getInt(12);
+        int blocksCount = mapped.getInt(16);
+        if (kind < 0 || kind >= Kind.values().length || count < 0 || blocksCount != blocksCount(count)
+                || (long) HEADER_BYTES + (long) blocksCount * INDEX_ENTRY_BYTES > mapped.capacity()
+                || mapped.getInt(CRC_OFFSET) != checksum(mapped)) {
+            throw new IllegalArgumentException(String.format("Address list file %s is corrupted", path));
+        }
+
+        return new AddressListFile(mapped, Kind.values()[kind], count, blocksCount, mapped.getLong(24));
+    }
+
+    /** Возвращает вид хранимого списка
+     *
+     */
+    public Kind kind() {
+        return this._kind;
+    }
+
+    /** Возвращает количество записей
+     *
+     */
+    public int size() {
+        return this._count;
+    }
+
+    /** Проверяет наличие IP-адреса: в списке адресов - точное совпадение, в списке подсетей - попадание в подсеть
+     *
+     */
+    public boolean contains(IpAddress address) {
+        return contains(address.toInt());
+    }
+
+    /** Проверяет наличие упакованного IP-адреса: в списке адресов - точное совпадение,
+     *  в списке подсетей - попадание хотя бы в одну подсеть
+     */
+    public boolean contains(int address) {
+        if (this._kind == Kind.ADDRESSES) {
+            return containsKey(Integer.toUnsignedLong(address));
+        }
+
+        // Проверяем только те длины префиксов, которые встречаются в файле, начиная с самой длинной
+        for (int prefixLength = MAX_PREFIX_LENGTH; prefixLength >= 0; prefixLength--) {
+            if ((this._prefixLengths & (1L << prefixLength)) != 0
+                    && containsKey(subnetKey(address & IpAddress.mask(prefixLength).toInt(), prefixLength))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /** Проверяет наличие подсети в списке подсетей
+     *
+     */
+    public boolean contains(Subnet subnet) {
+        checkKind(Kind.SUBNETS);
+        return containsKey(subnetKey(subnet.networkInt(), subnet.prefixLength()));
+    }
+
+    /** Возвращает итератор по адресам списка в порядке возрастания (без знака)
+     *
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        checkKind(Kind.ADDRESSES);
+        return new AddressIterator();
+    }
+
+    /** Возвращает итератор по подсетям списка в порядке возрастания адреса сети, а при равных адресах -
+     *  длины префикса
+     */
+    public Iterator<Subnet> subnetIterator() {
+        checkKind(Kind.SUBNETS);
+        return new SubnetIterator();
+    }
+
+    /** Передаёт все адреса списка в порядке возрастания (без знака)
+     *
+     */
+    public void forEach(IntConsumer action) {
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) {
+            action.accept(iterator.nextInt());
+        }
+    }
+
+    /** Передаёт все подсети списка в порядке возрастания адреса сети, а при равных адресах - длины префикса
+     *
+     */
+    public void forEach(CidrAggregator.CidrConsumer action) {
+        checkKind(Kind.SUBNETS);
+
+        KeyCursor cursor = new KeyCursor(0);
+        while (cursor.hasNext()) {
+            long key = cursor.next();
+            action.accept((int) (key >>> PREFIX_BITS), (int) key & PREFIX_MASK);
+        }
+    }
+
+
+    /** Ищет ключ: двоичный поиск блока по индексу и последовательное чтение разностей внутри блока
+     *
+     */
+    private boolean containsKey(long key) {
+        int low = 0;
+        int high = this._blocksCount - 1;
+        int block = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blockKey(middle) <= key) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        if (block < 0) {
+            return false;
+        }
+
+        // Читаем записи блока, пока не дойдём до искомого ключа или не превысим его
+        KeyCursor cursor = new KeyCursor(block);
+        int end = Math.min(this._count, (block + 1) * BLOCK_SIZE);
+        long current = cursor.next();
+        while (current < key && cursor._index < end) {
+            current = cursor.next();
+        }
+
+        return current == key;
+    }
+
+    private long blockKey(int block) {
+        return this._buffer.getLong(HEADER_BYTES + block * INDEX_ENTRY_BYTES);
+    }
+
+    private int blockOffset(int block) {
+        return this._buffer.getInt(HEADER_BYTES + block * INDEX_ENTRY_BYTES + Long.BYTES);
+    }
+
+    private void checkKind(Kind kind) {
+        if (this._kind != kind) {
+            throw new IllegalStateException(String.format("Operation requires a %s list, but the file holds %s",
+                    kind, this._kind));
+        }
+    }
+
+    /** Сортирует ключи, удаляет повторы и записывает файл через временный файл с атомарной заменой
+     *
+     */
+    private static void write(Path path, Kind kind, long[] keys, long prefixLengths) throws IOException {
+        Arrays.sort(keys);
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (count == 0 || keys[i] != keys[count - 1]) {
+                keys[count++] = keys[i];
+            }
+        }
+
+        int blocksCount = blocksCount(count);
+        long capacity = HEADER_BYTES + (long) blocksCount * INDEX_ENTRY_BYTES + (long) count * MAX_VARINT_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(capacity, Integer.MAX_VALUE));
+        buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(kind.ordinal()).putInt(count).putInt(blocksCount)
+                .putInt(0).putLong(prefixLengths).putLong(0);
+
+        int dataOffset = HEADER_BYTES + blocksCount * INDEX_ENTRY_BYTES;
+        buffer.position(dataOffset);
+        for (int i = 0; i < count; i++) {
+            if (i % BLOCK_SIZE == 0) {
+                int indexPosition = HEADER_BYTES + (i / BLOCK_SIZE) * INDEX_ENTRY_BYTES;
+                buffer.putLong(indexPosition, keys[i]);
+                buffer.putInt(indexPosition + Long.BYTES, buffer.position() - dataOffset);
+                continue;
+            }
+
+            long delta = keys[i] - keys[i - 1];
+            while ((delta & ~0x7FL) != 0) {
+                buffer.put((byte) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            buffer.put((byte) delta);
+        }
+        buffer.flip();
+        buffer.putInt(CRC_OFFSET, checksum(buffer));
+
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Считает CRC32 по всему содержимому буфера, кроме поля контрольной суммы
+     *
+     */
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, CRC_OFFSET));
+        crc.update(buffer.slice(CRC_OFFSET + Integer.BYTES, buffer.limit() - CRC_OFFSET - Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static int blocksCount(int count) {
+        return (int) (((long) count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    private static long subnetKey(int network, int prefixLength) {
+        return (Integer.toUnsignedLong(network) << PREFIX_BITS) | prefixLength;
+    }
+
+
+    /** Курсор последовательного чтения ключей прямо из отображённого файла, начиная с заданного блока
+     *
+     */
+    private final class KeyCursor {
+        private int _index;
+        private int _position;
+        private long _key;
+
+        KeyCursor(int block) {
+            this._index = block * BLOCK_SIZE;
+            this._position = _dataOffset + (block < _blocksCount ? blockOffset(block) : 0);
+        }
+
+        boolean hasNext() {
+            return this._index < _count;
+        }
+
+        long next() {
+            if (this._index % BLOCK_SIZE == 0) {
+                // Первый ключ блока хранится в индексе целиком, данные блоков идут подряд
+                this._key = blockKey(this._index / BLOCK_SIZE);
+            } else {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = _buffer.get(this._position++);
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                this._key += delta;
+            }
+
+            this._index++;
+            return this._key;
+        }
+    }
+
+    /** Итератор по адресам списка
+     *
+     */
+    private final class AddressIterator implements PrimitiveIterator.OfInt {
+        private final KeyCursor _cursor = new KeyCursor(0);
+
+        @Override
+        public boolean hasNext() {
+            return this._cursor.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return (int) this._cursor.next();
+        }
+    }
+
+    /** Итератор по подсетям списка
+     *
+     */
+    private final class SubnetIterator implements Iterator<Subnet> {
+        private final KeyCursor _cursor = new KeyCursor(0);
+
+        @Override
+        public boolean hasNext() {
+            return this._cursor.hasNext();
+        }
+
+        @Override
+        public Subnet next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            long key = this._cursor.next();
+            return Subnet.of((int) (key >>> PREFIX_BITS), (int) key & PREFIX_MASK);
+        }
+    }
+}
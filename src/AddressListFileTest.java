@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AddressListFileTest {
+
+    static Path tempFile() throws IOException {
+        Path file = Files.createTempFile("address-list", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSizeProvider")
+    @DisplayName("Запись и чтение списка адресов")
+    void testAddresses(int count) throws IOException {
+        Random random = new Random(count);
+        int[] addresses = new int[count];
+        for (int i = 0; i < count; i++) {
+            // Повторы и адреса с установленным старшим битом
+            addresses[i] = random.nextInt(4) == 0 && i > 0 ? addresses[i - 1] : random.nextInt();
+        }
+        long[] expected = Arrays.stream(addresses).mapToLong(Integer::toUnsignedLong).sorted().distinct().toArray();
+
+        Path file = tempFile();
+        AddressListFile.writeAddresses(file, addresses, count);
+        AddressListFile list = AddressListFile.open(file);
+
+        assertEquals(AddressListFile.Kind.ADDRESSES, list.kind());
+        assertEquals(expected.length, list.size());
+
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        for (long address : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals((int) address, iterator.nextInt());
+            assertTrue(list.contains((int) address));
+        }
+        assertFalse(iterator.hasNext());
+
+        for (int i = 0; i < 1000; i++) {
+            int address = random.nextInt();
+            assertEquals(Arrays.binarySearch(expected, Integer.toUnsignedLong(address)) >= 0, list.contains(address));
+        }
+    }
+
+    static Stream<Arguments> testSizeProvider() {
+        return Stream.of(
+                arguments(0),
+                arguments(1),
+                arguments(64),
+                arguments(65),
+                arguments(10000)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSizeProvider")
+    @DisplayName("Запись и чтение списка подсетей")
+    void testSubnets(int count) throws IOException {
+        Random random = new Random(count);
+        List<Subnet> subnets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            subnets.add(Subnet.of(random.nextInt(), 8 + random.nextInt(25)));
+        }
+
+        Path file = tempFile();
+        AddressListFile.writeSubnets(file, subnets);
+        AddressListFile list = AddressListFile.open(file);
+
+        List<Subnet> expected = subnets.stream().distinct()
+                .sorted((a, b) -> a.networkInt() != b.networkInt()
+                        ? Integer.compareUnsigned(a.networkInt(), b.networkInt())
+                        : Integer.compare(a.prefixLength(), b.prefixLength()))
+                .toList();
+        List<Subnet> actual = new ArrayList<>();
+        list.forEach((network, prefixLength) -> actual.add(Subnet.of(network, prefixLength)));
+
+        assertEquals(expected, actual);
+        for (Subnet subnet : subnets) {
+            assertTrue(list.contains(subnet));
+            assertTrue(list.contains(subnet.broadcastInt()));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            int address = random.nextInt();
+            boolean inAny = subnets.stream().anyMatch(subnet -> subnet.contains(address));
+            assertEquals(inAny, list.contains(address));
+        }
+    }
+
+    @Test
+    @DisplayName("Повреждённый файл не открывается")
+    void testCorrupted() throws IOException {
+        Path file = tempFile();
+        AddressListFile.writeAddresses(file, new int[] {1, 2, 3, 1000, 100000}, 5);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(IllegalArgumentException.class, () -> AddressListFile.open(file));
+    }
+
+    @Test
+    @DisplayName("Итерация по адресам недоступна для списка подсетей")
+    void testWrongKind() throws IOException {
+        Path file = tempFile();
+        AddressListFile.writeSubnets(file, List.of(Subnet.parse("10.0.0.0/8")));
+        AddressListFile list = AddressListFile.open(file);
+
+        assertThrows(IllegalStateException.class, list::iterator);
+        assertTrue(list.contains(IpAddress.parse("10.20.30.40")));
+        assertFalse(list.contains(IpAddress.parse("11.0.0.0")));
+    }
+}
@@ -0,0 +1,498 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Пул адресов подсети с выдачей отдельных адресов и выровненных блоков (например, /28) по схеме
+ *  "близнецов" (buddy allocation)
+ *
+ *  Пул разбит на полосы - выровненные участки, у каждого из которых своя блокировка, битовая карта
+ *  занятых адресов (1 - адрес выдан) и неявное двоичное дерево над словами карты. Узел дерева хранит
+ *  порядок (логарифм размера) наибольшего свободного выровненного блока в своём поддереве, поэтому
+ *  свободный блок нужного размера находится спуском от корня за O(log n), а освобождённые блоки
+ *  автоматически объединяются с соседями-близнецами при пересчёте узлов. Внутри одного слова
+ *  карты блоки до 64 адресов ищутся битовыми операциями.
+ *
+ *  Потоки начинают поиск с "своей" полосы и блокируют только её, поэтому выдача адресов масштабируется
+ *  по потокам. Блоки крупнее полосы занимают несколько полос, которые блокируются по возрастанию номера.
+ *  Все адреса подсети пула, включая адрес сети и широковещательный, могут быть выданы;
+ *  исключить их можно методом {@link #reserve(Subnet)}. Размер пула - не более /8.
+ */
+public class AddressPool {
+    private static final int MIN_POOL_PREFIX_LENGTH = 8;
+    private static final int MAX_PREFIX_LENGTH = 32;
+    private static final int WORD_ORDER = 6;
+    private static final int MAX_STRIPE_ORDER = 16;
+    // Желаемое число полос - 2^4, если пул достаточно велик
+    private static final int STRIPES_ORDER = 4;
+
+    // Маски битов, номера которых кратны 2^k, для k = 1..6
+    private static final long[] ALIGNED_BITS = {
+            0, 0x5555555555555555L, 0x1111111111111111L, 0x0101010101010101L,
+            0x0001000100010001L, 0x0000000100000001L, 0x0000000000000001L
+    };
+
+    private final Subnet _subnet;
+    private final int _network;
+    private final int _poolOrder;
+    private final int _stripeOrder;
+    private final int _leafOrder;
+    private final int _wordsPerStripe;
+    private final Stripe[] _stripes;
+
+    /** Полоса пула: блокировка, битовая карта и дерево наибольших свободных блоков */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final long[] words;
+        // Корень в ячейке 1, листья (по одному на слово карты) - начиная с ячейки words.length
+        final byte[] tree;
+        int free;
+
+        Stripe(int wordsCount) {
+            this.words = new long[wordsCount];
+            this.tree = new byte[2 * wordsCount];
+        }
+    }
+
+    /** Создаёт пул всех адресов подсети
+     *
+     */
+    public AddressPool(Subnet subnet) {
+        if (subnet.prefixLength() < MIN_POOL_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Pool prefix length must be in range [%d..%d]", MIN_POOL_PREFIX_LENGTH, MAX_PREFIX_LENGTH));
+        }
+
+        this._subnet = subnet;
+        this._network = subnet.networkInt();
+        this._poolOrder = MAX_PREFIX_LENGTH - subnet.prefixLength();
+        this._stripeOrder = this._poolOrder <= WORD_ORDER
+                ? this._poolOrder
+                : Math.max(WORD_ORDER, Math.min(MAX_STRIPE_ORDER, this._poolOrder - STRIPES_ORDER));
+        this._leafOrder = Math.min(WORD_ORDER, this._stripeOrder);
+        this._wordsPerStripe = 1 << (this._stripeOrder - this._leafOrder);
+
+        this._stripes = new Stripe[1 << (this._poolOrder - this._stripeOrder)];
+        for (int i = 0; i < this._stripes.length; i++) {
+            Stripe stripe = new Stripe(this._wordsPerStripe);
+            // В пуле меньше 64 адресов лишние биты единственного слова навсегда заняты
+            if (this._poolOrder < WORD_ORDER) {
+                stripe.words[0] = -1L << (1 << this._poolOrder);
+            }
+            stripe.free = 1 << this._stripeOrder;
+            refresh(stripe, 0, this._wordsPerStripe - 1);
+            this._stripes[i] = stripe;
+        }
+    }
+
+    /** Создаёт пул всех адресов сети, заданной IP-адресом и маской
+     *
+     */
+    public AddressPool(IpAddress network, IpAddress mask) {
+        this(new Subnet(network, mask));
+    }
+
+    /** Выдаёт свободный адрес или возвращает null, если пул исчерпан
+     *
+     */
+    public IpAddress allocate() {
+        long address = tryAllocate(MAX_PREFIX_LENGTH);
+        return address < 0 ? null : IpAddress.fromInt((int) address);
+    }
+
+    /** Выдаёт свободный выровненный блок с заданной длиной префикса или возвращает null, если такого блока нет
+     *
+     */
+    public Subnet allocate(int prefixLength) {
+        long network = tryAllocate(prefixLength);
+        return network < 0 ? null : Subnet.of((int) network, prefixLength);
+    }
+
+    /** Выдаёт свободный выровненный блок и возвращает беззнаковый адрес его сети или -1, если такого блока нет
+     *
+     */
+    public long tryAllocate(int prefixLength) {
+        if (prefixLength < this._subnet.prefixLength() || prefixLength > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(String.format("Block prefix length must be in range [%d..%d]",
+                    this._subnet.prefixLength(), MAX_PREFIX_LENGTH));
+        }
+
+        int order = MAX_PREFIX_LENGTH - prefixLength;
+        return order <= this._stripeOrder ? allocateInStripe(order) : allocateStripes(order);
+    }
+
+    /** Занимает заданный адрес; false, если он уже выдан
+     *
+     */
+    public boolean reserve(IpAddress address) {
+        return reserve(Subnet.of(address.toInt(), MAX_PREFIX_LENGTH));
+    }
+
+    /** Занимает заданный блок, если все его адреса свободны; false, если хотя бы один адрес уже выдан
+     *
+     */
+    public boolean reserve(Subnet block) {
+        return update(block, true);
+    }
+
+    /** Возвращает адрес в пул
+     *
+     */
+    public void free(IpAddress address) {
+        free(Subnet.of(address.toInt(), MAX_PREFIX_LENGTH));
+    }
+
+    /** Возвращает блок в пул; все его адреса должны быть выданы
+     *
+     */
+    public void free(Subnet block) {
+        if (!update(block, false)) {
+            throw new IllegalArgumentException(String.format("Block %s is not allocated", block));
+        }
+    }
+
+    /** Проверяет, выдан ли адрес
+     *
+     */
+    public boolean isAllocated(IpAddress address) {
+        checkInPool(Subnet.of(address.toInt(), MAX_PREFIX_LENGTH));
+        int offset = address.toInt() - this._network;
+        Stripe stripe = this._stripes[offset >>> this._stripeOrder];
+
+        stripe.lock.lock();
+        try {
+            int local = offset & ((1 << this._stripeOrder) - 1);
+            return (stripe.words[local >>> WORD_ORDER] & (1L << (local & (Long.SIZE - 1)))) != 0;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** Возвращает количество свободных адресов (при одновременных изменениях - приблизительно)
+     *
+     */
+    public long available() {
+        long available = 0;
+        for (Stripe stripe : this._stripes) {
+            available += stripe.free;
+        }
+
+        return Math.min(available, 1L << this._poolOrder);
+    }
+
+    /** Возвращает подсеть пула
+     *
+     */
+    public Subnet subnet() {
+        return this._subnet;
+    }
+
+    /** Сохраняет согласованный снимок выданных адресов в виде минимального списка CIDR-блоков
+     *  (в формате {@link AddressListFile})
+     */
+    public void save(Path path) throws IOException {
+        List<Subnet> allocated = new ArrayList<>();
+        lockStripes(0, this._stripes.length);
+        try {
+            long runStart = -1;
+            long poolSize = 1L << this._poolOrder;
+            for (long offset = 0; offset < poolSize; offset++) {
+                Stripe stripe = this._stripes[(int) (offset >>> this._stripeOrder)];
+                int local = (int) offset & ((1 << this._stripeOrder) - 1);
+                long word = stripe.words[local >>> WORD_ORDER];
+
+                // Целиком свободные или целиком занятые слова пропускаем за один шаг
+                if ((local & (Long.SIZE - 1)) == 0 && offset + Long.SIZE <= poolSize
+                        && (word == 0 || word == -1L)) {
+                    if (word == -1L && runStart < 0) {
+                        runStart = offset;
+                    } else if (word == 0 && runStart >= 0) {
+                        addBlocks(allocated, runStart, offset - 1);
+                        runStart = -1;
+                    }
+                    offset += Long.SIZE - 1;
+                    continue;
+                }
+
+                boolean isAllocated = (word & (1L << (local & (Long.SIZE - 1)))) != 0;
+                if (isAllocated && runStart < 0) {
+                    runStart = offset;
+                } else if (!isAllocated && runStart >= 0) {
+                    addBlocks(allocated, runStart, offset - 1);
+                    runStart = -1;
+                }
+            }
+            if (runStart >= 0) {
+                addBlocks(allocated, runStart, poolSize - 1);
+            }
+        } finally {
+            unlockStripes(0, this._stripes.length);
+        }
+
+        AddressListFile.writeSubnets(path, allocated);
+    }
+
+    /** Создаёт пул подсети и восстанавливает выданные адреса из снимка, сохранённого методом {@link #save(Path)}
+     *
+     */
+    public static AddressPool load(Subnet subnet, Path path) throws IOException {
+        AddressPool pool = new AddressPool(subnet);
+        AddressListFile file = AddressListFile.open(path);
+        if (file.kind() != AddressListFile.Kind.SUBNETS) {
+            throw new IllegalArgumentException(String.format("%s is not an address pool snapshot", path));
+        }
+
+        file.forEach((network, prefixLength) -> {
+            Subnet block = Subnet.of(network, prefixLength);
+            if (!subnet.contains(block) || !pool.reserve(block)) {
+                throw new IllegalArgumentException(String.format("Snapshot block %s does not fit pool %s", block, subnet));
+            }
+        });
+
+        return pool;
+    }
+
+
+    /** Ищет блок не крупнее полосы, начиная с полосы текущего потока
+     *
+     */
+    private long allocateInStripe(int order) {
+        int count = this._stripes.length;
+        int first = IpAddress.hash((int) Thread.currentThread().getId()) & (count - 1);
+
+        for (int i = 0; i < count; i++) {
+            int index = (first + i) & (count - 1);
+            Stripe stripe = this._stripes[index];
+            // Корень читается без блокировки лишь как подсказка и перепроверяется под ней
+            if (stripe.tree[1] < order) {
+                continue;
+            }
+
+            stripe.lock.lock();
+            try {
+                int offset = findFree(stripe, order);
+                if (offset >= 0) {
+                    set(stripe, offset, 1 << order, true);
+                    return Integer.toUnsignedLong(this._network + (index << this._stripeOrder) + offset);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        return -1;
+    }
+
+    /** Ищет блок из нескольких целиком свободных соседних полос
+     *
+     */
+    private long allocateStripes(int order) {
+        int group = 1 << (order - this._stripeOrder);
+        for (int first = 0; first < this._stripes.length; first += group) {
+            if (!isFree(first, group)) {
+                continue;
+            }
+
+            lockStripes(first, group);
+            try {
+                if (isFree(first, group)) {
+                    for (int i = first; i < first + group; i++) {
+                        set(this._stripes[i], 0, 1 << this._stripeOrder, true);
+                    }
+                    return Integer.toUnsignedLong(this._network + (first << this._stripeOrder));
+                }
+            } finally {
+                unlockStripes(first, group);
+            }
+        }
+
+        return -1;
+    }
+
+    /** Занимает или освобождает блок, если все его адреса находятся в противоположном состоянии
+     *
+     */
+    private boolean update(Subnet block, boolean allocate) {
+        checkInPool(block);
+
+        int order = MAX_PREFIX_LENGTH - block.prefixLength();
+        int offset = block.networkInt() - this._network;
+        int first = offset >>> this._stripeOrder;
+        int stripesCount = order > this._stripeOrder ? 1 << (order - this._stripeOrder) : 1;
+        int local = offset & ((1 << this._stripeOrder) - 1);
+        int size = 1 << Math.min(order, this._stripeOrder);
+
+        lockStripes(first, stripesCount);
+        try {
+            for (int i = first; i < first + stripesCount; i++) {
+                if (!hasState(this._stripes[i], local, size, !allocate)) {
+                    return false;
+                }
+            }
+            for (int i = first; i < first + stripesCount; i++) {
+                set(this._stripes[i], local, size, allocate);
+            }
+            return true;
+        } finally {
+            unlockStripes(first, stripesCount);
+        }
+    }
+
+    /** Находит в полосе свободный выровненный блок порядка order и возвращает его смещение или -1
+     *
+     */
+    private int findFree(Stripe stripe, int order) {
+        if (stripe.tree[1] < order) {
+            return -1;
+        }
+
+        // Спускаемся к узлу размера блока или к листу, выбирая поддерево, где есть подходящий блок
+        int node = 1;
+        int nodeOrder = this._stripeOrder;
+        while (node < this._wordsPerStripe && nodeOrder > order) {
+            node = stripe.tree[2 * node] >= order ? 2 * node : 2 * node + 1;
+            nodeOrder--;
+        }
+
+        if (node < this._wordsPerStripe) {
+            return ((node << (nodeOrder - this._leafOrder)) - this._wordsPerStripe) << WORD_ORDER;
+        }
+
+        int word = node - this._wordsPerStripe;
+        long blocks = freeBlocks(stripe.words[word], order);
+        return (word << WORD_ORDER) + Long.numberOfTrailingZeros(blocks);
+    }
+
+    /** Проверяет, что все адреса участка полосы заняты (state = true) или свободны
+     *
+     */
+    private static boolean hasState(Stripe stripe, int offset, int size, boolean state) {
+        long expected = state ? -1L : 0;
+        if (size >= Long.SIZE) {
+            for (int word = offset >>> WORD_ORDER; word < (offset + size) >>> WORD_ORDER; word++) {
+                if (stripe.words[word] != expected) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long mask = ((1L << size) - 1) << (offset & (Long.SIZE - 1));
+        return (stripe.words[offset >>> WORD_ORDER] & mask) == (expected & mask);
+    }
+
+    /** Занимает или освобождает участок полосы и пересчитывает дерево над изменёнными словами
+     *
+     */
+    private void set(Stripe stripe, int offset, int size, boolean allocate) {
+        int firstWord = offset >>> WORD_ORDER;
+        int lastWord = firstWord;
+        if (size >= Long.SIZE) {
+            lastWord = (offset + size - 1) >>> WORD_ORDER;
+            for (int word = firstWord; word <= lastWord; word++) {
+                stripe.words[word] = allocate ? -1L : 0;
+            }
+        } else {
+            long mask = ((1L << size) - 1) << (offset & (Long.SIZE - 1));
+            stripe.words[firstWord] = allocate ? stripe.words[firstWord] | mask : stripe.words[firstWord] & ~mask;
+        }
+
+        stripe.free += allocate ? -size : size;
+        refresh(stripe, firstWord, lastWord);
+    }
+
+    /** Пересчитывает листья для слов [firstWord, lastWord] и всех их предков
+     *
+     */
+    private void refresh(Stripe stripe, int firstWord, int lastWord) {
+        int low = this._wordsPerStripe + firstWord;
+        int high = this._wordsPerStripe + lastWord;
+        for (int node = low; node <= high; node++) {
+            stripe.tree[node] = (byte) maxFreeOrder(stripe.words[node - this._wordsPerStripe], this._leafOrder);
+        }
+
+        // Узел целиком свободен, если свободны оба потомка; иначе наследует лучший блок потомков
+        int childOrder = this._leafOrder;
+        while (low > 1) {
+            low >>>= 1;
+            high >>>= 1;
+            for (int node = low; node <= high; node++) {
+                byte left = stripe.tree[2 * node];
+                byte right = stripe.tree[2 * node + 1];
+                stripe.tree[node] = left == childOrder && right == childOrder
+                        ? (byte) (childOrder + 1)
+                        : (byte) Math.max(left, right);
+            }
+            childOrder++;
+        }
+    }
+
+    private boolean isFree(int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            if (this._stripes[i].tree[1] != this._stripeOrder) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void lockStripes(int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            this._stripes[i].lock.lock();
+        }
+    }
+
+    private void unlockStripes(int first, int count) {
+        for (int i = first + count - 1; i >= first; i--) {
+            this._stripes[i].lock.unlock();
+        }
+    }
+
+    private void checkInPool(Subnet block) {
+        if (!this._subnet.contains(block)) {
+            throw new IllegalArgumentException(String.format("Block %s is outside pool %s", block, this._subnet));
+        }
+    }
+
+    private void addBlocks(List<Subnet> blocks, long firstOffset, long lastOffset) {
+        long network = Integer.toUnsignedLong(this._network);
+        CidrAggregator.rangeToCidrs(network + firstOffset, network + lastOffset,
+                (blockNetwork, prefixLength) -> blocks.add(Subnet.of(blockNetwork, prefixLength)));
+    }
+
+    /** Возвращает биты начал свободных выровненных блоков порядка order (не более 6) в слове карты
+     *
+     */
+    private static long freeBlocks(long word, int order) {
+        long blocks = ~word;
+        for (int k = 0; k < order; k++) {
+            blocks &= (blocks >>> (1 << k)) & ALIGNED_BITS[k + 1];
+        }
+
+        return blocks;
+    }
+
+    /** Возвращает порядок наибольшего свободного выровненного блока в слове карты (не более limit) или -1
+     *
+     */
+    private static int maxFreeOrder(long word, int limit) {
+        long blocks = ~word;
+        if (blocks == 0) {
+            return -1;
+        }
+
+        int order = 0;
+        while (order < limit) {
+            long next = blocks & (blocks >>> (1 << order)) & ALIGNED_BITS[order + 1];
+            if (next == 0) {
+                break;
+            }
+            blocks = next;
+            order++;
+        }
+
+        return order;
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AddressPoolTest {
+
+    @ParameterizedTest
+    @MethodSource("testPoolProvider")
+    @DisplayName("Выдача всех адресов пула без повторов")
+    void testAllocateAll(String pool) {
+        AddressPool addressPool = new AddressPool(Subnet.parse(pool));
+        Subnet subnet = addressPool.subnet();
+
+        Set<IpAddress> allocated = new HashSet<>();
+        IpAddress address;
+        while ((address = addressPool.allocate()) != null) {
+            assertTrue(subnet.contains(address));
+            assertTrue(allocated.add(address));
+            assertTrue(addressPool.isAllocated(address));
+        }
+
+        assertEquals(subnet.size(), allocated.size());
+        assertEquals(0, addressPool.available());
+
+        addressPool.free(subnet.first());
+        assertEquals(1, addressPool.available());
+        assertEquals(subnet.first(), addressPool.allocate());
+    }
+
+    static Stream<Arguments> testPoolProvider() {
+        return Stream.of(
+                arguments("192.168.1.0/30"),
+                arguments("192.168.1.0/28"),
+                arguments("192.168.1.0/26"),
+                arguments("10.0.0.0/24"),
+                arguments("10.0.0.0/20")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testBlocksProvider")
+    @DisplayName("Выдача выровненных блоков и объединение освобождённых близнецов")
+    void testBlocks(String pool, int prefixLength) {
+        AddressPool addressPool = new AddressPool(Subnet.parse(pool));
+        Subnet subnet = addressPool.subnet();
+        // Один адрес занят заранее, поэтому блок размером с пул выдать нельзя
+        IpAddress taken = addressPool.allocate();
+
+        List<Subnet> blocks = new ArrayList<>();
+        Subnet block;
+        while ((block = addressPool.allocate(prefixLength)) != null) {
+            assertEquals(prefixLength, block.prefixLength());
+            assertTrue(subnet.contains(block));
+            assertFalse(block.contains(taken));
+            for (Subnet other : blocks) {
+                assertFalse(other.contains(block) || block.contains(other));
+            }
+            blocks.add(block);
+        }
+        assertEquals(subnet.size() / Subnet.of(0, prefixLength).size() - 1, blocks.size());
+
+        for (Subnet allocated : blocks) {
+            addressPool.free(allocated);
+        }
+        addressPool.free(taken);
+
+        // После освобождения всех блоков пул снова выдаётся целиком
+        assertEquals(subnet, addressPool.allocate(subnet.prefixLength()));
+        assertNull(addressPool.allocate());
+    }
+
+    static Stream<Arguments> testBlocksProvider() {
+        return Stream.of(
+                arguments("192.168.1.0/28", 30),
+                arguments("10.0.0.0/24", 28),
+                arguments("10.0.0.0/24", 26),
+                arguments("10.0.0.0/20", 26),
+                arguments("10.0.0.0/16", 20),
+                arguments("10.0.0.0/16", 24)
+        );
+    }
+
+    @Test
+    @DisplayName("Занятие и освобождение конкретных блоков")
+    void testReserveAndFree() {
+        AddressPool pool = new AddressPool(Subnet.parse("10.0.0.0/24"));
+
+        assertTrue(pool.reserve(Subnet.parse("10.0.0.0/32")));
+        assertTrue(pool.reserve(Subnet.parse("10.0.0.255/32")));
+        assertFalse(pool.reserve(Subnet.parse("10.0.0.0/31")));
+        assertTrue(pool.reserve(Subnet.parse("10.0.0.64/26")));
+        assertEquals(256 - 66, pool.available());
+
+        assertThrows(IllegalArgumentException.class, () -> pool.free(Subnet.parse("10.0.0.0/31")));
+        assertThrows(IllegalArgumentException.class, () -> pool.reserve(Subnet.parse("10.0.1.0/32")));
+        assertThrows(IllegalArgumentException.class, () -> pool.allocate(16));
+
+        // Свободны 10.0.0.1-63, 10.0.0.96-127 и 10.0.0.128-254: целиком свободен только один блок /26
+        pool.free(Subnet.parse("10.0.0.96/27"));
+        assertEquals(Subnet.parse("10.0.0.128/26"), pool.allocate(26));
+        assertNull(pool.allocate(26));
+        assertNotEquals(IpAddress.parse("10.0.0.0"), pool.allocate());
+    }
+
+    @Test
+    @DisplayName("Снимок состояния пула сохраняется и восстанавливается")
+    void testSaveAndLoad() throws IOException {
+        Random random = new Random(19);
+        Subnet subnet = Subnet.parse("172.16.0.0/18");
+        AddressPool pool = new AddressPool(subnet);
+        for (int i = 0; i < 3000; i++) {
+            pool.allocate(random.nextBoolean() ? 32 : 24 + random.nextInt(8));
+        }
+        for (int i = 0; i < 1000; i++) {
+            IpAddress address = IpAddress.fromInt(subnet.networkInt() + random.nextInt((int) subnet.size()));
+            if (pool.isAllocated(address)) {
+                pool.free(address);
+            }
+        }
+
+        Path file = Files.createTempFile("address-pool", ".bin");
+        file.toFile().deleteOnExit();
+        pool.save(file);
+        AddressPool restored = AddressPool.load(subnet, file);
+
+        assertEquals(pool.available(), restored.available());
+        for (long offset = 0; offset < subnet.size(); offset++) {
+            IpAddress address = IpAddress.fromInt(subnet.networkInt() + (int) offset);
+            assertEquals(pool.isAllocated(address), restored.isAllocated(address));
+        }
+    }
+
+    @Test
+    @DisplayName("Одновременная выдача адресов из многих потоков без повторов")
+    void testConcurrentAllocation() throws InterruptedException {
+        AddressPool pool = new AddressPool(Subnet.parse("10.0.0.0/16"));
+        Set<IpAddress> allocated = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                IpAddress address;
+                int count = 0;
+                while ((address = pool.allocate()) != null) {
+                    assertTrue(allocated.add(address));
+                    // Каждый десятый адрес сразу возвращается в пул
+                    if (++count % 10 == 0 && allocated.remove(address)) {
+                        pool.free(address);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(65536, allocated.size());
+        assertEquals(0, pool.available());
+    }
+}
@@ -0,0 +1,446 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/** Потоковые операции над множествами адресов и подсетей: объединение, пересечение, разность
+ *  и симметрическая разность
+ *
+ *  Источники должны быть отсортированы по возрастанию (без знака): итераторы адресов
+ *  ({@link AddressListFile#iterator()}, {@link IntStream#iterator()}) и итераторы подсетей, упорядоченных
+ *  по адресу сети ({@link AddressListFile#subnetIterator()}). Источники сливаются k-путевым слиянием через
+ *  двоичную кучу по текущему элементу каждого источника, поэтому память не зависит от размера источников,
+ *  а на каждый элемент тратится O(log k) сравнений.
+ *
+ *  Операции над адресами возвращают ленивый итератор без повторов; операции над подсетями работают
+ *  на уровне диапазонов адресов (вложенные и пересекающиеся подсети одного источника допустимы) и передают
+ *  результат минимальным набором CIDR-блоков, так что /16 без /24 даёт восемь оставшихся префиксов.
+ *  Симметрическая разность нескольких источников - адреса, входящие в нечётное число источников.
+ */
+public final class AddressSetOperations {
+    private static final long ADDRESS_SPACE_END = 1L << Integer.SIZE;
+
+    /** Правило, по которому адрес попадает в результат */
+    private enum Operation {
+        UNION,
+        INTERSECTION,
+        DIFFERENCE,
+        SYMMETRIC_DIFFERENCE;
+
+        /** Проверяет адрес, входящий в count источников из sources (inFirst - входит ли он в первый)
+         *
+         */
+        boolean accepts(int count, boolean inFirst, int sources) {
+            return switch (this) {
+                case UNION -> count > 0;
+                case INTERSECTION -> count == sources;
+                case DIFFERENCE -> inFirst && count == 1;
+                case SYMMETRIC_DIFFERENCE -> (count & 1) != 0;
+            };
+        }
+    }
+
+    private AddressSetOperations() {
+    }
+
+    /** Возвращает адреса, входящие хотя бы в один источник
+     *
+     */
+    public static PrimitiveIterator.OfInt union(PrimitiveIterator.OfInt... sources) {
+        return new AddressMerge(Operation.UNION, sources);
+    }
+
+    /** Возвращает адреса, входящие во все источники
+     *
+     */
+    public static PrimitiveIterator.OfInt intersection(PrimitiveIterator.OfInt... sources) {
+        return new AddressMerge(Operation.INTERSECTION, sources);
+    }
+
+    /** Возвращает адреса первого источника, не входящие ни в один из остальных
+     *
+     */
+    public static PrimitiveIterator.OfInt difference(PrimitiveIterator.OfInt first, PrimitiveIterator.OfInt... others) {
+        PrimitiveIterator.OfInt[] sources = new PrimitiveIterator.OfInt[others.length + 1];
+        sources[0] = first;
+        System.arraycopy(others, 0, sources, 1, others.length);
+        return new AddressMerge(Operation.DIFFERENCE, sources);
+    }
+
+    /** Возвращает адреса, входящие в нечётное число источников (для двух источников - ровно в один)
+     *
+     */
+    public static PrimitiveIterator.OfInt symmetricDifference(PrimitiveIterator.OfInt... sources) {
+        return new AddressMerge(Operation.SYMMETRIC_DIFFERENCE, sources);
+    }
+
+    /** Представляет итератор адресов в виде последовательного IntStream
+     *
+     */
+    public static IntStream stream(PrimitiveIterator.OfInt addresses) {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(addresses,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /** Передаёт CIDR-блоки адресов, покрытых хотя бы одним источником подсетей
+     *
+     */
+    public static void union(List<? extends Iterator<Subnet>> sources, CidrAggregator.CidrConsumer consumer) {
+        mergeRanges(Operation.UNION, sources, consumer);
+    }
+
+    /** Передаёт CIDR-блоки адресов, покрытых всеми источниками подсетей
+     *
+     */
+    public static void intersection(List<? extends Iterator<Subnet>> sources, CidrAggregator.CidrConsumer consumer) {
+        mergeRanges(Operation.INTERSECTION, sources, consumer);
+    }
+
+    /** Передаёт CIDR-блоки адресов первого источника подсетей, не покрытых ни одним из остальных
+     *
+     */
+    public static void difference(Iterator<Subnet> first, List<? extends Iterator<Subnet>> others,
+                                  CidrAggregator.CidrConsumer consumer) {
+        List<Iterator<Subnet>> sources = new ArrayList<>(others.size() + 1);
+        sources.add(first);
+        sources.addAll(others);
+        mergeRanges(Operation.DIFFERENCE, sources, consumer);
+    }
+
+    /** Передаёт CIDR-блоки адресов, покрытых нечётным числом источников подсетей
+     *
+     */
+    public static void symmetricDifference(List<? extends Iterator<Subnet>> sources,
+                                           CidrAggregator.CidrConsumer consumer) {
+        mergeRanges(Operation.SYMMETRIC_DIFFERENCE, sources, consumer);
+    }
+
+
+    /** Заметающая прямая по границам диапазонов: событие источника - начало его следующего диапазона или
+     *  адрес сразу за концом текущего; между соседними событиями принадлежность источникам не меняется
+     */
+    private static void mergeRanges(Operation operation, List<? extends Iterator<Subnet>> sources,
+                                    CidrAggregator.CidrConsumer consumer) {
+        if (sources == null) {
+            throw new IllegalArgumentException("Sources cannot be null");
+        }
+        checkSources(sources.toArray());
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+
+        RangeCursor[] cursors = new RangeCursor[sources.size()];
+        SourceHeap events = new SourceHeap(cursors.length);
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = new RangeCursor(sources.get(i), i);
+            if (cursors[i].advance()) {
+                events.add(i, cursors[i].first());
+            }
+        }
+
+        int count = 0;
+        boolean inFirst = false;
+        long pendingFirst = -1;
+        long pendingLast = -1;
+        while (!events.isEmpty()) {
+            long position = events.topKey();
+            while (!events.isEmpty() && events.topKey() == position) {
+                int source = events.top();
+                RangeCursor cursor = cursors[source];
+                boolean entering = cursor.first() == position;
+                count += entering ? 1 : -1;
+                if (source == 0) {
+                    inFirst = entering;
+                }
+
+                if (entering) {
+                    events.replaceTop(cursor.last() + 1);
+                } else if (cursor.advance()) {
+                    events.replaceTop(cursor.first());
+                } else {
+                    events.removeTop();
+                }
+            }
+
+            if (!operation.accepts(count, inFirst, cursors.length)) {
+                continue;
+            }
+
+            // Участок [position, следующее событие) попадает в результат; соседние участки склеиваются
+            long last = (events.isEmpty() ? ADDRESS_SPACE_END : events.topKey()) - 1;
+            if (pendingFirst >= 0 && pendingLast + 1 == position) {
+                pendingLast = last;
+            } else {
+                if (pendingFirst >= 0) {
+                    CidrAggregator.rangeToCidrs(pendingFirst, pendingLast, consumer);
+                }
+                pendingFirst = position;
+                pendingLast = last;
+            }
+        }
+
+        if (pendingFirst >= 0) {
+            CidrAggregator.rangeToCidrs(pendingFirst, pendingLast, consumer);
+        }
+    }
+
+    private static void checkSources(Object[] sources) {
+        if (sources == null || sources.length == 0) {
+            throw new IllegalArgumentException("At least one source is required");
+        }
+
+        for (Object source : sources) {
+            if (source == null) {
+                throw new IllegalArgumentException("Source cannot be null");
+            }
+        }
+    }
+
+    /** Ленивое k-путевое слияние отсортированных источников адресов
+     *
+     */
+    private static final class AddressMerge implements PrimitiveIterator.OfInt {
+        private final Operation _operation;
+        private final PrimitiveIterator.OfInt[] _sources;
+        private final SourceHeap _heads;
+        private boolean _firstExhausted;
+        private boolean _hasNext;
+        private int _next;
+
+        AddressMerge(Operation operation, PrimitiveIterator.OfInt[] sources) {
+            checkSources(sources);
+            this._operation = operation;
+            this._sources = sources;
+            this._heads = new SourceHeap(sources.length);
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i].hasNext()) {
+                    this._heads.add(i, Integer.toUnsignedLong(sources[i].nextInt()));
+                } else if (i == 0) {
+                    this._firstExhausted = true;
+                }
+            }
+
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this._hasNext;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!this._hasNext) {
+                throw new NoSuchElementException();
+            }
+
+            int result = this._next;
+            advance();
+            return result;
+        }
+
+        /** Находит следующий адрес результата, снимая с кучи все источники с одинаковым текущим адресом
+         *
+         */
+        private void advance() {
+            int sources = this._sources.length;
+            while (!this._heads.isEmpty()) {
+                // Исчерпанный источник делает пересечение пустым, а исчерпанный первый - разность
+                if ((this._operation == Operation.INTERSECTION && this._heads.size() < sources)
+                        || (this._operation == Operation.DIFFERENCE && this._firstExhausted)) {
+                    break;
+                }
+
+                long address = this._heads.topKey();
+                int count = 0;
+                boolean inFirst = false;
+                while (!this._heads.isEmpty() && this._heads.topKey() == address) {
+                    int source = this._heads.top();
+                    count++;
+                    inFirst |= source == 0;
+                    pull(source, address);
+                }
+
+                if (this._operation.accepts(count, inFirst, sources)) {
+                    this._next = (int) address;
+                    this._hasNext = true;
+                    return;
+                }
+            }
+
+            this._hasNext = false;
+        }
+
+        /** Продвигает источник, находящийся на вершине кучи, за адрес current (пропуская повторы)
+         *
+         */
+        private void pull(int source, long current) {
+            PrimitiveIterator.OfInt iterator = this._sources[source];
+            while (iterator.hasNext()) {
+                long next = Integer.toUnsignedLong(iterator.nextInt());
+                if (next < current) {
+                    throw new IllegalArgumentException(String.format("Source %d is not sorted", source));
+                }
+                if (next != current) {
+                    this._heads.replaceTop(next);
+                    return;
+                }
+            }
+
+            this._heads.removeTop();
+            if (source == 0) {
+                this._firstExhausted = true;
+            }
+        }
+    }
+
+    /** Курсор по диапазонам источника подсетей: пересекающиеся и соседние подсети склеиваются на лету
+     *
+     */
+    private static final class RangeCursor {
+        private final Iterator<Subnet> _subnets;
+        private final int _source;
+        private long _first = -1;
+        private long _last = -1;
+        // Подсеть, прочитанная из источника, но ещё не вошедшая в диапазон
+        private Subnet _pending;
+
+        RangeCursor(Iterator<Subnet> subnets, int source) {
+            this._subnets = subnets;
+            this._source = source;
+        }
+
+        long first() {
+            return this._first;
+        }
+
+        long last() {
+            return this._last;
+        }
+
+        /** Переходит к следующему диапазону; возвращает false, если источник исчерпан
+         *
+         */
+        boolean advance() {
+            Subnet subnet = this._pending != null ? this._pending : nextSubnet();
+            this._pending = null;
+            if (subnet == null) {
+                return false;
+            }
+
+            long first = Integer.toUnsignedLong(subnet.networkInt());
+            if (first <= this._last) {
+                throw new IllegalArgumentException(String.format("Source %d is not sorted", this._source));
+            }
+
+            this._first = first;
+            this._last = Integer.toUnsignedLong(subnet.broadcastInt());
+            while ((subnet = nextSubnet()) != null) {
+                long next = Integer.toUnsignedLong(subnet.networkInt());
+                if (next < this._first) {
+                    throw new IllegalArgumentException(String.format("Source %d is not sorted", this._source));
+                }
+                if (next > this._last + 1) {
+                    this._pending = subnet;
+                    break;
+                }
+                this._last = Math.max(this._last, Integer.toUnsignedLong(subnet.broadcastInt()));
+            }
+
+            return true;
+        }
+
+        private Subnet nextSubnet() {
+            if (!this._subnets.hasNext()) {
+                return null;
+            }
+
+            Subnet subnet = this._subnets.next();
+            if (subnet == null) {
+                throw new IllegalArgumentException(String.format("Source %d contains null subnet", this._source));
+            }
+
+            return subnet;
+        }
+    }
+
+    /** Двоичная куча номеров источников, упорядоченная по ключу каждого источника (текущему адресу или событию)
+     *
+     */
+    private static final class SourceHeap {
+        private final long[] _keys;
+        private final int[] _heap;
+        private int _size;
+
+        SourceHeap(int sources) {
+            this._keys = new long[sources];
+            this._heap = new int[sources];
+        }
+
+        boolean isEmpty() {
+            return this._size == 0;
+        }
+
+        int size() {
+            return this._size;
+        }
+
+        int top() {
+            return this._heap[0];
+        }
+
+        long topKey() {
+            return this._keys[this._heap[0]];
+        }
+
+        void add(int source, long key) {
+            this._keys[source] = key;
+            int index = this._size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (this._keys[this._heap[parent]] <= key) {
+                    break;
+                }
+                this._heap[index] = this._heap[parent];
+                index = parent;
+            }
+            this._heap[index] = source;
+        }
+
+        void replaceTop(long key) {
+            this._keys[this._heap[0]] = key;
+            siftDown();
+        }
+
+        void removeTop() {
+            this._heap[0] = this._heap[--this._size];
+            siftDown();
+        }
+
+        private void siftDown() {
+            int source = this._heap[0];
+            long key = this._keys[source];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= this._size) {
+                    break;
+                }
+                if (child + 1 < this._size && this._keys[this._heap[child + 1]] < this._keys[this._heap[child]]) {
+                    child++;
+                }
+                if (key <= this._keys[this._heap[child]]) {
+                    break;
+                }
+                this._heap[index] = this._heap[child];
+                index = child;
+            }
+            this._heap[index] = source;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AddressSetOperationsTest {
+
+    @ParameterizedTest
+    @MethodSource("testAddressOperationsProvider")
+    @DisplayName("Операции над отсортированными источниками адресов совпадают с поэлементным подсчётом")
+    void testAddressOperations(int sourcesCount, int length, int base, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] sources = new int[sourcesCount][];
+        // Для каждого адреса небольшого диапазона - битовая маска источников, в которые он входит
+        int[] membership = new int[1 << 12];
+        for (int source = 0; source < sourcesCount; source++) {
+            sources[source] = new int[length];
+            for (int i = 0; i < length; i++) {
+                int offset = random.nextInt(membership.length);
+                sources[source][i] = base + offset;
+                membership[offset] |= 1 << source;
+            }
+            AddressSorting.sort(sources[source]);
+        }
+
+        int all = (1 << sourcesCount) - 1;
+        assertArrayEquals(expected(membership, base, mask -> mask != 0),
+                toArray(AddressSetOperations.union(iterators(sources))));
+        assertArrayEquals(expected(membership, base, mask -> mask == all),
+                toArray(AddressSetOperations.intersection(iterators(sources))));
+        assertArrayEquals(expected(membership, base, mask -> mask == 1),
+                toArray(AddressSetOperations.difference(iterators(sources)[0],
+                        Arrays.copyOfRange(iterators(sources), 1, sourcesCount))));
+        assertArrayEquals(expected(membership, base, mask -> (Integer.bitCount(mask) & 1) != 0),
+                toArray(AddressSetOperations.symmetricDifference(iterators(sources))));
+    }
+
+    static Stream<Arguments> testAddressOperationsProvider() {
+        return Stream.of(
+                arguments(1, 500, 0x0A000000, 1L),
+                arguments(2, 2000, 0x0A000000, 2L),
+                arguments(3, 3000, 0xC0A80000, 3L),
+                arguments(5, 1500, 0x7FFFF800, 4L),
+                arguments(2, 0, 0x0A000000, 5L)
+        );
+    }
+
+    @Test
+    @DisplayName("Разность вчерашнего и сегодняшнего списков из файлов и потоков")
+    void testFilesAndStreams() throws IOException {
+        Path directory = Files.createTempDirectory("address-sets");
+        try {
+            Path yesterday = directory.resolve("yesterday.bin");
+            Path today = directory.resolve("today.bin");
+            AddressListFile.writeAddresses(yesterday, new int[] {1, 2, 3, 0x80000000, 0xFFFFFFFF}, 5);
+            AddressListFile.writeAddresses(today, new int[] {2, 3, 4, 0xFFFFFFFF}, 4);
+
+            int[] appeared = AddressSetOperations.stream(AddressSetOperations.difference(
+                    AddressListFile.open(today).iterator(), AddressListFile.open(yesterday).iterator())).toArray();
+            int[] disappeared = AddressSetOperations.stream(AddressSetOperations.difference(
+                    AddressListFile.open(yesterday).iterator(), IntStream.of(2, 3, 4, 0xFFFFFFFF).iterator())).toArray();
+
+            assertArrayEquals(new int[] {4}, appeared);
+            assertArrayEquals(new int[] {1, 0x80000000}, disappeared);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Исключение для неотсортированного источника")
+    void testUnsortedSource() {
+        PrimitiveIterator.OfInt result = AddressSetOperations.union(
+                IntStream.of(1, 5, 3).iterator(), IntStream.of(2).iterator());
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            while (result.hasNext()) {
+                result.nextInt();
+            }
+        });
+        assertThrows(IllegalArgumentException.class, () -> AddressSetOperations.union());
+        assertThrows(IllegalArgumentException.class, () -> AddressSetOperations.difference(
+                subnets("10.0.0.0/8"), List.of(subnets("9.0.0.0/8", "8.0.0.0/8")), (network, prefixLength) -> { }));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSubnetDifferenceProvider")
+    @DisplayName("Разность подсетей на уровне диапазонов адресов")
+    void testSubnetDifference(List<String> first, List<String> second, List<String> expected) {
+        List<Subnet> result = new ArrayList<>();
+        AddressSetOperations.difference(subnets(first.toArray(String[]::new)),
+                List.of(subnets(second.toArray(String[]::new))),
+                (network, prefixLength) -> result.add(Subnet.of(network, prefixLength)));
+
+        assertEquals(expected.stream().map(Subnet::parse).toList(), result);
+    }
+
+    static Stream<Arguments> testSubnetDifferenceProvider() {
+        return Stream.of(
+                arguments(List.of("10.0.0.0/16"), List.of("10.0.0.0/24"), List.of(
+                        "10.0.1.0/24", "10.0.2.0/23", "10.0.4.0/22", "10.0.8.0/21",
+                        "10.0.16.0/20", "10.0.32.0/19", "10.0.64.0/18", "10.0.128.0/17")),
+                arguments(List.of("10.0.0.0/16"), List.of("10.0.255.0/24"), List.of(
+                        "10.0.0.0/17", "10.0.128.0/18", "10.0.192.0/19", "10.0.224.0/20",
+                        "10.0.240.0/21", "10.0.248.0/22", "10.0.252.0/23", "10.0.254.0/24")),
+                arguments(List.of("10.0.0.0/24"), List.of("10.0.0.0/16"), List.of()),
+                arguments(List.of("0.0.0.0/0"), List.of("0.0.0.0/1"), List.of("128.0.0.0/1")),
+                arguments(List.of("10.0.0.0/24", "10.0.0.0/25", "10.0.1.0/24"), List.of("10.0.0.128/25"),
+                        List.of("10.0.0.0/25", "10.0.1.0/24")),
+                arguments(List.of("192.168.0.0/24"), List.of(), List.of("192.168.0.0/24"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSubnetOperationsProvider")
+    @DisplayName("Операции над источниками подсетей совпадают с поадресным подсчётом")
+    void testSubnetOperations(int sourcesCount, int subnetsCount, long seed) {
+        int base = 0x0A000000;
+        int space = 1 << 12;
+        SplittableRandom random = new SplittableRandom(seed);
+        List<List<Subnet>> sources = new ArrayList<>();
+        int[] membership = new int[space];
+        for (int source = 0; source < sourcesCount; source++) {
+            List<Subnet> subnets = new ArrayList<>();
+            for (int i = 0; i < subnetsCount; i++) {
+                int prefixLength = 22 + random.nextInt(11);
+                Subnet subnet = Subnet.of(base + random.nextInt(space), prefixLength);
+                subnets.add(subnet);
+                for (long address = subnet.networkInt(); address <= subnet.broadcastInt(); address++) {
+                    membership[(int) address - base] |= 1 << source;
+                }
+            }
+            subnets.sort((left, right) -> Integer.compareUnsigned(left.networkInt(), right.networkInt()));
+            sources.add(subnets);
+        }
+
+        int all = (1 << sourcesCount) - 1;
+        assertArrayEquals(expected(membership, base, mask -> mask != 0),
+                covered(consumer -> AddressSetOperations.union(subnetIterators(sources), consumer)));
+        assertArrayEquals(expected(membership, base, mask -> mask == all),
+                covered(consumer -> AddressSetOperations.intersection(subnetIterators(sources), consumer)));
+        assertArrayEquals(expected(membership, base, mask -> mask == 1),
+                covered(consumer -> {
+                    List<Iterator<Subnet>> iterators = subnetIterators(sources);
+                    AddressSetOperations.difference(iterators.get(0), iterators.subList(1, iterators.size()), consumer);
+                }));
+        assertArrayEquals(expected(membership, base, mask -> (Integer.bitCount(mask) & 1) != 0),
+                covered(consumer -> AddressSetOperations.symmetricDifference(subnetIterators(sources), consumer)));
+    }
+
+    static Stream<Arguments> testSubnetOperationsProvider() {
+        return Stream.of(
+                arguments(1, 20, 11L),
+                arguments(2, 30, 12L),
+                arguments(3, 15, 13L),
+                arguments(4, 40, 14L)
+        );
+    }
+
+    @Test
+    @DisplayName("Подсети из файла списка подсетей")
+    void testSubnetFile() throws IOException {
+        Path file = Files.createTempFile("subnets", ".bin");
+        try {
+            AddressListFile.writeSubnets(file, List.of(Subnet.parse("10.0.0.0/8"), Subnet.parse("10.1.0.0/16"),
+                    Subnet.parse("192.168.0.0/16")));
+            List<Subnet> result = new ArrayList<>();
+            AddressSetOperations.intersection(
+                    List.of(AddressListFile.open(file).subnetIterator(), subnets("10.255.0.0/16", "192.168.1.0/24")),
+                    (network, prefixLength) -> result.add(Subnet.of(network, prefixLength)));
+
+            assertEquals(List.of(Subnet.parse("10.255.0.0/16"), Subnet.parse("192.168.1.0/24")), result);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private interface RangeOperation {
+        void run(CidrAggregator.CidrConsumer consumer);
+    }
+
+    private static int[] covered(RangeOperation operation) {
+        IntStream.Builder addresses = IntStream.builder();
+        long[] previousEnd = {-1};
+        operation.run((network, prefixLength) -> {
+            Subnet subnet = Subnet.of(network, prefixLength);
+            long first = Integer.toUnsignedLong(subnet.networkInt());
+            long last = Integer.toUnsignedLong(subnet.broadcastInt());
+            // Блоки идут по возрастанию и не пересекаются
+            assertTrue(first > previousEnd[0]);
+            previousEnd[0] = last;
+            for (long address = first; address <= last; address++) {
+                addresses.add((int) address);
+            }
+        });
+
+        return addresses.build().toArray();
+    }
+
+    private interface MaskPredicate {
+        boolean test(int mask);
+    }
+
+    private static int[] expected(int[] membership, int base, MaskPredicate predicate) {
+        return IntStream.range(0, membership.length).filter(i -> predicate.test(membership[i])).map(i -> base + i).toArray();
+    }
+
+    private static PrimitiveIterator.OfInt[] iterators(int[][] sources) {
+        return Arrays.stream(sources).map(source -> Arrays.stream(source).iterator()).toArray(PrimitiveIterator.OfInt[]::new);
+    }
+
+    private static int[] toArray(PrimitiveIterator.OfInt iterator) {
+        return AddressSetOperations.stream(iterator).toArray();
+    }
+
+    private static Iterator<Subnet> subnets(String... subnets) {
+        return Arrays.stream(subnets).map(Subnet::parse).iterator();
+    }
+
+    private static List<Iterator<Subnet>> subnetIterators(List<List<Subnet>> sources) {
+        return sources.stream().map(List::iterator).toList();
+    }
+}
@@ -0,0 +1,223 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Вероятностная оценка числа различных IP-адресов (HyperLogLog)
+ *
+ *  Упакованный адрес перемешивается 64-битным финализатором MurmurHash3: старшие precision битов хеша
+ *  выбирают регистр, а в регистре запоминается наибольшая позиция первой единицы в оставшихся битах.
+ *  Память - 2^precision байтов, относительная ошибка оценки - около 1.04 / sqrt(2^precision).
+ *  Для малых количеств используется линейный подсчёт пустых регистров; 64-битный хеш не требует поправки
+ *  для больших количеств. Оценки объединяются поэлементным максимумом регистров, поэтому оценки,
+ *  собранные в разных потоках или на разных узлах, складываются без потерь точности.
+ *  IPv6-адрес перемешивается из обеих половин, а адрес IPv4-mapped учитывается как соответствующий IPv4-адрес.
+ *  Класс не потокобезопасен.
+ */
+public class AddressSketch {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private static final int FILE_MAGIC = 0x4950484C;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + 2;
+
+    private final int _precision;
+    private final byte[] _registers;
+
+    /** Создаёт пустую оценку с 2^precision регистрами
+     *
+     */
+    public AddressSketch(int precision) {
+        checkPrecision(precision);
+        this._precision = precision;
+        this._registers = new byte[1 << precision];
+    }
+
+    /** Учитывает IP-адрес
+     *
+     */
+    public void add(IpAddress address) {
+        add(address.toInt());
+    }
+
+    /** Учитывает упакованный IP-адрес
+     *
+     */
+    public void add(int address) {
+        addHash(IpAddress.hash64(Integer.toUnsignedLong(address)));
+    }
+
+    /** Учитывает IPv6-адрес
+     *
+     */
+    public void add(Ipv6Address address) {
+        add(address.high(), address.low());
+    }
+
+    /** Учитывает IPv6-адрес, заданный половинами; адрес IPv4-mapped учитывается как соответствующий IPv4-адрес
+     *
+     */
+    public void add(long high, long low) {
+        if (Ipv6Address.isIpv4Mapped(high, low)) {
+            add((int) low);
+            return;
+        }
+
+        addHash(IpAddress.hash64(IpAddress.hash64(high) ^ low));
+    }
+
+    private void addHash(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - this._precision));
+        // Единица ниже значащих битов ограничивает ранг, если все оставшиеся биты нулевые
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << this._precision) | (1L << (this._precision - 1))) + 1);
+        if (rank > this._registers[register]) {
+            this._registers[register] = rank;
+        }
+    }
+
+    /** Возвращает оценку числа различных учтённых адресов
+     *
+     */
+    public long estimate() {
+        int m = this._registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : this._registers) {
+            sum += Double.longBitsToDouble((1023L - register) << 52);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+
+        return Math.round(estimate);
+    }
+
+    /** Добавляет к оценке все адреса другой оценки той же точности
+     *
+     */
+    public void merge(AddressSketch other) {
+        if (other._precision != this._precision) {
+            throw new IllegalArgumentException(String.format("Cannot merge sketches with precision %d and %d",
+                    this._precision, other._precision));
+        }
+
+        for (int i = 0; i < this._registers.length; i++) {
+            if (other._registers[i] > this._registers[i]) {
+                this._registers[i] = other._registers[i];
+            }
+        }
+    }
+
+    /** Возвращает точность (логарифм числа регистров)
+     *
+     */
+    public int precision() {
+        return this._precision;
+    }
+
+    /** Сбрасывает оценку
+     *
+     */
+    public void clear() {
+        Arrays.fill(this._registers, (byte) 0);
+    }
+
+    /** Возвращает размер сериализованной оценки в байтах
+     *
+     */
+    public int serializedSize() {
+        return serializedSize(this._precision);
+    }
+
+    /** Возвращает размер сериализованной оценки заданной точности в байтах
+     *
+     */
+    static int serializedSize(int precision) {
+        return HEADER_BYTES + (1 << precision);
+    }
+
+    /** Проверяет, что точность лежит в допустимых пределах
+     *
+     */
+    static void checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    String.format("Precision must be in range [%d..%d]", MIN_PRECISION, MAX_PRECISION));
+        }
+    }
+
+    /** Записывает оценку в буфер с его текущей позиции
+     *
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer) {
+        return buffer.putInt(FILE_MAGIC).put(FORMAT_VERSION).put((byte) this._precision).put(this._registers);
+    }
+
+    /** Сериализует оценку в массив байтов
+     *
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[serializedSize()];
+        writeTo(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /** Читает оценку из буфера с его текущей позиции
+     *
+     */
+    public static AddressSketch readFrom(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != FILE_MAGIC) {
+                throw new IllegalArgumentException("Data is not an address sketch");
+            }
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException(String.format("Unsupported address sketch version %d", version));
+            }
+
+            AddressSketch sketch = new AddressSketch(buffer.get());
+            buffer.get(sketch._registers);
+            for (byte register : sketch._registers) {
+                if (register < 0 || register > Long.SIZE - sketch._precision + 1) {
+                    throw new IllegalArgumentException("Address sketch data is corrupted");
+                }
+            }
+
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Address sketch data is truncated");
+        }
+    }
+
+    /** Восстанавливает оценку из массива байтов
+     *
+     */
+    public static AddressSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        AddressSketch sketch = readFrom(buffer);
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Address sketch data has trailing bytes");
+        }
+
+        return sketch;
+    }
+
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AddressSketchTest {
+
+    @ParameterizedTest
+    @MethodSource("testEstimateProvider")
+    @DisplayName("Оценка числа различных адресов в пределах ожидаемой ошибки")
+    void testEstimate(int precision, int count) {
+        AddressSketch sketch = new AddressSketch(precision);
+        // Последовательные адреса одной сети - худший случай для слабого перемешивания
+        int first = IpAddress.parse("10.0.0.0").toInt();
+        for (int repeat = 0; repeat < 2; repeat++) {
+            for (int i = 0; i < count; i++) {
+                sketch.add(first + i);
+            }
+        }
+
+        double error = 1.04 / Math.sqrt(1 << precision);
+        assertEquals(count, sketch.estimate(), Math.max(2, 4 * error * count));
+    }
+
+    static Stream<Arguments> testEstimateProvider() {
+        return Stream.of(
+                arguments(12, 0),
+                arguments(12, 1),
+                arguments(12, 100),
+                arguments(12, 10_000),
+                arguments(14, 1_000_000),
+                arguments(4, 1000),
+                arguments(18, 3_000_000)
+        );
+    }
+
+    @Test
+    @DisplayName("Объединение оценок совпадает с оценкой объединения")
+    void testMerge() {
+        Random random = new Random(18);
+        AddressSketch first = new AddressSketch(12);
+        AddressSketch second = new AddressSketch(12);
+        AddressSketch union = new AddressSketch(12);
+        for (int i = 0; i < 50_000; i++) {
+            int address = random.nextInt();
+            (i % 2 == 0 ? first : second).add(address);
+            union.add(address);
+        }
+
+        first.merge(second);
+
+        assertArrayEquals(union.toBytes(), first.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new AddressSketch(10)));
+    }
+
+    @Test
+    @DisplayName("Сериализация и восстановление оценки")
+    void testSerialization() {
+        AddressSketch sketch = new AddressSketch(10);
+        for (int i = 0; i < 5000; i++) {
+            sketch.add(IpAddress.fromInt(i * 7919));
+        }
+
+        byte[] bytes = sketch.toBytes();
+        AddressSketch restored = AddressSketch.fromBytes(bytes);
+
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertEquals(10, restored.precision());
+        assertThrows(IllegalArgumentException.class, () -> AddressSketch.fromBytes(new byte[] {1, 2, 3}));
+        bytes[0] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> AddressSketch.fromBytes(bytes));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testIpv6Provider")
+    @DisplayName("Оценка числа различных адресов IPv6")
+    void testIpv6(int precision, int count) {
+        AddressSketch sketch = new AddressSketch(precision);
+        for (int i = 0; i < count; i++) {
+            sketch.add(0x20010DB800000000L + (i & 0xFF), (long) i << 16);
+            sketch.add(0x20010DB800000000L + (i & 0xFF), (long) i << 16);
+        }
+
+        double error = Math.abs(sketch.estimate() - count) / (double) count;
+        assertTrue(error < 4 * 1.04 / Math.sqrt(1 << precision), String.format("Error %.4f", error));
+    }
+
+    static Stream<Arguments> testIpv6Provider() {
+        return Stream.of(
+                arguments(12, 1000),
+                arguments(14, 200_000)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testIpv4MappedProvider")
+    @DisplayName("Адрес IPv4-mapped учитывается как соответствующий IPv4-адрес")
+    void testIpv4Mapped(IpAddress address) {
+        AddressSketch sketch = new AddressSketch(10);
+        sketch.add(address);
+        sketch.add(Ipv6Address.fromIpv4(address));
+
+        assertEquals(1, sketch.estimate());
+    }
+
+    static Stream<Arguments> testIpv4MappedProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("192.0.2.1")),
+                arguments(IpAddress.parse("0.0.0.0"))
+        );
+    }
+}
@@ -0,0 +1,372 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/** Сортировка и удаление повторов в больших массивах упакованных IPv4-адресов (int[])
+ *
+ *  Адреса упорядочиваются как беззнаковые 32-битные числа, то есть так же, как {@link IpAddress#compareTo}.
+ *  Сортировка - поразрядная LSD по байтам (4 прохода, стабильная); проход пропускается, если у всех
+ *  адресов соответствующий байт одинаков (частый случай для адресов из одной сети /8 или /16).
+ *  Параллельный вариант делит массив на участки: на каждом проходе участки одновременно строят
+ *  гистограммы, затем по ним вычисляются места для каждой пары (байт, участок), и участки одновременно
+ *  раскладывают свои элементы во вспомогательный массив без какой-либо синхронизации.
+ */
+public final class AddressSorting {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+    private static final int PASSES = Integer.SIZE / RADIX_BITS;
+
+    // Короткие массивы быстрее сортируются сравнениями, чем четырьмя проходами по 256 корзинам
+    private static final int SMALL_ARRAY_SIZE = 256;
+    // Меньше этого размера участка параллельная обработка не окупает накладные расходы
+    private static final int MIN_PARALLEL_CHUNK = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private AddressSorting() {
+    }
+
+    /** Сортирует массив адресов по возрастанию (беззнаковое сравнение)
+     *
+     */
+    public static void sort(int[] addresses) {
+        checkRange(addresses, 0, 0);
+        sort(addresses, 0, addresses.length);
+    }
+
+    /** Сортирует элементы [from, to) массива адресов по возрастанию (беззнаковое сравнение)
+     *
+     */
+    public static void sort(int[] addresses, int from, int to) {
+        checkRange(addresses, from, to);
+        int length = to - from;
+        if (length <= SMALL_ARRAY_SIZE) {
+            sortSmall(addresses, from, to);
+            return;
+        }
+
+        // Гистограммы всех байтов не зависят от порядка элементов, поэтому строятся за один проход
+        int[][] counts = new int[PASSES][RADIX];
+        for (int i = from; i < to; i++) {
+            int value = addresses[i];
+            for (int pass = 0; pass < PASSES; pass++) {
+                counts[pass][(value >>> (pass * RADIX_BITS)) & RADIX_MASK]++;
+            }
+        }
+
+        int[] source = addresses;
+        int sourceFrom = from;
+        int[] target = new int[length];
+        int targetFrom = 0;
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            if (isTrivialPass(count, length)) {
+                continue;
+            }
+
+            int[] offsets = new int[RADIX];
+            int offset = targetFrom;
+            for (int digit = 0; digit < RADIX; digit++) {
+                offsets[digit] = offset;
+                offset += count[digit];
+            }
+
+            int shift = pass * RADIX_BITS;
+            for (int i = sourceFrom, end = sourceFrom + length; i < end; i++) {
+                int value = source[i];
+                target[offsets[(value >>> shift) & RADIX_MASK]++] = value;
+            }
+
+            int[] swapArray = source;
+            source = target;
+            target = swapArray;
+            int swapFrom = sourceFrom;
+            sourceFrom = targetFrom;
+            targetFrom = swapFrom;
+        }
+
+        if (source != addresses) {
+            System.arraycopy(source, sourceFrom, addresses, from, length);
+        }
+    }
+
+    /** Сортирует массив адресов по возрастанию, используя общий пул fork-join
+     *
+     */
+    public static void parallelSort(int[] addresses) {
+        checkRange(addresses, 0, 0);
+        parallelSort(addresses, 0, addresses.length, ForkJoinPool.commonPool());
+    }
+
+    /** Сортирует элементы [from, to) массива адресов по возрастанию в заданном пуле fork-join
+     *
+     */
+    public static void parallelSort(int[] addresses, int from, int to, ForkJoinPool pool) {
+        parallelSort(addresses, from, to, pool, MIN_PARALLEL_CHUNK);
+    }
+
+    static void parallelSort(int[] addresses, int from, int to, ForkJoinPool pool, int minChunk) {
+        checkRange(addresses, from, to);
+        int length = to - from;
+        int chunks = chunksCount(length, pool, minChunk);
+        if (chunks <= 1) {
+            sort(addresses, from, to);
+            return;
+        }
+
+        int[] buffer = new int[length];
+        int[][] counts = new int[chunks][];
+        int[] source = addresses;
+        int sourceFrom = from;
+        int[] target = buffer;
+        int targetFrom = 0;
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            int[] histogramSource = source;
+            int histogramFrom = sourceFrom;
+            forEachChunk(pool, chunks, chunk -> {
+                int[] count = new int[RADIX];
+                for (int i = histogramFrom + chunkStart(length, chunks, chunk),
+                         end = histogramFrom + chunkStart(length, chunks, chunk + 1); i < end; i++) {
+                    count[(histogramSource[i] >>> shift) & RADIX_MASK]++;
+                }
+                counts[chunk] = count;
+            });
+
+            // Превращаем гистограммы участков в места записи: корзина за корзиной, внутри корзины - по участкам
+            int[] total = new int[RADIX];
+            for (int[] count : counts) {
+                for (int digit = 0; digit < RADIX; digit++) {
+                    total[digit] += count[digit];
+                }
+            }
+
+            if (isTrivialPass(total, length)) {
+                continue;
+            }
+
+            int offset = targetFrom;
+            for (int digit = 0; digit < RADIX; digit++) {
+                for (int[] count : counts) {
+                    int bucketSize = count[digit];
+                    count[digit] = offset;
+                    offset += bucketSize;
+                }
+            }
+
+            int[] scatterSource = source;
+            int scatterFrom = sourceFrom;
+            int[] scatterTarget = target;
+            forEachChunk(pool, chunks, chunk -> {
+                int[] offsets = counts[chunk];
+                for (int i = scatterFrom + chunkStart(length, chunks, chunk),
+                         end = scatterFrom + chunkStart(length, chunks, chunk + 1); i < end; i++) {
+                    int value = scatterSource[i];
+                    scatterTarget[offsets[(value >>> shift) & RADIX_MASK]++] = value;
+                }
+            });
+
+            int[] swapArray = source;
+            source = target;
+            target = swapArray;
+            int swapFrom = sourceFrom;
+            sourceFrom = targetFrom;
+            targetFrom = swapFrom;
+        }
+
+        if (source != addresses) {
+            int[] copySource = source;
+            forEachChunk(pool, chunks, chunk -> {
+                int start = chunkStart(length, chunks, chunk);
+                System.arraycopy(copySource, start, addresses, from + start,
+                        chunkStart(length, chunks, chunk + 1) - start);
+            });
+        }
+    }
+
+    /** Удаляет повторы из первых length элементов отсортированного массива, сдвигая уникальные адреса
+     *  в начало массива, и возвращает их количество
+     */
+    public static int dedup(int[] sorted, int length) {
+        checkRange(sorted, 0, length);
+        if (length == 0) {
+            return 0;
+        }
+
+        int unique = 1;
+        for (int i = 1; i < length; i++) {
+            int value = sorted[i];
+            if (value != sorted[unique - 1]) {
+                sorted[unique++] = value;
+            }
+        }
+
+        return unique;
+    }
+
+    /** Удаляет повторы из первых length элементов отсортированного массива, используя общий пул fork-join,
+     *  и возвращает количество уникальных адресов
+     */
+    public static int parallelDedup(int[] sorted, int length) {
+        return parallelDedup(sorted, length, ForkJoinPool.commonPool());
+    }
+
+    /** Удаляет повторы из первых length элементов отсортированного массива в заданном пуле fork-join
+     *  и возвращает количество уникальных адресов
+     */
+    public static int parallelDedup(int[] sorted, int length, ForkJoinPool pool) {
+        return parallelDedup(sorted, length, pool, MIN_PARALLEL_CHUNK);
+    }
+
+    static int parallelDedup(int[] sorted, int length, ForkJoinPool pool, int minChunk) {
+        checkRange(sorted, 0, length);
+        int chunks = chunksCount(length, pool, minChunk);
+        if (chunks <= 1) {
+            return dedup(sorted, length);
+        }
+
+        // Последний элемент предыдущего участка запоминается заранее: участки сжимаются одновременно
+        boolean[] continuesPrevious = new boolean[chunks];
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int start = chunkStart(length, chunks, chunk);
+            continuesPrevious[chunk] = sorted[start] == sorted[start - 1];
+        }
+
+        // Каждый участок сжимается внутри своих границ, поэтому участки не мешают друг другу
+        int[] uniqueCounts = new int[chunks];
+        forEachChunk(pool, chunks, chunk -> {
+            int start = chunkStart(length, chunks, chunk);
+            int end = chunkStart(length, chunks, chunk + 1);
+            int unique = continuesPrevious[chunk] ? 0 : 1;
+            int last = sorted[start];
+            for (int i = start + 1; i < end; i++) {
+                int value = sorted[i];
+                if (value != last) {
+                    sorted[start + unique++] = value;
+                    last = value;
+                }
+            }
+            uniqueCounts[chunk] = unique;
+        });
+
+        // Пересылки идут слева направо, и место назначения никогда не правее источника
+        int unique = uniqueCounts[0];
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int start = chunkStart(length, chunks, chunk);
+            if (uniqueCounts[chunk] > 0 && unique != start) {
+                System.arraycopy(sorted, start, sorted, unique, uniqueCounts[chunk]);
+            }
+            unique += uniqueCounts[chunk];
+        }
+
+        return unique;
+    }
+
+    /** Сортирует первые length элементов массива, удаляет повторы и возвращает количество уникальных адресов
+     *
+     */
+    public static int sortUnique(int[] addresses, int length) {
+        sort(addresses, 0, length);
+        return dedup(addresses, length);
+    }
+
+    /** Параллельно сортирует первые length элементов массива, удаляет повторы и возвращает количество
+     *  уникальных адресов
+     */
+    public static int parallelSortUnique(int[] addresses, int length) {
+        parallelSort(addresses, 0, length, ForkJoinPool.commonPool());
+        return parallelDedup(addresses, length);
+    }
+
+    /** Проверяет, что массив отсортирован по возрастанию (беззнаковое сравнение) на отрезке [from, to)
+     *
+     */
+    public static boolean isSorted(int[] addresses, int from, int to) {
+        checkRange(addresses, from, to);
+        for (int i = from + 1; i < to; i++) {
+            if (Integer.compareUnsigned(addresses[i - 1], addresses[i]) > 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void sortSmall(int[] addresses, int from, int to) {
+        // Инверсия старшего бита превращает беззнаковый порядок в знаковый
+        for (int i = from; i < to; i++) {
+            addresses[i] ^= Integer.MIN_VALUE;
+        }
+
+        Arrays.sort(addresses, from, to);
+        for (int i = from; i < to; i++) {
+            addresses[i] ^= Integer.MIN_VALUE;
+        }
+    }
+
+    private static boolean isTrivialPass(int[] count, int length) {
+        for (int bucketSize : count) {
+            if (bucketSize != 0) {
+                return bucketSize == length;
+            }
+        }
+
+        return true;
+    }
+
+    private static int chunksCount(int length, ForkJoinPool pool, int minChunk) {
+        long chunks = Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD, length / Math.max(minChunk, 1));
+        return (int) Math.max(chunks, 1);
+    }
+
+    private static int chunkStart(int length, int chunks, int chunk) {
+        return (int) ((long) length * chunk / chunks);
+    }
+
+    private static void forEachChunk(ForkJoinPool pool, int chunks, IntConsumer body) {
+        pool.invoke(new ChunkAction(body, 0, chunks));
+    }
+
+    /** Проверяет, что участок [from, to) лежит в пределах массива; общая проверка пакетных методов
+     *
+     */
+    static void checkRange(int[] array, int from, int to) {
+        if (array == null) {
+            throw new IllegalArgumentException("Array cannot be null");
+        }
+
+        if (from < 0 || to > array.length || from > to) {
+            throw new IllegalArgumentException(
+                    String.format("Range [%d, %d) is out of array bounds [0, %d)", from, to, array.length));
+        }
+    }
+
+    /** Задача fork-join, обрабатывающая участки [from, to) делением пополам
+     *
+     */
+    private static final class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer _body;
+        private final int _from;
+        private final int _to;
+
+        ChunkAction(IntConsumer body, int from, int to) {
+            this._body = body;
+            this._from = from;
+            this._to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this._to - this._from == 1) {
+                this._body.accept(this._from);
+                return;
+            }
+
+            int middle = (this._from + this._to) >>> 1;
+            invokeAll(new ChunkAction(this._body, this._from, middle), new ChunkAction(this._body, middle, this._to));
+        }
+    }
+}
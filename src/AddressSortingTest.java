@@ -0,0 +1,149 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AddressSortingTest {
+
+    @ParameterizedTest
+    @MethodSource("testSortProvider")
+    @DisplayName("Поразрядная сортировка совпадает с беззнаковой сортировкой сравнениями")
+    void testSort(int length, int valueMask, long seed) {
+        int[] addresses = randomAddresses(length, valueMask, seed);
+        int[] expected = sortedUnsigned(addresses);
+
+        AddressSorting.sort(addresses);
+
+        assertArrayEquals(expected, addresses);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSortProvider")
+    @DisplayName("Параллельная сортировка совпадает с беззнаковой сортировкой сравнениями")
+    void testParallelSort(int length, int valueMask, long seed) {
+        int[] addresses = randomAddresses(length, valueMask, seed);
+        int[] expected = sortedUnsigned(addresses);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AddressSorting.parallelSort(addresses, 0, addresses.length, pool, 64);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(expected, addresses);
+    }
+
+    static Stream<Arguments> testSortProvider() {
+        return Stream.of(
+                arguments(0, 0xFFFFFFFF, 1L),
+                arguments(1, 0xFFFFFFFF, 2L),
+                arguments(100, 0xFFFFFFFF, 3L),
+                arguments(5000, 0xFFFFFFFF, 4L),
+                arguments(5000, 0x0000FFFF, 5L),
+                arguments(5000, 0xFF0000FF, 6L),
+                arguments(20000, 0x000003FF, 7L),
+                arguments(20000, 0, 8L)
+        );
+    }
+
+    @Test
+    @DisplayName("Сортировка части массива не затрагивает остальные элементы")
+    void testSortRange() {
+        int[] addresses = {7, 0xFFFFFFFF, 5, 0x80000000, 3, 0x7FFFFFFF, 1};
+        int[] rangeSorted = Arrays.copyOf(addresses, addresses.length);
+
+        AddressSorting.sort(rangeSorted, 1, 6);
+
+        assertArrayEquals(new int[] {7, 3, 5, 0x7FFFFFFF, 0x80000000, 0xFFFFFFFF, 1}, rangeSorted);
+        assertTrue(AddressSorting.isSorted(rangeSorted, 1, 6));
+        assertFalse(AddressSorting.isSorted(rangeSorted, 0, 7));
+    }
+
+    @Test
+    @DisplayName("Сортировка упорядочивает адреса так же, как IpAddress.compareTo")
+    void testSortMatchesCompareTo() {
+        int[] addresses = randomAddresses(1000, 0xFFFFFFFF, 9L);
+        IpAddress[] objects = new IpAddress[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            objects[i] = IpAddress.fromInt(addresses[i]);
+        }
+
+        AddressSorting.sort(addresses);
+        Arrays.sort(objects);
+
+        for (int i = 0; i < addresses.length; i++) {
+            assertEquals(objects[i].toInt(), addresses[i]);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testDedupProvider")
+    @DisplayName("Удаление повторов из отсортированного массива")
+    void testDedup(int length, int valueMask, long seed) {
+        int[] addresses = randomAddresses(length, valueMask, seed);
+        int[] expected = Arrays.stream(sortedUnsigned(addresses)).distinct().toArray();
+        int[] parallel = Arrays.copyOf(addresses, addresses.length);
+
+        int unique = AddressSorting.sortUnique(addresses, addresses.length);
+
+        AddressSorting.sort(parallel);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int parallelUnique;
+        try {
+            parallelUnique = AddressSorting.parallelDedup(parallel, parallel.length, pool, 16);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(expected, Arrays.copyOf(addresses, unique));
+        assertArrayEquals(expected, Arrays.copyOf(parallel, parallelUnique));
+    }
+
+    static Stream<Arguments> testDedupProvider() {
+        return Stream.of(
+                arguments(0, 0xFFFFFFFF, 11L),
+                arguments(1, 0xFFFFFFFF, 12L),
+                arguments(1000, 0xFFFFFFFF, 13L),
+                arguments(1000, 0x0000003F, 14L),
+                arguments(1000, 0x80000003, 15L),
+                arguments(1000, 0, 16L),
+                arguments(333, 0x000001FF, 17L)
+        );
+    }
+
+    @Test
+    @DisplayName("Ошибка при неправильных границах массива")
+    void testInvalidRange() {
+        int[] addresses = new int[10];
+
+        assertThrows(IllegalArgumentException.class, () -> AddressSorting.sort(null));
+        assertThrows(IllegalArgumentException.class, () -> AddressSorting.sort(addresses, 5, 4));
+        assertThrows(IllegalArgumentException.class, () -> AddressSorting.sort(addresses, 0, 11));
+        assertThrows(IllegalArgumentException.class, () -> AddressSorting.dedup(addresses, 11));
+        assertThrows(IllegalArgumentException.class, () -> AddressSorting.parallelDedup(addresses, -1));
+    }
+
+    private static int[] randomAddresses(int length, int valueMask, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] addresses = new int[length];
+        for (int i = 0; i < length; i++) {
+            addresses[i] = random.nextInt() & valueMask;
+        }
+
+        return addresses;
+    }
+
+    private static int[] sortedUnsigned(int[] addresses) {
+        return Arrays.stream(addresses).mapToLong(Integer::toUnsignedLong).sorted().mapToInt(value -> (int) value).toArray();
+    }
+}
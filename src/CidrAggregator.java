@@ -0,0 +1,446 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Потоковое объединение большого количества подсетей и диапазонов адресов в минимальный набор CIDR-блоков
+ *
+ *  Диапазоны накапливаются в буфере ограниченного размера. Заполненный буфер сортируется и сжимается
+ *  (пересекающиеся и соседние диапазоны склеиваются); если сжатие не освободило достаточно места,
+ *  отсортированная серия сбрасывается во временный файл. В конце серии сливаются; если их больше, чем файлов,
+ *  которые можно держать открытыми одновременно, они сначала сливаются группами в промежуточные серии.
+ *  Поэтому ни объём памяти, ни число открытых файлов не зависят от размера входных данных.
+ *
+ *  Диапазон хранится в одном числе long: в старших 32 битах - начало с инвертированным знаковым битом
+ *  (чтобы обычная сортировка long упорядочивала начала как беззнаковые), в младших - конец.
+ */
+public class CidrAggregator implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 22;
+    private static final int MIN_BUFFER_SIZE = 16;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final long ADDRESS_MASK = 0xFFFFFFFFL;
+    private static final int MAX_PREFIX_LENGTH = 32;
+    // Наибольшее число источников, сливаемых за один проход (и одновременно открытых файлов)
+    private static final int DEFAULT_MERGE_WIDTH = 64;
+    private static final int MIN_MERGE_WIDTH = 2;
+
+    /** Получатель CIDR-блоков результата */
+    @FunctionalInterface
+    public interface CidrConsumer {
+        void accept(int network, int prefixLength);
+    }
+
+    private final long[] _buffer;
+    private final Path _tempDirectory;
+    private final int _mergeWidth;
+    private final List<Path> _runs = new ArrayList<>();
+    private int _size;
+
+    /** Создаёт агрегатор с буфером по умолчанию (4 млн диапазонов, 32 МБ)
+     *
+     */
+    public CidrAggregator() {
+        this(DEFAULT_BUFFER_SIZE, null);
+    }
+
+    /** Создаёт агрегатор с буфером на заданное число диапазонов; временные файлы создаются в tempDirectory
+     *  (null - системный каталог временных файлов)
+     */
+    public CidrAggregator(int bufferSize, Path tempDirectory) {
+        this(bufferSize, tempDirectory, DEFAULT_MERGE_WIDTH);
+    }
+
+    CidrAggregator(int bufferSize, Path tempDirectory, int mergeWidth) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException(String.format("Buffer size must be at least %d", MIN_BUFFER_SIZE));
+        }
+        if (mergeWidth < MIN_MERGE_WIDTH) {
+            throw new IllegalArgumentException(String.format("Merge width must be at least %d", MIN_MERGE_WIDTH));
+        }
+
+        this._buffer = new long[bufferSize];
+        this._tempDirectory = tempDirectory;
+        this._mergeWidth = mergeWidth;
+    }
+
+    /** Добавляет подсеть
+     *
+     */
+    public void add(Subnet subnet) throws IOException {
+        addRange(subnet.networkInt(), subnet.broadcastInt());
+    }
+
+    /** Добавляет сеть, заданную IP-адресом и маской
+     *
+     */
+    public void add(IpAddress network, IpAddress mask) throws IOException {
+        add(new Subnet(network, mask));
+    }
+
+    /** Добавляет диапазон адресов [first, last] (границы сравниваются без знака)
+     *
+     */
+    public void addRange(int first, int last) throws IOException {
+        if (Integer.compareUnsigned(first, last) > 0) {
+            throw new IllegalArgumentException("Range start must not exceed range end");
+        }
+
+        if (this._size == this._buffer.length) {
+            this._size = compact(this._buffer, this._size);
+
+            // Если сжатие освободило меньше половины буфера, сбрасываем серию на диск
+            if (this._size > this._buffer.length / 2) {
+                spill();
+            }
+        }
+
+        this._buffer[this._size++] = encode(first, last);
+    }
+
+    /** Сливает все накопленные диапазоны и передаёт минимальный набор CIDR-блоков в порядке возрастания адресов
+     *
+     */
+    public void aggregate(CidrConsumer consumer) throws IOException {
+        this._size = compact(this._buffer, this._size);
+
+        // Последний проход сливает буфер и все оставшиеся серии
+        while (this._runs.size() > this._mergeWidth - 1) {
+            mergeRuns(this._mergeWidth);
+        }
+
+        RangeSource[] sources = new RangeSource[this._runs.size() + 1];
+        try {
+            sources[0] = new ArrayRangeSource(this._buffer, this._size);
+            for (int i = 0; i < this._runs.size(); i++) {
+                sources[i + 1] = new FileRangeSource(this._runs.get(i));
+            }
+
+            mergeRanges(sources, (first, last) -> rangeToCidrs(first, last, consumer));
+        } finally {
+            closeAll(sources);
+        }
+    }
+
+    /** Сливает все накопленные диапазоны и возвращает минимальный набор подсетей
+     *
+     */
+    public List<Subnet> aggregate() throws IOException {
+        List<Subnet> result = new ArrayList<>();
+        aggregate((network, prefixLength) -> result.add(Subnet.of(network, prefixLength)));
+        return result;
+    }
+
+    /** Удаляет временные файлы
+     *
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : this._runs) {
+            Files.deleteIfExists(run);
+        }
+        this._runs.clear();
+        this._size = 0;
+    }
+
+    /** Разбивает диапазон адресов [first, last] (беззнаковые значения) на минимальный набор CIDR-блоков
+     *
+     */
+    public static void rangeToCidrs(long first, long last, CidrConsumer consumer) {
+        while (first <= last) {
+            // Наибольший выровненный блок, начинающийся с first и не выходящий за last
+            int prefixLength = first == 0 ? 0 : MAX_PREFIX_LENGTH - Long.numberOfTrailingZeros(first);
+            while (first + (1L << (MAX_PREFIX_LENGTH - prefixLength)) - 1 > last) {
+                prefixLength++;
+            }
+
+            consumer.accept((int) first, prefixLength);
+            first += 1L << (MAX_PREFIX_LENGTH - prefixLength);
+        }
+    }
+
+
+    /** Сортирует буфер и склеивает пересекающиеся и соседние диапазоны; возвращает новый размер
+     *
+     */
+    private static int compact(long[] ranges, int size) {
+        Arrays.sort(ranges, 0, size);
+
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            long first = first(ranges[i]);
+            long last = last(ranges[i]);
+
+            if (result > 0 && first <= last(ranges[result - 1]) + 1) {
+                if (last > last(ranges[result - 1])) {
+                    ranges[result - 1] = encode((int) first(ranges[result - 1]), (int) last);
+                }
+            } else {
+                ranges[result++] = ranges[i];
+            }
+        }
+
+        return result;
+    }
+
+    /** Записывает отсортированную серию во временный файл и очищает буфер
+     *
+     */
+    private void spill() throws IOException {
+        Path run = createRun();
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_SIZE))) {
+            for (int i = 0; i < this._size; i++) {
+                output.writeLong(this._buffer[i]);
+            }
+        }
+
+        this._size = 0;
+    }
+
+    /** Сливает первые count серий в одну новую серию, которая занимает место в конце списка
+     *
+     */
+    private void mergeRuns(int count) throws IOException {
+        List<Path> merged = new ArrayList<>(this._runs.subList(0, count));
+        Path run = createRun();
+
+        RangeSource[] sources = new RangeSource[count];
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_SIZE))) {
+            for (int i = 0; i < count; i++) {
+                sources[i] = new FileRangeSource(merged.get(i));
+            }
+
+            mergeRanges(sources, (first, last) -> output.writeLong(encode((int) first, (int) last)));
+        } finally {
+            closeAll(sources);
+        }
+
+        this._runs.subList(0, count).clear();
+        for (Path path : merged) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /** Создаёт временный файл новой серии; он удаляется при закрытии агрегатора
+     *
+     */
+    private Path createRun() throws IOException {
+        Path run = this._tempDirectory == null
+                ? Files.createTempFile("cidr-run", ".bin")
+                : Files.createTempFile(this._tempDirectory, "cidr-run", ".bin");
+        this._runs.add(run);
+        return run;
+    }
+
+    /** Закрывает открытые источники; источники, которые не успели открыться (null), пропускаются
+     *
+     */
+    private static void closeAll(RangeSource[] sources) throws IOException {
+        IOException failure = null;
+        for (RangeSource source : sources) {
+            if (source == null) {
+                continue;
+            }
+
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Сливает отсортированные источники с помощью двоичной кучи и склеивает диапазоны на лету
+     *
+     */
+    private static void mergeRanges(RangeSource[] sources, RangeConsumer consumer) throws IOException {
+        long[] heads = new long[sources.length];
+        int[] heap = new int[sources.length];
+        int heapSize = 0;
+
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].hasNext()) {
+                heads[i] = sources[i].next();
+                heap[heapSize++] = i;
+                siftUp(heap, heads, heapSize - 1);
+            }
+        }
+
+        long currentFirst = -1;
+        long currentLast = -1;
+        while (heapSize > 0) {
+            int source = heap[0];
+            long range = heads[source];
+
+            if (sources[source].hasNext()) {
+                heads[source] = sources[source].next();
+            } else {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heads, heapSize, 0);
+
+            long first = first(range);
+            long last = last(range);
+            if (currentFirst >= 0 && first <= currentLast + 1) {
+                currentLast = Math.max(currentLast, last);
+            } else {
+                if (currentFirst >= 0) {
+                    consumer.accept(currentFirst, currentLast);
+                }
+                currentFirst = first;
+                currentLast = last;
+            }
+        }
+
+        if (currentFirst >= 0) {
+            consumer.accept(currentFirst, currentLast);
+        }
+    }
+
+    private static void siftUp(int[] heap, long[] heads, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heads[heap[parent]] <= heads[heap[index]]) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, long[] heads, int size, int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && heads[heap[left]] < heads[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && heads[heap[right]] < heads[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+
+    private static long encode(int first, int last) {
+        return ((long) (first ^ Integer.MIN_VALUE) << 32) | (last & ADDRESS_MASK);
+    }
+
+    private static long first(long range) {
+        return ((int) (range >>> 32) ^ Integer.MIN_VALUE) & ADDRESS_MASK;
+    }
+
+    private static long last(long range) {
+        return range & ADDRESS_MASK;
+    }
+
+
+    /** Получатель склеенных диапазонов [first, last] (беззнаковые значения) */
+    @FunctionalInterface
+    private interface RangeConsumer {
+        void accept(long first, long last) throws IOException;
+    }
+
+    /** Отсортированный источник закодированных диапазонов */
+    private interface RangeSource extends Closeable {
+        boolean hasNext() throws IOException;
+
+        long next() throws IOException;
+    }
+
+    private static final class ArrayRangeSource implements RangeSource {
+        private final long[] _ranges;
+        private final int _size;
+        private int _index;
+
+        ArrayRangeSource(long[] ranges, int size) {
+            this._ranges = ranges;
+            this._size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this._index < this._size;
+        }
+
+        @Override
+        public long next() {
+            return this._ranges[this._index++];
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class FileRangeSource implements RangeSource {
+        private final DataInputStream _input;
+        private long _next;
+        private boolean _hasNext;
+
+        FileRangeSource(Path path) throws IOException {
+            this._input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), IO_BUFFER_SIZE));
+            try {
+                advance();
+            } catch (IOException e) {
+                this._input.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this._hasNext;
+        }
+
+        @Override
+        public long next() throws IOException {
+            long value = this._next;
+            advance();
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this._input.close();
+        }
+
+        private void advance() throws IOException {
+            try {
+                this._next = this._input.readLong();
+                this._hasNext = true;
+            } catch (EOFException e) {
+                this._hasNext = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class CidrAggregatorTest {
+
+    static List<String> aggregate(int bufferSize, String... subnets) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (CidrAggregator aggregator = new CidrAggregator(bufferSize, null)) {
+            for (String subnet : subnets) {
+                aggregator.add(Subnet.parse(subnet));
+            }
+            for (Subnet subnet : aggregator.aggregate()) {
+                result.add(subnet.toString());
+            }
+        }
+
+        return result;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testAggregateProvider")
+    @DisplayName("Объединение пересекающихся и соседних подсетей")
+    void testAggregate(String[] subnets, List<String> expected) throws IOException {
+        assertEquals(expected, aggregate(16, subnets));
+    }
+
+    static Stream<Arguments> testAggregateProvider() {
+        return Stream.of(
+                arguments(new String[] {"10.0.0.0/25", "10.0.0.128/25"}, List.of("10.0.0.0/24")),
+                arguments(new String[] {"10.0.0.0/24", "10.0.0.17/32", "10.0.0.0/26"}, List.of("10.0.0.0/24")),
+                arguments(new String[] {"10.0.1.0/24", "10.0.2.0/24"}, List.of("10.0.1.0/24", "10.0.2.0/24")),
+                arguments(new String[] {"10.0.2.0/24", "10.0.0.0/24", "10.0.3.0/24", "10.0.1.0/24"}, List.of("10.0.0.0/22")),
+                arguments(new String[] {"200.0.0.0/8", "192.168.1.1", "100.0.0.0/8"},
+                        List.of("100.0.0.0/8", "192.168.1.1/32", "200.0.0.0/8")),
+                arguments(new String[] {"0.0.0.0/1", "128.0.0.0/1"}, List.of("0.0.0.0/0")),
+                arguments(new String[] {"255.255.255.255", "255.255.255.254"}, List.of("255.255.255.254/31")),
+                arguments(new String[] {}, List.of())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testRangeToCidrsProvider")
+    @DisplayName("Разбиение диапазона адресов на CIDR-блоки")
+    void testRangeToCidrs(String first, String last, List<String> expected) {
+        List<String> result = new ArrayList<>();
+        CidrAggregator.rangeToCidrs(IpAddress.parse(first).toLong(), IpAddress.parse(last).toLong(),
+                (network, prefixLength) -> result.add(Subnet.of(network, prefixLength).toString()));
+
+        assertEquals(expected, result);
+    }
+
+    static Stream<Arguments> testRangeToCidrsProvider() {
+        return Stream.of(
+                arguments("10.0.0.1", "10.0.0.6", List.of("10.0.0.1/32", "10.0.0.2/31", "10.0.0.4/31", "10.0.0.6/32")),
+                arguments("192.168.0.0", "192.168.1.255", List.of("192.168.0.0/23")),
+                arguments("0.0.0.0", "255.255.255.255", List.of("0.0.0.0/0")),
+                arguments("255.255.255.255", "255.255.255.255", List.of("255.255.255.255/32")),
+                arguments("127.255.255.255", "128.0.0.0", List.of("127.255.255.255/32", "128.0.0.0/32"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testRandomProvider")
+    @DisplayName("Результат со сбросом серий на диск совпадает с побитовой проверкой")
+    void testRandom(int count, int bufferSize, int mergeWidth) throws IOException {
+        // Диапазоны внутри 10.0.0.0/16, чтобы эталон помещался в массив
+        Random random = new Random(count);
+        boolean[] expected = new boolean[1 << 16];
+        Path directory = Files.createTempDirectory("cidr-test");
+
+        List<Subnet> result;
+        try (CidrAggregator aggregator = new CidrAggregator(bufferSize, directory, mergeWidth)) {
+            for (int i = 0; i < count; i++) {
+                int prefixLength = 20 + random.nextInt(13);
+                Subnet subnet = Subnet.of(0x0A000000 | random.nextInt(1 << 16), prefixLength);
+                aggregator.add(subnet);
+                for (long a = subnet.networkInt() & 0xFFFF; a <= (subnet.broadcastInt() & 0xFFFF); a++) {
+                    expected[(int) a] = true;
+                }
+            }
+
+            result = aggregator.aggregate();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        Files.delete(directory);
+
+        boolean[] actual = new boolean[1 << 16];
+        for (int i = 0; i < result.size(); i++) {
+            Subnet subnet = result.get(i);
+            if (i > 0) {
+                Subnet previous = result.get(i - 1);
+                // Блоки упорядочены, не пересекаются и не могут быть объединены
+                assertTrue(Integer.compareUnsigned(previous.broadcastInt(), subnet.networkInt()) < 0);
+                assertFalse(previous.isSiblingOf(subnet));
+            }
+            for (long a = subnet.networkInt() & 0xFFFF; a <= (subnet.broadcastInt() & 0xFFFF); a++) {
+                actual[(int) a] = true;
+            }
+        }
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], "address " + i);
+        }
+    }
+
+    static Stream<Arguments> testRandomProvider() {
+        return Stream.of(
+                arguments(10, 16, 64),
+                arguments(1000, 16, 64),
+                arguments(5000, 64, 64),
+                arguments(5000, 100000, 64),
+                // Серий больше, чем источников в одном проходе - нужны промежуточные слияния
+                arguments(1000, 16, 2),
+                arguments(5000, 16, 5)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testMissingRunProvider")
+    @DisplayName("Ошибка открытия серии не оставляет временных файлов после закрытия")
+    void testMissingRun(int mergeWidth) throws IOException {
+        Path directory = Files.createTempDirectory("cidr-test");
+        try (CidrAggregator aggregator = new CidrAggregator(16, directory, mergeWidth)) {
+            for (int i = 0; i < 1000; i++) {
+                aggregator.add(Subnet.of(0x0A000000 | (i * 7919) & 0xFFFF00, 24));
+            }
+
+            List<Path> runs;
+            try (Stream<Path> files = Files.list(directory)) {
+                runs = files.sorted().toList();
+            }
+            assertTrue(runs.size() > 2);
+            Files.delete(runs.get(runs.size() / 2));
+
+            assertThrows(NoSuchFileException.class, aggregator::aggregate);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        Files.delete(directory);
+    }
+
+    static Stream<Arguments> testMissingRunProvider() {
+        return Stream.of(
+                arguments(64),
+                arguments(3)
+        );
+    }
+}
@@ -1,6 +1,6 @@
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
-public class IpAddress {
+public class IpAddress implements Comparable<IpAddress> {
     private static final int OCTETS_COUNT = 4;
     private static final int OCTET_LENGTH = 8;
     private static final int MIN_OCTET_VALUE = 0;
@@ -9,11 +9,30 @@ public class IpAddress {
     private static final int MIN_MASK_LENGTH = 1;
     private static final int MAX_MASK_LENGTH = 32;
 
-    private final int[] _rawAddress;
+    // Признак того, что адрес не является правильной маской
+    private static final int NOT_A_MASK = -1;
+
+    // Все 33 возможные маски (от /0 до /32) создаются один раз и используются совместно
+    private static final IpAddress[] MASKS = new IpAddress[MAX_MASK_LENGTH + 1];
+
+    static {
+        for (int maskLength = 0; maskLength <= MAX_MASK_LENGTH; maskLength++) {
+            MASKS[maskLength] = new IpAddress(createRawMask(maskLength), maskLength);
+        }
+    }
+
+    // IP-адрес, упакованный в одно 32-битное число (первый октет - в старших битах)
+    private final int _address;
+    // Длина маски, если адрес является правильной маской, иначе NOT_A_MASK
+    private final int _maskLength;
 
     public IpAddress(int[] rawAddress) {
-        checkAddress(rawAddress);
-        this._rawAddress = rawAddress;
+        validateAddress(rawAddress).throwIfError();
+        this._address = packOctets(rawAddress);
+        this._maskLength = maskLengthOf(this._address);
+        if (IpMetrics.ENABLED) {
+            IpMetrics.addressCreated();
+        }
     }
 
     public IpAddress(int maskLength) {
@@ -23,7 +42,138 @@ public class IpAddress {
                     String.format("Mask length must be in range [%d..%d]", MIN_MASK_LENGTH, MAX_MASK_LENGTH)
             );
         }
-        this._rawAddress = createRawMask(maskLength);
+        this._address = MASKS[maskLength]._address;
+        this._maskLength = maskLength;
+        if (IpMetrics.ENABLED) {
+            IpMetrics.addressCreated();
+        }
+    }
+
+    /** Создаёт IP-адрес из уже упакованного 32-битного значения с заранее известной длиной маски.
+     *  Любое значение int является корректным IP-адресом, поэтому проверки не требуются
+     */
+    private IpAddress(int address, int maskLength) {
+        this._address = address;
+        this._maskLength = maskLength;
+    }
+
+    /** Создаёт IP-адрес из его упакованного 32-битного представления
+     *
+     */
+    public static IpAddress fromInt(int address) {
+        if (IpMetrics.ENABLED) {
+            IpMetrics.addressCreated();
+        }
+
+        return new IpAddress(address, maskLengthOf(address));
+    }
+
+    /** Возвращает общую (неизменяемую) маску заданной длины от 0 до 32 включительно
+     *
+     */
+    public static IpAddress mask(int maskLength) {
+        validateMaskLength(maskLength).throwIfError();
+        return MASKS[maskLength];
+    }
+
+    /** Проверяет, что упакованный IP-адрес является правильной маской (единицы, за которыми идут только нули)
+     *
+     */
+    public static boolean isValidMask(int rawMask) {
+        // У правильной маски инвертированное значение имеет вид 0...01...1,
+        // поэтому после прибавления единицы у него не остаётся общих битов с исходным
+        int inverted = ~rawMask;
+        return (inverted & (inverted + 1)) == 0;
+    }
+
+    /** Проверяет, что массив целых чисел является правильной записью IP-адреса
+     *
+     */
+    public static AddressError validateAddress(int[] rawAddress) {
+        if (rawAddress == null) {
+            return reject(AddressError.NULL_ADDRESS);
+        }
+
+        // Массив чисел нельзя представить в виде IP-адреса, если он не состоит из ровно четырех целых чисел
+        if (rawAddress.length != OCTETS_COUNT) {
+            return reject(AddressError.WRONG_OCTET_COUNT);
+        }
+
+        // Или какое-либо из этих чисел лежит не в пределах от 0 до 255 включительно
+        for (int octet : rawAddress) {
+            if (octet < MIN_OCTET_VALUE || octet > MAX_OCTET_VALUE) {
+                return reject(AddressError.OCTET_OUT_OF_RANGE);
+            }
+        }
+
+        return AddressError.OK;
+    }
+
+    /** Проверяет, что IP-адрес является правильной маской
+     *
+     */
+    public static AddressError validateMask(IpAddress mask) {
+        if (mask == null) {
+            return reject(AddressError.NULL_MASK);
+        }
+
+        // Длина маски вычисляется один раз при создании адреса, поэтому проверка сводится к сравнению
+        return mask._maskLength == NOT_A_MASK ? reject(AddressError.NON_CONTIGUOUS_MASK) : AddressError.OK;
+    }
+
+    /** Проверяет, что упакованное значение является правильной маской
+     *
+     */
+    public static AddressError validateMask(int rawMask) {
+        return isValidMask(rawMask) ? AddressError.OK : reject(AddressError.NON_CONTIGUOUS_MASK);
+    }
+
+    /** Проверяет, что длина маски лежит в пределах от 0 до 32 включительно
+     *
+     */
+    public static AddressError validateMaskLength(int maskLength) {
+        return maskLength < 0 || maskLength > MAX_MASK_LENGTH ? reject(AddressError.MASK_LENGTH_OUT_OF_RANGE) : AddressError.OK;
+    }
+
+    /** Упаковывает массив октетов без исключений: возвращает беззнаковое значение адреса
+     *  или отрицательный код ошибки
+     */
+    public static long tryPack(int[] rawAddress) {
+        AddressError error = validateAddress(rawAddress);
+        if (error != AddressError.OK) {
+            return error.code();
+        }
+
+        return Integer.toUnsignedLong(packOctets(rawAddress));
+    }
+
+    /** Применяет упакованную маску к упакованному адресу без исключений: возвращает беззнаковое значение
+     *  адреса сети или отрицательный код ошибки
+     */
+    public static long tryApplyMask(int address, int rawMask) {
+        if (!isValidMask(rawMask)) {
+            return reject(AddressError.NON_CONTIGUOUS_MASK).code();
+        }
+
+        return Integer.toUnsignedLong(address & rawMask);
+    }
+
+    /** Вычисляет количество хостов между двумя упакованными адресами одной сети без исключений:
+     *  возвращает неотрицательное количество или отрицательный код ошибки
+     */
+    public static long tryCountHostsBetween(int first, int second, int rawMask) {
+        if (!isValidMask(rawMask)) {
+            return reject(AddressError.NON_CONTIGUOUS_MASK).code();
+        }
+
+        return countHostsBetween(first, second, rawMask);
+    }
+
+    /** Разбирает текстовую запись IP-адреса вида "a.b.c.d"
+     *
+     */
+    public static IpAddress parse(CharSequence text) {
+        return IpAddressParser.parse(text);
     }
 
     public static IpAddress localHost() {
@@ -42,67 +192,102 @@ public class IpAddress {
      *
      */
     public IpAddress applyMask(IpAddress mask) {
-        if (mask == null) {
-            throw new IllegalArgumentException("Mask cannot be null");
-        }
+        long start = IpMetrics.ENABLED ? System.nanoTime() : 0;
+        long result = tryApplyMask(mask);
+        AddressError.of(result).throwIfError();
 
-        checkMask(mask.getRawAddress());
-
-        int[] rawMask = mask.getRawAddress();
-        int[] maskedAddress = {
-                MIN_OCTET_VALUE,
-                MIN_OCTET_VALUE,
-                MIN_OCTET_VALUE,
-                MIN_OCTET_VALUE,
-        };
+        IpAddress masked = fromInt((int) result);
+        if (IpMetrics.ENABLED) {
+            IpMetrics.record(IpMetrics.Operation.APPLY_MASK, start);
+        }
+        return masked;
+    }
 
-        int[] rawAddress = this.getRawAddress();
-        for (int i = 0; i < OCTETS_COUNT; i++) {
-            maskedAddress[i] = rawAddress[i] & rawMask[i];
+    /** Применяет маску к IP-адресу без исключений: возвращает беззнаковое значение адреса сети
+     *  или отрицательный код ошибки
+     */
+    public long tryApplyMask(IpAddress mask) {
+        AddressError error = validateMask(mask);
+        if (error != AddressError.OK) {
+            return error.code();
         }
 
-        return new IpAddress(maskedAddress);
+        return Integer.toUnsignedLong(this._address & mask._address);
     }
 
     /** Проверяет принадлежность IP-адреса к заданной сети
      *
      */
     public boolean belongsToSubnet(IpAddress subnetAddress, IpAddress mask) {
-        checkMask(mask.getRawAddress());
-        return this.applyMask(mask).equals(subnetAddress);
+        long start = IpMetrics.ENABLED ? System.nanoTime() : 0;
+        validateMask(mask).throwIfError();
+
+        boolean belongs = subnetAddress != null && (this._address & mask._address) == subnetAddress._address;
+        if (IpMetrics.ENABLED) {
+            IpMetrics.record(IpMetrics.Operation.BELONGS_TO_SUBNET, start);
+        }
+        return belongs;
     }
 
     /** Вычисляет количество устройств (хостов) между двумя IP-адресами одной сети (не включая эти адреса)
      *
      */
     public long countHostsBetween(IpAddress other, IpAddress mask) {
-        checkMask(mask.getRawAddress());
+        long start = IpMetrics.ENABLED ? System.nanoTime() : 0;
+        long result = tryCountHostsBetween(other, mask);
+        AddressError.of(result).throwIfError();
 
-        // Проверяем, что 2 IP-адреса находятся в одной сети
-        IpAddress netAddress = other.applyMask(mask);
-        if (!this.belongsToSubnet(netAddress, mask)) {
-            throw new IllegalArgumentException("IP-addresses not in the same net");
+        if (IpMetrics.ENABLED) {
+            IpMetrics.record(IpMetrics.Operation.COUNT_HOSTS_BETWEEN, start);
         }
+        return result;
+    }
 
-        if (this.equals(other)) {
-            return 0L;
+    /** Вычисляет количество устройств между двумя IP-адресами одной сети без исключений:
+     *  возвращает неотрицательное количество или отрицательный код ошибки
+     */
+    public long tryCountHostsBetween(IpAddress other, IpAddress mask) {
+        AddressError error = validateMask(mask);
+        if (error != AddressError.OK) {
+            return error.code();
+        }
+        if (other == null) {
+            return reject(AddressError.NULL_ADDRESS).code();
         }
 
-        return Math.abs(this.toLong() - other.toLong()) - 1;
+        return countHostsBetween(this._address, other._address, mask._address);
     }
 
 
     /** Представляет IP-адрес в виде целого числа
      */
     public long toLong() {
-        int[] rawAddress = this.getRawAddress();
-        long rawAddressAsInt = 0;
+        return Integer.toUnsignedLong(this._address);
+    }
 
-        for (int i = OCTETS_COUNT - 1; i >= 0; i--) {
-            rawAddressAsInt += (long) rawAddress[OCTETS_COUNT - i - 1] << OCTET_LENGTH * i;
-        }
 
-        return rawAddressAsInt;
+    /** Возвращает IP-адрес, упакованный в одно 32-битное число
+     *
+     */
+    public int toInt() {
+        return this._address;
+    }
+
+
+    /** Проверяет, является ли IP-адрес правильной маской
+     *
+     */
+    public boolean isMask() {
+        return this._maskLength != NOT_A_MASK;
+    }
+
+
+    /** Возвращает длину маски (количество единиц в ней)
+     *
+     */
+    public int getMaskLength() {
+        validateMask(this).throwIfError();
+        return this._maskLength;
     }
 
 
@@ -111,8 +296,23 @@ public class IpAddress {
      */
     @Override
     public String toString() {
-        return String.format("%d.%d.%d.%d", this._rawAddress[0], this._rawAddress[1],
-                this._rawAddress[2], this._rawAddress[3]);
+        return IpAddressFormatter.toString(this._address);
+    }
+
+
+    /** Дописывает строковое представление IP-адреса в конец StringBuilder
+     *
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        return IpAddressFormatter.appendTo(this._address, builder);
+    }
+
+
+    /** Записывает строковое представление IP-адреса ASCII-символами в буфер
+     *
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer) {
+        return IpAddressFormatter.writeTo(this._address, buffer);
     }
 
 
@@ -129,109 +329,127 @@ public class IpAddress {
             return false;
         }
 
-        return Arrays.equals(this.getRawAddress(), other.getRawAddress());
+        return this._address == other._address;
     }
 
 
-    /** Возвращает "сырой" IP-адрес в виде массиа чисел
+    /** Сравнивает IP-адреса как беззнаковые 32-битные числа (0.0.0.0 - наименьший, 255.255.255.255 - наибольший)
      *
      */
-    public int[] getRawAddress() {
-        return this._rawAddress.clone();
+    @Override
+    public int compareTo(IpAddress other) {
+        return Integer.compareUnsigned(this._address, other._address);
     }
 
 
-    /** Проверяет, что массив целых чисел может быть правильной записью IP-адреса
+    /** Вычисляет хеш-код IP-адреса
      *
      */
-    private void checkAddress(int[] rawAddress) {
-        // Массив чисел нельзя представить в виде IP-адреса, если он не состоит из ровно четырех целых чисел
-        if (rawAddress.length != OCTETS_COUNT) {
-            throw new IllegalArgumentException(
-                    String.format("IP address must consist only of %d octets", OCTETS_COUNT)
-            );
-        }
+    @Override
+    public int hashCode() {
+        return hash(this._address);
+    }
 
-        // Или какое-либо из этих чисел лежит не в пределах от 0 до 255 включительно
-        for (int octet : rawAddress) {
-            if (octet < MIN_OCTET_VALUE || octet > MAX_OCTET_VALUE) {
-                throw new IllegalArgumentException(
-                        String.format("Each octet in IP address must be in range [%d..%d]",
-                                MIN_OCTET_VALUE, MAX_OCTET_VALUE)
-                );
-            }
+
+    /** Перемешивает биты упакованного IP-адреса (финализатор MurmurHash3), чтобы соседние адреса
+     *  и адреса одной подсети равномерно распределялись по хеш-таблицам
+     */
+    public static int hash(int address) {
+        int hash = address;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /** Перемешивает биты 64-битного значения (финализатор MurmurHash3 fmix64); общий для 64-битных хешей
+     *  адресов и подсетей
+     */
+    static long hash64(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+
+    /** Возвращает "сырой" IP-адрес в виде массиа чисел
+     *
+     */
+    public int[] getRawAddress() {
+        int[] rawAddress = new int[OCTETS_COUNT];
+        for (int i = 0; i < OCTETS_COUNT; i++) {
+            rawAddress[i] = octet(this._address, i);
         }
+
+        return rawAddress;
     }
 
 
-    /** Проверяет, что массив целых чисел может быть правильной записью маски
+    /** Возвращает октет с заданным номером (начиная со старшего) из упакованного IP-адреса
      *
      */
-    private void checkMask(int[] rawMask) {
-        boolean expectOnlyZeros = false;
+    private static int octet(int address, int index) {
+        return (address >>> OCTET_LENGTH * (OCTETS_COUNT - index - 1)) & MAX_OCTET_VALUE;
+    }
 
-        for (int octet : rawMask) {
-            // Если уже были пройдены все октеты, состоящие лишь из единиц, и, возможно,
-            // "смешанного" октета, состоящего сначала из единиц, а потом только из нулей,
-            // то далее в маске ожидаются лишь нулевые октеты
-            if (expectOnlyZeros && octet != MIN_OCTET_VALUE) {
-                throw new IllegalArgumentException("Invalid mask");
-            }
 
-            // В начале маски ожидаются только октеты, состоящие из единиц
-            if (octet == MAX_OCTET_VALUE) {
-                continue;
-            }
+    /** Упаковывает массив октетов в одно 32-битное число
+     *
+     */
+    private static int packOctets(int[] rawAddress) {
+        int address = 0;
+        for (int octet : rawAddress) {
+            address = (address << OCTET_LENGTH) | octet;
+        }
 
-            // Октет идущий после октетов с единицами (если они были),
-            // должен сначала состоять из одниц единиц...
-            while (octet != 0 && (octet & 0x1) == 0) {
-                octet >>= 1;
-            }
+        return address;
+    }
 
-            // ... а потом только из одних нулей
-            while (octet != 0) {
-                if ((octet & 0x1) != 1) {
-                    throw new IllegalArgumentException("Invalid mask");
-                }
 
-                octet >>= 1;
-            }
+    /** Вычисляет количество хостов между двумя адресами, предполагая маску правильной
+     *
+     */
+    private static long countHostsBetween(int first, int second, int rawMask) {
+        // Проверяем, что 2 IP-адреса находятся в одной сети
+        if (((first ^ second) & rawMask) != 0) {
+            return reject(AddressError.NOT_IN_SAME_SUBNET).code();
+        }
 
-            // Все ненулевые октеты были пройдены, далее в маске должны идти только нули
-            expectOnlyZeros = true;
+        if (first == second) {
+            return 0L;
         }
+
+        return Math.abs(Integer.toUnsignedLong(first) - Integer.toUnsignedLong(second)) - 1;
     }
 
 
-    /** Создаёт "сырую" маску в виде массива байтов
+    /** Учитывает отклонённую проверку в метриках (если их сбор включён) и возвращает ту же ошибку
      *
      */
-    private int[] createRawMask(int maskLength) {
-        int[] rawMask = {
-                MAX_OCTET_VALUE,
-                MAX_OCTET_VALUE,
-                MAX_OCTET_VALUE,
-                MAX_OCTET_VALUE,
-        };
-
-        // Указывает на индекс октета идущего сразу же после октета, состоящего из одних единиц
-        int currentOctetIdx = maskLength / OCTET_LENGTH;
+    private static AddressError reject(AddressError error) {
+        return IpMetrics.ENABLED ? IpMetrics.rejected(error) : error;
+    }
 
-        // Если маска не состоит полностью из единиц...
-        if (currentOctetIdx != OCTETS_COUNT) {
-            // Определяем, насколько нужно сдвинуть влево октет mask[currentOctetIdx]
-            int shift = OCTET_LENGTH - (maskLength % OCTET_LENGTH);
 
-            // Обнуляем биты у нужного октета
-            rawMask[currentOctetIdx] &= rawMask[currentOctetIdx] << shift;
+    /** Вычисляет длину маски за константное время или возвращает NOT_A_MASK, если адрес не является маской
+     *
+     */
+    private static int maskLengthOf(int address) {
+        return isValidMask(address) ? Integer.bitCount(address) : NOT_A_MASK;
+    }
 
-            // Все октеты, идущие после, уставливаем в ноль
-            for (currentOctetIdx++; currentOctetIdx < OCTETS_COUNT; currentOctetIdx++) {
-                rawMask[currentOctetIdx] = MIN_OCTET_VALUE;
-            }
-        }
 
-        return rawMask;
+    /** Создаёт "сырую" маску в виде упакованного 32-битного числа
+     *
+     */
+    private static int createRawMask(int maskLength) {
+        // Маска состоит из maskLength единиц в старших битах, остальные биты - нули
+        return maskLength == 0 ? 0 : -1 << (MAX_MASK_LENGTH - maskLength);
     }
 }
@@ -0,0 +1,179 @@
+import java.nio.IntBuffer;
+
+/** Пакетные операции над столбцами упакованных IP-адресов (int[] или IntBuffer)
+ *
+ *  Циклы написаны без ветвлений и вызовов, в виде, который JIT-компилятор HotSpot
+ *  автоматически векторизует (SIMD), поэтому объекты IpAddress не создаются вовсе.
+ */
+public final class IpAddressBatch {
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    private IpAddressBatch() {
+    }
+
+    /** Применяет маску к первым length адресам source и записывает результат в destination
+     *  (source и destination могут совпадать)
+     */
+    public static void applyMask(int[] source, int mask, int[] destination, int length) {
+        checkMask(mask);
+        checkLength(source.length, length);
+        checkLength(destination.length, length);
+
+        for (int i = 0; i < length; i++) {
+            destination[i] = source[i] & mask;
+        }
+    }
+
+    /** Применяет маску ко всем оставшимся адресам source и записывает результат в destination,
+     *  сдвигая позиции обоих буферов
+     */
+    public static void applyMask(IntBuffer source, int mask, IntBuffer destination) {
+        checkMask(mask);
+        int length = source.remaining();
+        checkLength(destination.remaining(), length);
+
+        if (source.hasArray() && destination.hasArray()) {
+            int[] from = source.array();
+            int[] to = destination.array();
+            int fromOffset = source.arrayOffset() + source.position();
+            int toOffset = destination.arrayOffset() + destination.position();
+            for (int i = 0; i < length; i++) {
+                to[toOffset + i] = from[fromOffset + i] & mask;
+            }
+        } else {
+            int fromPosition = source.position();
+            int toPosition = destination.position();
+            for (int i = 0; i < length; i++) {
+                destination.put(toPosition + i, source.get(fromPosition + i) & mask);
+            }
+        }
+
+        source.position(source.position() + length);
+        destination.position(destination.position() + length);
+    }
+
+    /** Проверяет принадлежность первых length адресов подсети и записывает результат в битовый набор:
+     *  бит i (бит i % 64 числа bitset[i / 64]) установлен, если адрес i принадлежит подсети.
+     *  Возвращает количество адресов, принадлежащих подсети
+     */
+    public static int belongsToSubnet(int[] addresses, int length, Subnet subnet, long[] bitset) {
+        return belongsToSubnet(addresses, 0, length, subnet.networkInt(), subnet.maskInt(), bitset);
+    }
+
+    /** Проверяет принадлежность первых length адресов сети, заданной упакованными адресом и маской
+     *
+     */
+    public static int belongsToSubnet(int[] addresses, int length, int network, int mask, long[] bitset) {
+        checkMask(mask);
+        return belongsToSubnet(addresses, 0, length, network & mask, mask, bitset);
+    }
+
+    /** Проверяет принадлежность всех оставшихся адресов буфера подсети, не сдвигая его позицию
+     *
+     */
+    public static int belongsToSubnet(IntBuffer addresses, Subnet subnet, long[] bitset) {
+        int length = addresses.remaining();
+        if (addresses.hasArray()) {
+            return belongsToSubnet(addresses.array(), addresses.arrayOffset() + addresses.position(), length,
+                    subnet.networkInt(), subnet.maskInt(), bitset);
+        }
+
+        checkLength(bitset.length * (long) BITS_PER_WORD, length);
+        int network = subnet.networkInt();
+        int mask = subnet.maskInt();
+        int position = addresses.position();
+        int matched = 0;
+
+        for (int word = 0; word * BITS_PER_WORD < length; word++) {
+            int base = word * BITS_PER_WORD;
+            int count = Math.min(BITS_PER_WORD, length - base);
+            long bits = 0;
+            for (int j = 0; j < count; j++) {
+                bits |= (long) matchBit(addresses.get(position + base + j), network, mask) << j;
+            }
+            bitset[word] = bits;
+            matched += Long.bitCount(bits);
+        }
+
+        return matched;
+    }
+
+    /** Переводит первые length адресов в числа long без знака
+     *
+     */
+    public static void toLong(int[] addresses, long[] destination, int length) {
+        checkLength(addresses.length, length);
+        checkLength(destination.length, length);
+
+        for (int i = 0; i < length; i++) {
+            destination[i] = addresses[i] & 0xFFFFFFFFL;
+        }
+    }
+
+    /** Переводит все оставшиеся адреса буфера в числа long без знака, сдвигая позицию буфера
+     *
+     */
+    public static void toLong(IntBuffer addresses, long[] destination) {
+        int length = addresses.remaining();
+        checkLength(destination.length, length);
+
+        int position = addresses.position();
+        for (int i = 0; i < length; i++) {
+            destination[i] = addresses.get(position + i) & 0xFFFFFFFFL;
+        }
+
+        addresses.position(position + length);
+    }
+
+
+    private static int belongsToSubnet(int[] addresses, int offset, int length, int network, int mask, long[] bitset) {
+        checkLength(addresses.length - (long) offset, length);
+        checkLength(bitset.length * (long) BITS_PER_WORD, length);
+
+        int matched = 0;
+        int fullWords = length / BITS_PER_WORD;
+
+        // Полные слова битового набора: внутренний цикл фиксированной длины без ветвлений
+        for (int word = 0; word < fullWords; word++) {
+            int base = offset + word * BITS_PER_WORD;
+            long bits = 0;
+            for (int j = 0; j < BITS_PER_WORD; j++) {
+                bits |= (long) matchBit(addresses[base + j], network, mask) << j;
+            }
+            bitset[word] = bits;
+            matched += Long.bitCount(bits);
+        }
+
+        // Хвост, не заполняющий слово целиком
+        int tail = length - fullWords * BITS_PER_WORD;
+        if (tail > 0) {
+            int base = offset + fullWords * BITS_PER_WORD;
+            long bits = 0;
+            for (int j = 0; j < tail; j++) {
+                bits |= (long) matchBit(addresses[base + j], network, mask) << j;
+            }
+            bitset[fullWords] = bits;
+            matched += Long.bitCount(bits);
+        }
+
+        return matched;
+    }
+
+    /** Возвращает 1, если адрес принадлежит сети, иначе 0 (без условных переходов)
+     *
+     */
+    private static int matchBit(int address, int network, int mask) {
+        int difference = (address & mask) ^ network;
+        return ((difference | -difference) >>> 31) ^ 1;
+    }
+
+    private static void checkMask(int mask) {
+        IpAddress.validateMask(mask).throwIfError();
+    }
+
+    private static void checkLength(long capacity, int length) {
+        if (length < 0 || length > capacity) {
+            throw new IllegalArgumentException(String.format("Batch length must be in range [0..%d]", capacity));
+        }
+    }
+}
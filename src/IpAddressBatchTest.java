@@ -0,0 +1,114 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class IpAddressBatchTest {
+
+    static int[] randomAddresses(int length, Subnet subnet) {
+        Random random = new Random(length);
+        int[] addresses = new int[length];
+        for (int i = 0; i < length; i++) {
+            addresses[i] = random.nextInt();
+            // Примерно треть адресов попадает в подсеть
+            if (random.nextInt(3) == 0) {
+                addresses[i] = subnet.networkInt() | (addresses[i] & ~subnet.maskInt());
+            }
+        }
+
+        return addresses;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testBatchProvider")
+    @DisplayName("Пакетное применение маски совпадает с applyMask")
+    void testApplyMask(int length, Subnet subnet) {
+        int[] addresses = randomAddresses(length, subnet);
+        int[] masked = new int[length];
+
+        IpAddressBatch.applyMask(addresses, subnet.maskInt(), masked, length);
+
+        IntBuffer direct = ByteBuffer.allocateDirect(length * Integer.BYTES).asIntBuffer();
+        IpAddressBatch.applyMask(IntBuffer.wrap(addresses), subnet.maskInt(), direct);
+        assertEquals(direct.position(), length);
+
+        for (int i = 0; i < length; i++) {
+            int expected = IpAddress.fromInt(addresses[i]).applyMask(subnet.mask()).toInt();
+            assertEquals(masked[i], expected);
+            assertEquals(direct.get(i), expected);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testBatchProvider")
+    @DisplayName("Пакетная проверка принадлежности подсети совпадает с belongsToSubnet")
+    void testBelongsToSubnet(int length, Subnet subnet) {
+        int[] addresses = randomAddresses(length, subnet);
+        long[] bitset = new long[(length + 63) / 64];
+        long[] bufferBitset = new long[(length + 63) / 64];
+
+        int matched = IpAddressBatch.belongsToSubnet(addresses, length, subnet, bitset);
+
+        IntBuffer direct = ByteBuffer.allocateDirect(length * Integer.BYTES).asIntBuffer();
+        direct.put(addresses).flip();
+        assertEquals(IpAddressBatch.belongsToSubnet(direct, subnet, bufferBitset), matched);
+        assertArrayEquals(bufferBitset, bitset);
+
+        int expectedMatched = 0;
+        for (int i = 0; i < length; i++) {
+            boolean expected = IpAddress.fromInt(addresses[i]).belongsToSubnet(subnet.network(), subnet.mask());
+            assertEquals((bitset[i / 64] >>> i & 1) == 1, expected);
+            expectedMatched += expected ? 1 : 0;
+        }
+        assertEquals(matched, expectedMatched);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testBatchProvider")
+    @DisplayName("Пакетный перевод адресов в числа совпадает с toLong")
+    void testToLong(int length, Subnet subnet) {
+        int[] addresses = randomAddresses(length, subnet);
+        long[] values = new long[length];
+
+        IpAddressBatch.toLong(addresses, values, length);
+
+        for (int i = 0; i < length; i++) {
+            assertEquals(values[i], IpAddress.fromInt(addresses[i]).toLong());
+        }
+    }
+
+    static Stream<Arguments> testBatchProvider() {
+        return Stream.of(
+                arguments(0, Subnet.parse("10.0.0.0/8")),
+                arguments(63, Subnet.parse("192.168.0.0/16")),
+                arguments(64, Subnet.parse("0.0.0.0/0")),
+                arguments(65_536 + 17, Subnet.parse("172.16.5.0/24")),
+                arguments(1000, Subnet.parse("200.1.2.3/32"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidBatchProvider")
+    @DisplayName("Исключение при неправильной маске или длине пакета")
+    void testInvalidBatch(int mask, int length) {
+        assertThrows(IllegalArgumentException.class, () -> {
+            IpAddressBatch.applyMask(new int[16], mask, new int[16], length);
+        });
+    }
+
+    static Stream<Arguments> testInvalidBatchProvider() {
+        return Stream.of(
+                arguments(0xFF00FF00, 16),
+                arguments(0xFFFFFF00, 17),
+                arguments(0xFFFFFF00, -1)
+        );
+    }
+}
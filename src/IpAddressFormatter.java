@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Форматирование IP-адреса в запись вида "a.b.c.d" без String.format и упаковки чисел
+ *
+ *  Текстовые представления всех 256 значений октета вычисляются заранее, поэтому
+ *  запись адреса сводится к копированию четырёх готовых фрагментов.
+ */
+public final class IpAddressFormatter {
+    /** Максимальная длина записи IP-адреса ("255.255.255.255") */
+    public static final int MAX_LENGTH = 15;
+
+    private static final int OCTETS_COUNT = 4;
+    private static final int OCTET_LENGTH = 8;
+    private static final int OCTET_VALUES_COUNT = 256;
+    private static final char SEPARATOR = '.';
+
+    private static final String[] OCTET_STRINGS = new String[OCTET_VALUES_COUNT];
+    private static final byte[][] OCTET_BYTES = new byte[OCTET_VALUES_COUNT][];
+
+    static {
+        for (int octet = 0; octet < OCTET_VALUES_COUNT; octet++) {
+            OCTET_STRINGS[octet] = Integer.toString(octet);
+
+            byte[] bytes = new byte[OCTET_STRINGS[octet].length()];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) OCTET_STRINGS[octet].charAt(i);
+            }
+            OCTET_BYTES[octet] = bytes;
+        }
+    }
+
+    private IpAddressFormatter() {
+    }
+
+    /** Создаёт строковое представление упакованного IP-адреса
+     *
+     */
+    public static String toString(int address) {
+        return appendTo(address, new StringBuilder(MAX_LENGTH)).toString();
+    }
+
+    /** Дописывает упакованный IP-адрес в конец StringBuilder
+     *
+     */
+    public static StringBuilder appendTo(int address, StringBuilder builder) {
+        for (int i = 0; i < OCTETS_COUNT; i++) {
+            if (i != 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(OCTET_STRINGS[octet(address, i)]);
+        }
+
+        return builder;
+    }
+
+    /** Дописывает упакованный IP-адрес в произвольный Appendable (Writer, CharBuffer и т.д.)
+     *
+     */
+    public static <T extends Appendable> T appendTo(int address, T appendable) throws IOException {
+        for (int i = 0; i < OCTETS_COUNT; i++) {
+            if (i != 0) {
+                appendable.append(SEPARATOR);
+            }
+            appendable.append(OCTET_STRINGS[octet(address, i)]);
+        }
+
+        return appendable;
+    }
+
+    /** Записывает упакованный IP-адрес ASCII-символами в буфер начиная с его текущей позиции
+     *
+     */
+    public static ByteBuffer writeTo(int address, ByteBuffer buffer) {
+        for (int i = 0; i < OCTETS_COUNT; i++) {
+            if (i != 0) {
+                buffer.put((byte) SEPARATOR);
+            }
+            buffer.put(OCTET_BYTES[octet(address, i)]);
+        }
+
+        return buffer;
+    }
+
+    /** Возвращает длину записи упакованного IP-адреса в символах
+     *
+     */
+    public static int length(int address) {
+        int length = OCTETS_COUNT - 1;
+        for (int i = 0; i < OCTETS_COUNT; i++) {
+            length += OCTET_BYTES[octet(address, i)].length;
+        }
+
+        return length;
+    }
+
+
+    /** Возвращает октет с заданным номером (начиная со старшего) из упакованного IP-адреса
+     *
+     */
+    private static int octet(int address, int index) {
+        return (address >>> OCTET_LENGTH * (OCTETS_COUNT - index - 1)) & (OCTET_VALUES_COUNT - 1);
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class IpAddressFormatterTest {
+
+    @ParameterizedTest
+    @MethodSource("testFormatProvider")
+    @DisplayName("Запись IP-адреса в StringBuilder, Appendable и ByteBuffer")
+    void testFormat(IpAddress address, String strAddress) throws IOException {
+        assertEquals(address.appendTo(new StringBuilder("ip=")).toString(), "ip=" + strAddress);
+
+        assertEquals(IpAddressFormatter.appendTo(address.toInt(), new StringWriter()).toString(), strAddress);
+
+        ByteBuffer buffer = ByteBuffer.allocate(IpAddressFormatter.MAX_LENGTH + 1);
+        address.writeTo(buffer).put((byte) '\n');
+        assertEquals(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII), strAddress + "\n");
+
+        assertEquals(IpAddressFormatter.length(address.toInt()), strAddress.length());
+    }
+
+    static Stream<Arguments> testFormatProvider() {
+        return Stream.of(
+                arguments(new IpAddress(new int[]{ 127, 0, 0, 1 }), "127.0.0.1"),
+                arguments(new IpAddress(new int[]{ 0, 0, 0, 0 }), "0.0.0.0"),
+                arguments(new IpAddress(new int[]{ 255, 255, 255, 255 }), "255.255.255.255"),
+                arguments(new IpAddress(new int[]{ 10, 99, 100, 9 }), "10.99.100.9")
+        );
+    }
+}
@@ -0,0 +1,206 @@
+import java.nio.IntBuffer;
+
+/** Основа хеш-таблиц с открытой адресацией, ключами которых являются упакованные IP-адреса
+ *
+ *  Ключи хранятся в одном массиве int (в куче или вне её), объекты на каждый элемент не создаются.
+ *  Используется линейное пробирование, а при удалении элементы сдвигаются назад, поэтому "надгробий" нет.
+ *  Значение 0 отмечает свободную ячейку, а адрес 0.0.0.0 хранится отдельно от массива.
+ */
+abstract class IpAddressHashTable {
+    private static final int MIN_CAPACITY = 16;
+    // Ограничено размером ByteBuffer (менее 2^31 байт) для значений типа long вне кучи
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final double LOAD_FACTOR = 0.75;
+
+    protected static final int EMPTY = 0;
+
+    protected final boolean _offHeap;
+    protected IntBuffer _keys;
+    protected int _capacity;
+    // Количество ключей в массиве (без учёта адреса 0.0.0.0)
+    protected int _size;
+    protected boolean _hasZeroKey;
+    private int _threshold;
+
+    IpAddressHashTable(int expectedSize, boolean offHeap) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+
+        this._offHeap = offHeap;
+        this._capacity = capacityFor(expectedSize);
+        this._keys = PrimitiveBuffers.allocateInts(this._capacity, offHeap);
+        this._threshold = (int) (this._capacity * LOAD_FACTOR);
+    }
+
+    /** Возвращает количество элементов
+     *
+     */
+    public int size() {
+        return this._size + (this._hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Проверяет, хранятся ли данные вне кучи
+     *
+     */
+    public boolean isOffHeap() {
+        return this._offHeap;
+    }
+
+
+    /** Возвращает номер ячейки с заданным (ненулевым) ключом или -1, если ключа нет
+     *
+     */
+    protected final int slotOf(int key) {
+        int mask = this._capacity - 1;
+        int slot = IpAddress.hash(key) & mask;
+
+        while (true) {
+            int current = this._keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Находит ячейку с заданным (ненулевым) ключом, при необходимости добавляя его.
+     *  Для нового ключа возвращается (-slot - 1)
+     */
+    protected final int insertSlot(int key) {
+        int mask = this._capacity - 1;
+        int slot = IpAddress.hash(key) & mask;
+
+        while (true) {
+            int current = this._keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                if (this._size >= this._threshold) {
+                    grow();
+                    return insertSlot(key);
+                }
+
+                this._keys.put(slot, key);
+                this._size++;
+                return -slot - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Освобождает ячейку, сдвигая назад следующие за ней ключи той же цепочки
+     *
+     */
+    protected final void deleteSlot(int slot) {
+        int mask = this._capacity - 1;
+        int gap = slot;
+        int next = slot;
+
+        while (true) {
+            next = (next + 1) & mask;
+            int key = this._keys.get(next);
+            if (key == EMPTY) {
+                break;
+            }
+
+            // Ключ переносится в освободившуюся ячейку, если она лежит между его исходной ячейкой и текущей
+            int ideal = IpAddress.hash(key) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                this._keys.put(gap, key);
+                moveValue(next, gap);
+                gap = next;
+            }
+        }
+
+        this._keys.put(gap, EMPTY);
+        clearValue(gap);
+        this._size--;
+    }
+
+    /** Удаляет все ключи, сохраняя ёмкость таблицы
+     *
+     */
+    protected void clearKeys() {
+        for (int slot = 0; slot < this._capacity; slot++) {
+            this._keys.put(slot, EMPTY);
+        }
+        this._size = 0;
+        this._hasZeroKey = false;
+    }
+
+    /** Вызывается перед перестроением таблицы: наследник выделяет хранилище значений новой ёмкости */
+    protected void beginResize(int capacity) {
+    }
+
+    /** Переносит значение из ячейки старого хранилища в ячейку нового */
+    protected void relocateValue(int from, int to) {
+    }
+
+    /** Вызывается после перестроения таблицы: новое хранилище значений становится текущим */
+    protected void endResize() {
+    }
+
+    /** Переносит значение между ячейками текущего хранилища */
+    protected void moveValue(int from, int to) {
+    }
+
+    /** Очищает значение в ячейке, чтобы не удерживать ссылки */
+    protected void clearValue(int slot) {
+    }
+
+
+    private void grow() {
+        if (this._capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException(String.format("Table cannot hold more than %d addresses",
+                    this._threshold));
+        }
+
+        int capacity = this._capacity * 2;
+        int mask = capacity - 1;
+        IntBuffer keys = PrimitiveBuffers.allocateInts(capacity, this._offHeap);
+        beginResize(capacity);
+
+        for (int from = 0; from < this._capacity; from++) {
+            int key = this._keys.get(from);
+            if (key == EMPTY) {
+                continue;
+            }
+
+            int to = IpAddress.hash(key) & mask;
+            while (keys.get(to) != EMPTY) {
+                to = (to + 1) & mask;
+            }
+            keys.put(to, key);
+            relocateValue(from, to);
+        }
+
+        this._keys = keys;
+        this._capacity = capacity;
+        this._threshold = (int) (capacity * LOAD_FACTOR);
+        endResize();
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long required = (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+        if (required > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Expected size must not exceed %d",
+                    (int) (MAX_CAPACITY * LOAD_FACTOR)));
+        }
+
+        int capacity = MIN_CAPACITY;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.Arrays;
+
+/** Отображение IP-адресов в значения без объектов-обёрток для ключей
+ *
+ *  Ключи хранятся в упакованном виде в хеш-таблице с открытой адресацией, значения - в параллельном массиве.
+ */
+public class IpAddressMap<V> extends IpAddressHashTable {
+
+    /** Получатель пар "упакованный адрес - значение" при переборе */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int address, V value);
+    }
+
+    private Object[] _values;
+    private Object[] _resizedValues;
+    private V _zeroKeyValue;
+
+    public IpAddressMap() {
+        this(0);
+    }
+
+    public IpAddressMap(int expectedSize) {
+        super(expectedSize, false);
+        this._values = new Object[this._capacity];
+    }
+
+    /** Связывает значение с IP-адресом; возвращает прежнее значение или null
+     *
+     */
+    public V put(IpAddress address, V value) {
+        return put(address.toInt(), value);
+    }
+
+    public V put(int address, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+
+        if (address == EMPTY) {
+            V previous = this._zeroKeyValue;
+            this._zeroKeyValue = value;
+            this._hasZeroKey = true;
+            return previous;
+        }
+
+        int slot = insertSlot(address);
+        if (slot < 0) {
+            this._values[-slot - 1] = value;
+            return null;
+        }
+
+        V previous = valueAt(slot);
+        this._values[slot] = value;
+        return previous;
+    }
+
+    /** Возвращает значение, связанное с IP-адресом, или null
+     *
+     */
+    public V get(IpAddress address) {
+        return get(address.toInt());
+    }
+
+    public V get(int address) {
+        if (address == EMPTY) {
+            return this._zeroKeyValue;
+        }
+
+        int slot = slotOf(address);
+        return slot < 0 ? null : valueAt(slot);
+    }
+
+    public boolean containsKey(IpAddress address) {
+        return containsKey(address.toInt());
+    }
+
+    public boolean containsKey(int address) {
+        return address == EMPTY ? this._hasZeroKey : slotOf(address) >= 0;
+    }
+
+    /** Удаляет IP-адрес; возвращает связанное с ним значение или null
+     *
+     */
+    public V remove(IpAddress address) {
+        return remove(address.toInt());
+    }
+
+    public V remove(int address) {
+        if (address == EMPTY) {
+            V previous = this._zeroKeyValue;
+            this._zeroKeyValue = null;
+            this._hasZeroKey = false;
+            return previous;
+        }
+
+        int slot = slotOf(address);
+        if (slot < 0) {
+            return null;
+        }
+
+        V previous = valueAt(slot);
+        deleteSlot(slot);
+        return previous;
+    }
+
+    /** Удаляет все элементы
+     *
+     */
+    public void clear() {
+        clearKeys();
+        Arrays.fill(this._values, null);
+        this._zeroKeyValue = null;
+    }
+
+    /** Передаёт каждую пару "адрес - значение" в action (порядок не определён)
+     *
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        if (this._hasZeroKey) {
+            action.accept(EMPTY, this._zeroKeyValue);
+        }
+
+        for (int slot = 0; slot < this._capacity; slot++) {
+            int key = this._keys.get(slot);
+            if (key != EMPTY) {
+                action.accept(key, valueAt(slot));
+            }
+        }
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) this._values[slot];
+    }
+
+    @Override
+    protected void beginResize(int capacity) {
+        this._resizedValues = new Object[capacity];
+    }
+
+    @Override
+    protected void relocateValue(int from, int to) {
+        this._resizedValues[to] = this._values[from];
+    }
+
+    @Override
+    protected void endResize() {
+        this._values = this._resizedValues;
+        this._resizedValues = null;
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        this._values[to] = this._values[from];
+    }
+
+    @Override
+    protected void clearValue(int slot) {
+        this._values[slot] = null;
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class IpAddressMapTest {
+
+    @Test
+    @DisplayName("Значения, связанные с IP-адресами")
+    void testPutGetRemove() {
+        IpAddressMap<String> map = new IpAddressMap<>();
+
+        assertNull(map.put(IpAddress.localHost(), "localhost"));
+        assertNull(map.put(IpAddress.defaultRoute(), "default"));
+        assertEquals(map.put(IpAddress.localHost(), "loopback"), "localhost");
+
+        assertEquals(map.get(new IpAddress(new int[]{ 127, 0, 0, 1 })), "loopback");
+        assertEquals(map.get(IpAddress.defaultRoute()), "default");
+        assertNull(map.get(IpAddress.limitedBroadcast()));
+        assertEquals(map.size(), 2);
+
+        assertEquals(map.remove(IpAddress.defaultRoute()), "default");
+        assertFalse(map.containsKey(IpAddress.defaultRoute()));
+        assertEquals(map.size(), 1);
+    }
+
+    @Test
+    @DisplayName("Совпадение с HashMap на случайных операциях")
+    void testMatchesHashMap() {
+        Random random = new Random(11);
+        IpAddressMap<Integer> map = new IpAddressMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            int address = random.nextInt(50_000) * 0x01000193;
+            if (random.nextInt(3) == 0) {
+                assertEquals(map.remove(address), expected.remove(address));
+            } else {
+                assertEquals(map.put(address, i), expected.put(address, i));
+            }
+        }
+
+        assertEquals(map.size(), expected.size());
+        Map<Integer, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(iterated, expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testToLongMapProvider")
+    @DisplayName("Счётчики по IP-адресам без упаковки значений")
+    void testToLongMap(IpAddressToLongMap map) {
+        Random random = new Random(13);
+        Map<Integer, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            int address = random.nextInt(20_000) << 8;
+            if (random.nextInt(5) == 0) {
+                assertEquals(map.remove(address), expected.getOrDefault(address, 0L));
+                expected.remove(address);
+            } else {
+                assertEquals(map.addTo(address, i), (long) expected.merge(address, (long) i, Long::sum));
+            }
+        }
+
+        assertEquals(map.size(), expected.size());
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            assertEquals(map.get(entry.getKey()), (long) entry.getValue());
+        }
+        assertEquals(map.getOrDefault(IpAddress.limitedBroadcast(), -1L), -1L);
+    }
+
+    static Stream<Arguments> testToLongMapProvider() {
+        return Stream.of(
+                arguments(new IpAddressToLongMap()),
+                arguments(IpAddressToLongMap.offHeap(100))
+        );
+    }
+}
@@ -0,0 +1,198 @@
+import java.nio.ByteBuffer;
+
+/** Разбор текстовой записи IP-адреса вида "a.b.c.d" и "a.b.c.d/len" без создания промежуточных объектов
+ *
+ *  Методы tryParse не бросают исключений: результат разбора упаковывается в одно число типа long,
+ *  в младших 32 битах которого находится адрес, а в следующих битах - длина префикса
+ *  (для записи без префикса длина считается равной 32). При ошибке возвращается {@link #INVALID}.
+ */
+public final class IpAddressParser {
+    /** Результат разбора неправильной записи */
+    public static final long INVALID = -1L;
+
+    private static final int MAX_OCTET_VALUE = 255;
+    private static final int MAX_PREFIX_LENGTH = 32;
+    private static final int MAX_DIGITS = 3;
+    private static final int DOTS_COUNT = 3;
+
+    // Раскладка состояния автомата разбора внутри одного числа long
+    private static final int VALUE_SHIFT = 32;
+    private static final long VALUE_MASK = 0x1FFL;
+    private static final int DIGITS_SHIFT = 41;
+    private static final long DIGITS_MASK = 0x3L;
+    private static final int DOTS_SHIFT = 43;
+    private static final long DOTS_MASK = 0x3L;
+    private static final long IN_PREFIX = 1L << 45;
+    private static final long ADDRESS_MASK = 0xFFFFFFFFL;
+
+    private IpAddressParser() {
+    }
+
+    /** Разбирает запись IP-адреса без префикса, бросая исключение при ошибке
+     *
+     */
+    public static IpAddress parse(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("IP address text cannot be null");
+        }
+
+        long parsed = tryParse(text, 0, text.length());
+        if (parsed == INVALID || hasPrefix(text, 0, text.length())) {
+            throw new IllegalArgumentException(String.format("Invalid IP address: %s", text));
+        }
+
+        return IpAddress.fromInt(address(parsed));
+    }
+
+    /** Разбирает запись вида "a.b.c.d" или "a.b.c.d/len" из последовательности символов
+     *
+     */
+    public static long tryParse(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+
+        return tryParse(text, 0, text.length());
+    }
+
+    /** Разбирает запись, занимающую символы [start, end) последовательности
+     *
+     */
+    public static long tryParse(CharSequence text, int start, int end) {
+        long state = 0;
+        for (int i = start; i < end; i++) {
+            state = step(state, text.charAt(i));
+            if (state == INVALID) {
+                return INVALID;
+            }
+        }
+
+        return finish(state);
+    }
+
+    /** Разбирает запись, записанную ASCII-символами в срезе массива байтов
+     *
+     */
+    public static long tryParse(byte[] bytes, int offset, int length) {
+        long state = 0;
+        for (int i = offset; i < offset + length; i++) {
+            state = step(state, (char) (bytes[i] & 0xFF));
+            if (state == INVALID) {
+                return INVALID;
+            }
+        }
+
+        return finish(state);
+    }
+
+    /** Разбирает запись между текущей позицией и границей буфера, не изменяя его позицию
+     *
+     */
+    public static long tryParse(ByteBuffer buffer) {
+        return tryParse(buffer, buffer.position(), buffer.limit());
+    }
+
+    /** Разбирает запись, занимающую байты [start, end) буфера (абсолютные индексы)
+     *
+     */
+    public static long tryParse(ByteBuffer buffer, int start, int end) {
+        long state = 0;
+        for (int i = start; i < end; i++) {
+            state = step(state, (char) (buffer.get(i) & 0xFF));
+            if (state == INVALID) {
+                return INVALID;
+            }
+        }
+
+        return finish(state);
+    }
+
+    /** Извлекает упакованный IP-адрес из результата разбора
+     *
+     */
+    public static int address(long parsed) {
+        return (int) parsed;
+    }
+
+    /** Извлекает длину префикса из результата разбора
+     *
+     */
+    public static int prefixLength(long parsed) {
+        return (int) (parsed >>> VALUE_SHIFT);
+    }
+
+
+    /** Обрабатывает очередной символ записи и возвращает новое состояние автомата
+     *
+     */
+    private static long step(long state, char c) {
+        long value = (state >>> VALUE_SHIFT) & VALUE_MASK;
+        long digits = (state >>> DIGITS_SHIFT) & DIGITS_MASK;
+        long dots = (state >>> DOTS_SHIFT) & DOTS_MASK;
+        boolean inPrefix = (state & IN_PREFIX) != 0;
+
+        if (c >= '0' && c <= '9') {
+            // Не более трёх цифр в числе и без ведущих нулей
+            if (digits == MAX_DIGITS || (digits != 0 && value == 0)) {
+                return INVALID;
+            }
+
+            value = value * 10 + (c - '0');
+            if (value > (inPrefix ? MAX_PREFIX_LENGTH : MAX_OCTET_VALUE)) {
+                return INVALID;
+            }
+
+            return (state & ~(VALUE_MASK << VALUE_SHIFT) & ~(DIGITS_MASK << DIGITS_SHIFT))
+                    | (value << VALUE_SHIFT)
+                    | ((digits + 1) << DIGITS_SHIFT);
+        }
+
+        // Разделитель допустим только сразу после числа
+        if (digits == 0 || inPrefix) {
+            return INVALID;
+        }
+
+        long address = ((state << 8) | value) & ADDRESS_MASK;
+        if (c == '.' && dots < DOTS_COUNT) {
+            return address | ((dots + 1) << DOTS_SHIFT);
+        }
+
+        if (c == '/' && dots == DOTS_COUNT) {
+            return address | (dots << DOTS_SHIFT) | IN_PREFIX;
+        }
+
+        return INVALID;
+    }
+
+    /** Завершает разбор и упаковывает адрес вместе с длиной префикса
+     *
+     */
+    private static long finish(long state) {
+        long value = (state >>> VALUE_SHIFT) & VALUE_MASK;
+        long digits = (state >>> DIGITS_SHIFT) & DIGITS_MASK;
+        long dots = (state >>> DOTS_SHIFT) & DOTS_MASK;
+
+        if (digits == 0 || dots != DOTS_COUNT) {
+            return INVALID;
+        }
+
+        if ((state & IN_PREFIX) != 0) {
+            return ((long) (int) value << VALUE_SHIFT) | (state & ADDRESS_MASK);
+        }
+
+        return ((long) MAX_PREFIX_LENGTH << VALUE_SHIFT) | (((state << 8) | value) & ADDRESS_MASK);
+    }
+
+    /** Проверяет, содержит ли запись явно указанный префикс
+     *
+     */
+    private static boolean hasPrefix(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '/') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class IpAddressParserTest {
+
+    @ParameterizedTest
+    @MethodSource("testParseProvider")
+    @DisplayName("Разбор текстовой записи IP-адреса")
+    void testParse(String text, IpAddress address, int prefixLength) {
+        long parsed = IpAddressParser.tryParse(text);
+
+        assertEquals(IpAddress.fromInt(IpAddressParser.address(parsed)), address);
+        assertEquals(IpAddressParser.prefixLength(parsed), prefixLength);
+    }
+
+    static Stream<Arguments> testParseProvider() {
+        return Stream.of(
+                arguments("127.0.0.1", new IpAddress(new int[]{ 127, 0, 0, 1 }), 32),
+                arguments("0.0.0.0", new IpAddress(new int[]{ 0, 0, 0, 0 }), 32),
+                arguments("255.255.255.255", new IpAddress(new int[]{ 255, 255, 255, 255 }), 32),
+                arguments("192.168.0.0/16", new IpAddress(new int[]{ 192, 168, 0, 0 }), 16),
+                arguments("10.1.2.3/0", new IpAddress(new int[]{ 10, 1, 2, 3 }), 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testParseSourcesProvider")
+    @DisplayName("Разбор IP-адреса из массива байтов и буфера")
+    void testParseSources(String line, int start, int end, IpAddress address) {
+        byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        assertEquals(IpAddressParser.tryParse(line, start, end), address.toLong() | (32L << 32));
+        assertEquals(IpAddressParser.tryParse(bytes, start, end - start), address.toLong() | (32L << 32));
+        assertEquals(IpAddressParser.tryParse(buffer, start, end), address.toLong() | (32L << 32));
+
+        assertEquals(buffer.position(), 0);
+    }
+
+    static Stream<Arguments> testParseSourcesProvider() {
+        return Stream.of(
+                arguments("10.0.0.1 - - GET /", 0, 8, new IpAddress(new int[]{ 10, 0, 0, 1 })),
+                arguments("client=172.16.254.3;", 7, 19, new IpAddress(new int[]{ 172, 16, 254, 3 }))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidTextProvider")
+    @DisplayName("Неправильная текстовая запись IP-адреса")
+    void testInvalidText(String text) {
+        assertEquals(IpAddressParser.tryParse(text), IpAddressParser.INVALID);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            IpAddress.parse(text);
+        });
+    }
+
+    static Stream<String> testInvalidTextProvider() {
+        return Stream.of(
+                "",
+                "127.0.0",
+                "127.0.0.1.",
+                "127.0.0.1.5",
+                "256.0.0.1",
+                "1..2.3",
+                "01.2.3.4",
+                "1234.2.3.4",
+                "1.2.3.4/33",
+                "1.2.3.4/",
+                "1.2.3/24",
+                "1.2.3.4/24/2",
+                " 1.2.3.4",
+                "a.b.c.d",
+                null
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testParseRejectsPrefixProvider")
+    @DisplayName("Разбор IP-адреса не допускает префикса")
+    void testParseRejectsPrefix(String text) {
+        assertNotEquals(IpAddressParser.tryParse(text), IpAddressParser.INVALID);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            IpAddress.parse(text);
+        });
+    }
+
+    static Stream<String> testParseRejectsPrefixProvider() {
+        return Stream.of("10.0.0.0/8", "1.2.3.4/32");
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.function.IntConsumer;
+
+/** Множество IP-адресов без объектов на каждый элемент
+ *
+ *  Адреса хранятся в упакованном виде в хеш-таблице с открытой адресацией;
+ *  при создании через {@link #offHeap(int)} таблица размещается вне кучи и не нагружает сборщик мусора.
+ */
+public class IpAddressSet extends IpAddressHashTable {
+
+    public IpAddressSet() {
+        this(0);
+    }
+
+    public IpAddressSet(int expectedSize) {
+        super(expectedSize, false);
+    }
+
+    private IpAddressSet(int expectedSize, boolean offHeap) {
+        super(expectedSize, offHeap);
+    }
+
+    /** Создаёт множество, таблица которого размещается вне кучи
+     *
+     */
+    public static IpAddressSet offHeap(int expectedSize) {
+        return new IpAddressSet(expectedSize, true);
+    }
+
+    /** Добавляет IP-адрес; возвращает false, если он уже был в множестве
+     *
+     */
+    public boolean add(IpAddress address) {
+        return add(address.toInt());
+    }
+
+    public boolean add(int address) {
+        if (address == EMPTY) {
+            boolean added = !this._hasZeroKey;
+            this._hasZeroKey = true;
+            return added;
+        }
+
+        return insertSlot(address) < 0;
+    }
+
+    /** Проверяет наличие IP-адреса в множестве
+     *
+     */
+    public boolean contains(IpAddress address) {
+        return contains(address.toInt());
+    }
+
+    public boolean contains(int address) {
+        if (address == EMPTY) {
+            return this._hasZeroKey;
+        }
+
+        return slotOf(address) >= 0;
+    }
+
+    /** Удаляет IP-адрес; возвращает false, если его не было в множестве
+     *
+     */
+    public boolean remove(IpAddress address) {
+        return remove(address.toInt());
+    }
+
+    public boolean remove(int address) {
+        if (address == EMPTY) {
+            boolean removed = this._hasZeroKey;
+            this._hasZeroKey = false;
+            return removed;
+        }
+
+        int slot = slotOf(address);
+        if (slot < 0) {
+            return false;
+        }
+
+        deleteSlot(slot);
+        return true;
+    }
+
+    /** Удаляет все адреса
+     *
+     */
+    public void clear() {
+        clearKeys();
+    }
+
+    /** Передаёт каждый упакованный адрес множества в action (порядок не определён)
+     *
+     */
+    public void forEach(IntConsumer action) {
+        if (this._hasZeroKey) {
+            action.accept(EMPTY);
+        }
+
+        for (int slot = 0; slot < this._capacity; slot++) {
+            int key = this._keys.get(slot);
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class IpAddressSetTest {
+
+    @ParameterizedTest
+    @MethodSource("testAddContainsRemoveProvider")
+    @DisplayName("Добавление, поиск и удаление IP-адресов")
+    void testAddContainsRemove(IpAddressSet set) {
+        assertTrue(set.add(IpAddress.localHost()));
+        assertTrue(set.add(IpAddress.defaultRoute()));
+        assertFalse(set.add(new IpAddress(new int[]{ 127, 0, 0, 1 })));
+
+        assertTrue(set.contains(IpAddress.localHost()));
+        assertTrue(set.contains(IpAddress.defaultRoute()));
+        assertFalse(set.contains(IpAddress.limitedBroadcast()));
+        assertEquals(set.size(), 2);
+
+        assertTrue(set.remove(IpAddress.defaultRoute()));
+        assertFalse(set.remove(IpAddress.defaultRoute()));
+        assertFalse(set.contains(IpAddress.defaultRoute()));
+        assertEquals(set.size(), 1);
+    }
+
+    static Stream<Arguments> testAddContainsRemoveProvider() {
+        return Stream.of(
+                arguments(new IpAddressSet()),
+                arguments(IpAddressSet.offHeap(0))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testMatchesHashSetProvider")
+    @DisplayName("Совпадение с HashSet на случайных операциях")
+    void testMatchesHashSet(IpAddressSet set, int bound) {
+        Random random = new Random(7);
+        Set<IpAddress> expected = new HashSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            IpAddress address = IpAddress.fromInt(random.nextInt(bound));
+            if (random.nextInt(3) == 0) {
+                assertEquals(set.remove(address), expected.remove(address));
+            } else {
+                assertEquals(set.add(address), expected.add(address));
+            }
+        }
+
+        assertEquals(set.size(), expected.size());
+        for (IpAddress address : expected) {
+            assertTrue(set.contains(address));
+        }
+
+        Set<IpAddress> iterated = new HashSet<>();
+        set.forEach(address -> iterated.add(IpAddress.fromInt(address)));
+        assertEquals(iterated, expected);
+    }
+
+    static Stream<Arguments> testMatchesHashSetProvider() {
+        return Stream.of(
+                arguments(new IpAddressSet(), 50_000),
+                arguments(IpAddressSet.offHeap(16), 50_000),
+                arguments(new IpAddressSet(1000), Integer.MAX_VALUE)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testHashCodeProvider")
+    @DisplayName("Равные IP-адреса имеют равные хеш-коды")
+    void testHashCode(IpAddress first, IpAddress second) {
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    static Stream<Arguments> testHashCodeProvider() {
+        return Stream.of(
+                arguments(IpAddress.localHost(), new IpAddress(new int[]{ 127, 0, 0, 1 })),
+                arguments(new IpAddress(24), new IpAddress(new int[]{ 255, 255, 255, 0 }))
+        );
+    }
+}
@@ -361,4 +361,216 @@ class IpAddressTest {
                 )
         );
     }
+
+    @ParameterizedTest
+    @MethodSource("testToIntProvider")
+    @DisplayName("Упакованное 32-битное представление IP-адреса")
+    void testToInt(IpAddress address, int packedAddress) {
+        assertEquals(address.toInt(), packedAddress);
+
+        assertEquals(IpAddress.fromInt(packedAddress), address);
+    }
+
+    static Stream<Arguments> testToIntProvider() {
+        return Stream.of(
+                arguments(
+                        new IpAddress(new int[]{ 127, 0, 0, 1 }),
+                        0x7F000001
+                ),
+                arguments(
+                        new IpAddress(new int[]{ 255, 255, 255, 255 }),
+                        -1
+                ),
+                arguments(
+                        new IpAddress(new int[]{ 0, 0, 0, 0 }),
+                        0
+                ),
+                arguments(
+                        new IpAddress(24),
+                        0xFFFFFF00
+                )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testMaskCacheProvider")
+    @DisplayName("Общие экземпляры масок и длина маски")
+    void testMaskCache(int maskLength, IpAddress mask) {
+        assertSame(IpAddress.mask(maskLength), IpAddress.mask(maskLength));
+        assertEquals(IpAddress.mask(maskLength), mask);
+
+        assertTrue(mask.isMask());
+        assertTrue(IpAddress.isValidMask(mask.toInt()));
+        assertEquals(mask.getMaskLength(), maskLength);
+    }
+
+    static Stream<Arguments> testMaskCacheProvider() {
+        return Stream.of(
+                arguments(0, new IpAddress(new int[]{ 0, 0, 0, 0 })),
+                arguments(1, new IpAddress(new int[]{ 128, 0, 0, 0 })),
+                arguments(21, new IpAddress(new int[]{ 255, 255, 248, 0 })),
+                arguments(24, IpAddress.fromInt(0xFFFFFF00)),
+                arguments(32, new IpAddress(new int[]{ 255, 255, 255, 255 }))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testNotMaskProvider")
+    @DisplayName("IP-адрес не является маской")
+    void testNotMask(IpAddress address) {
+        assertFalse(address.isMask());
+        assertFalse(IpAddress.isValidMask(address.toInt()));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            address.getMaskLength();
+        });
+    }
+
+    static Stream<IpAddress> testNotMaskProvider() {
+        return Stream.of(
+                new IpAddress(new int[]{ 123, 121, 0, 126 }),
+                new IpAddress(new int[]{ 0, 0, 123, 55 }),
+                new IpAddress(new int[]{ 255, 255, 0, 255 }),
+                new IpAddress(new int[]{ 255, 254, 255, 0 }),
+                IpAddress.fromInt(1)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidMaskLengthProvider")
+    @DisplayName("Исключение при запросе маски неправильной длины")
+    void testInvalidMaskLength(int maskLength) {
+        assertThrows(IllegalArgumentException.class, () -> {
+            IpAddress.mask(maskLength);
+        });
+    }
+
+    static Stream<Integer> testInvalidMaskLengthProvider() {
+        return Stream.of(-1, 33);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testValidateAddressProvider")
+    @DisplayName("Проверка записи IP-адреса без исключений")
+    void testValidateAddress(int[] rawAddress, AddressError expected) {
+        assertEquals(expected, IpAddress.validateAddress(rawAddress));
+        assertEquals(expected, AddressError.of(IpAddress.tryPack(rawAddress)));
+
+        if (expected == AddressError.OK) {
+            assertEquals(new IpAddress(rawAddress).toLong(), IpAddress.tryPack(rawAddress));
+        } else {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> new IpAddress(rawAddress));
+            assertEquals(expected.message(), exception.getMessage());
+        }
+    }
+
+    static Stream<Arguments> testValidateAddressProvider() {
+        return Stream.of(
+                arguments(new int[]{ 192, 168, 0, 1 }, AddressError.OK),
+                arguments(new int[]{ 255, 255, 255, 255 }, AddressError.OK),
+                arguments(new int[]{ 192, 168, 0 }, AddressError.WRONG_OCTET_COUNT),
+                arguments(new int[]{ 192, 168, 0, 1, 1 }, AddressError.WRONG_OCTET_COUNT),
+                arguments(new int[]{ 192, 256, 0, 1 }, AddressError.OCTET_OUT_OF_RANGE),
+                arguments(new int[]{ 192, 168, -1, 1 }, AddressError.OCTET_OUT_OF_RANGE),
+                arguments(null, AddressError.NULL_ADDRESS)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testTryApplyMaskProvider")
+    @DisplayName("Применение маски без исключений")
+    void testTryApplyMask(IpAddress address, IpAddress mask, AddressError expected) {
+        long result = address.tryApplyMask(mask);
+
+        assertEquals(expected, AddressError.of(result));
+        assertEquals(expected, IpAddress.validateMask(mask));
+        if (expected == AddressError.OK) {
+            assertEquals(address.applyMask(mask).toLong(), result);
+            assertEquals(result, IpAddress.tryApplyMask(address.toInt(), mask.toInt()));
+        } else {
+            assertTrue(result < 0);
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> address.applyMask(mask));
+            assertEquals(expected.message(), exception.getMessage());
+        }
+    }
+
+    static Stream<Arguments> testTryApplyMaskProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("192.168.10.20"), new IpAddress(24), AddressError.OK),
+                arguments(IpAddress.parse("200.1.2.3"), IpAddress.mask(0), AddressError.OK),
+                arguments(IpAddress.parse("192.168.10.20"), IpAddress.parse("255.0.255.0"), AddressError.NON_CONTIGUOUS_MASK),
+                arguments(IpAddress.parse("192.168.10.20"), null, AddressError.NULL_MASK)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testTryCountHostsBetweenProvider")
+    @DisplayName("Подсчёт устройств без исключений")
+    void testTryCountHostsBetween(IpAddress first, IpAddress second, IpAddress mask, long expected) {
+        long result = first.tryCountHostsBetween(second, mask);
+
+        assertEquals(expected, result);
+        if (result >= 0) {
+            assertEquals(first.countHostsBetween(second, mask), result);
+            assertEquals(result, IpAddress.tryCountHostsBetween(first.toInt(), second.toInt(), mask.toInt()));
+        } else {
+            assertThrows(IllegalArgumentException.class, () -> first.countHostsBetween(second, mask));
+        }
+    }
+
+    static Stream<Arguments> testTryCountHostsBetweenProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("10.0.0.1"), IpAddress.parse("10.0.0.10"), new IpAddress(24), 8L),
+                arguments(IpAddress.parse("10.0.0.1"), IpAddress.parse("10.0.1.10"), new IpAddress(24),
+                        AddressError.NOT_IN_SAME_SUBNET.code()),
+                arguments(IpAddress.parse("10.0.0.1"), IpAddress.parse("10.0.0.10"), IpAddress.parse("255.0.0.255"),
+                        AddressError.NON_CONTIGUOUS_MASK.code()),
+                arguments(IpAddress.parse("10.0.0.1"), null, new IpAddress(24), AddressError.NULL_ADDRESS.code()),
+                arguments(IpAddress.parse("10.0.0.1"), IpAddress.parse("10.0.0.10"), null, AddressError.NULL_MASK.code())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCompareToProvider")
+    @DisplayName("Сравнение IP-адресов как беззнаковых чисел")
+    void testCompareTo(IpAddress smaller, IpAddress bigger) {
+        assertTrue(smaller.compareTo(bigger) < 0);
+        assertTrue(bigger.compareTo(smaller) > 0);
+        assertEquals(0, smaller.compareTo(IpAddress.fromInt(smaller.toInt())));
+    }
+
+    static Stream<Arguments> testCompareToProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("0.0.0.0"), IpAddress.parse("0.0.0.1")),
+                arguments(IpAddress.parse("10.0.0.255"), IpAddress.parse("10.0.1.0")),
+                arguments(IpAddress.parse("127.255.255.255"), IpAddress.parse("128.0.0.0")),
+                arguments(IpAddress.parse("128.0.0.0"), IpAddress.parse("255.255.255.255")),
+                arguments(IpAddress.parse("1.2.3.4"), IpAddress.parse("192.168.0.1"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testHashCodeSpreadProvider")
+    @DisplayName("Хеш-коды соседних IP-адресов хорошо перемешаны")
+    void testHashCodeSpread(IpAddress first, int step) {
+        int buckets = 1 << 10;
+        int[] counts = new int[buckets];
+        for (int i = 0; i < buckets * 16; i++) {
+            counts[IpAddress.fromInt(first.toInt() + i * step).hashCode() & (buckets - 1)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 0 && count < 48);
+        }
+    }
+
+    static Stream<Arguments> testHashCodeSpreadProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("10.0.0.0"), 1),
+                arguments(IpAddress.parse("10.0.0.0"), 256),
+                arguments(IpAddress.parse("192.168.0.0"), 1 << 16)
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+import java.nio.LongBuffer;
+
+/** Отображение IP-адресов в числа long без упаковки ключей и значений
+ *
+ *  Подходит для счётчиков по адресам; при создании через {@link #offHeap(int)}
+ *  ключи и значения размещаются вне кучи.
+ */
+public class IpAddressToLongMap extends IpAddressHashTable {
+
+    /** Получатель пар "упакованный адрес - значение" при переборе */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int address, long value);
+    }
+
+    private LongBuffer _values;
+    private LongBuffer _resizedValues;
+    private long _zeroKeyValue;
+
+    public IpAddressToLongMap() {
+        this(0);
+    }
+
+    public IpAddressToLongMap(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    private IpAddressToLongMap(int expectedSize, boolean offHeap) {
+        super(expectedSize, offHeap);
+        this._values = PrimitiveBuffers.allocateLongs(this._capacity, offHeap);
+    }
+
+    /** Создаёт отображение, ключи и значения которого размещаются вне кучи
+     *
+     */
+    public static IpAddressToLongMap offHeap(int expectedSize) {
+        return new IpAddressToLongMap(expectedSize, true);
+    }
+
+    /** Связывает значение с IP-адресом; возвращает прежнее значение или 0
+     *
+     */
+    public long put(IpAddress address, long value) {
+        return put(address.toInt(), value);
+    }
+
+    public long put(int address, long value) {
+        if (address == EMPTY) {
+            long previous = this._zeroKeyValue;
+            this._zeroKeyValue = value;
+            this._hasZeroKey = true;
+            return previous;
+        }
+
+        int slot = insertSlot(address);
+        if (slot < 0) {
+            this._values.put(-slot - 1, value);
+            return 0L;
+        }
+
+        long previous = this._values.get(slot);
+        this._values.put(slot, value);
+        return previous;
+    }
+
+    /** Прибавляет delta к значению, связанному с IP-адресом (отсутствующее значение считается нулём);
+     *  возвращает новое значение
+     */
+    public long addTo(IpAddress address, long delta) {
+        return addTo(address.toInt(), delta);
+    }
+
+    public long addTo(int address, long delta) {
+        if (address == EMPTY) {
+            this._hasZeroKey = true;
+            return this._zeroKeyValue += delta;
+        }
+
+        int slot = insertSlot(address);
+        if (slot < 0) {
+            this._values.put(-slot - 1, delta);
+            return delta;
+        }
+
+        long value = this._values.get(slot) + delta;
+        this._values.put(slot, value);
+        return value;
+    }
+
+    /** Возвращает значение, связанное с IP-адресом, или defaultValue
+     *
+     */
+    public long getOrDefault(IpAddress address, long defaultValue) {
+        return getOrDefault(address.toInt(), defaultValue);
+    }
+
+    public long getOrDefault(int address, long defaultValue) {
+        if (address == EMPTY) {
+            return this._hasZeroKey ? this._zeroKeyValue : defaultValue;
+        }
+
+        int slot = slotOf(address);
+        return slot < 0 ? defaultValue : this._values.get(slot);
+    }
+
+    /** Возвращает значение, связанное с IP-адресом, или 0
+     *
+     */
+    public long get(IpAddress address) {
+        return getOrDefault(address.toInt(), 0L);
+    }
+
+    public long get(int address) {
+        return getOrDefault(address, 0L);
+    }
+
+    public boolean containsKey(IpAddress address) {
+        return containsKey(address.toInt());
+    }
+
+    public boolean containsKey(int address) {
+        return address == EMPTY ? this._hasZeroKey : slotOf(address) >= 0;
+    }
+
+    /** Удаляет IP-адрес; возвращает связанное с ним значение или 0
+     *
+     */
+    public long remove(IpAddress address) {
+        return remove(address.toInt());
+    }
+
+    public long remove(int address) {
+        if (address == EMPTY) {
+            long previous = this._zeroKeyValue;
+            this._zeroKeyValue = 0L;
+            this._hasZeroKey = false;
+            return previous;
+        }
+
+        int slot = slotOf(address);
+        if (slot < 0) {
+            return 0L;
+        }
+
+        long previous = this._values.get(slot);
+        deleteSlot(slot);
+        return previous;
+    }
+
+    /** Удаляет все элементы
+     *
+     */
+    public void clear() {
+        clearKeys();
+        this._zeroKeyValue = 0L;
+    }
+
+    /** Передаёт каждую пару "адрес - значение" в action (порядок не определён)
+     *
+     */
+    public void forEach(EntryConsumer action) {
+        if (this._hasZeroKey) {
+            action.accept(EMPTY, this._zeroKeyValue);
+        }
+
+        for (int slot = 0; slot < this._capacity; slot++) {
+            int key = this._keys.get(slot);
+            if (key != EMPTY) {
+                action.accept(key, this._values.get(slot));
+            }
+        }
+    }
+
+
+    @Override
+    protected void beginResize(int capacity) {
+        this._resizedValues = PrimitiveBuffers.allocateLongs(capacity, this._offHeap);
+    }
+
+    @Override
+    protected void relocateValue(int from, int to) {
+        this._resizedValues.put(to, this._values.get(from));
+    }
+
+    @Override
+    protected void endResize() {
+        this._values = this._resizedValues;
+        this._resizedValues = null;
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        this._values.put(to, this._values.get(from));
+    }
+
+    @Override
+    protected void clearValue(int slot) {
+        this._values.put(slot, 0L);
+    }
+}
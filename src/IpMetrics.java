@@ -0,0 +1,185 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** Необязательный сбор метрик операций с IP-адресами
+ *
+ *  Сбор включается системным свойством -Dipaddress.metrics=true. Флаг {@link #ENABLED} - статическая
+ *  константа, поэтому при выключенном сборе JIT полностью удаляет проверки в точках измерения.
+ *  Счётчики - LongAdder, задержки записываются в {@link LatencyHistogram}. Метрики доступны через
+ *  снимок {@link #snapshot()} и через JMX (объект "IpAddress:type=Metrics", регистрируется автоматически
+ *  при включённом сборе).
+ */
+public final class IpMetrics {
+    /** Включён ли сбор метрик */
+    public static final boolean ENABLED = Boolean.getBoolean("ipaddress.metrics");
+
+    /** Имя объекта JMX */
+    public static final String OBJECT_NAME = "IpAddress:type=Metrics";
+
+    /** Измеряемые операции */
+    public enum Operation {
+        APPLY_MASK,
+        BELONGS_TO_SUBNET,
+        COUNT_HOSTS_BETWEEN,
+        PREFIX_LOOKUP
+    }
+
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private static final LongAdder ADDRESSES_CREATED = new LongAdder();
+    private static final Map<AddressError, LongAdder> REJECTIONS = new EnumMap<>(AddressError.class);
+    private static final Map<Operation, LatencyHistogram> LATENCIES = new EnumMap<>(Operation.class);
+
+    static {
+        for (AddressError error : AddressError.values()) {
+            REJECTIONS.put(error, new LongAdder());
+        }
+        for (Operation operation : Operation.values()) {
+            LATENCIES.put(operation, new LatencyHistogram());
+        }
+
+        if (ENABLED) {
+            registerMBean();
+        }
+    }
+
+    private IpMetrics() {
+    }
+
+    /** Неизменяемый снимок метрик
+     *
+     */
+    public static final class Snapshot {
+        private final long _addressesCreated;
+        private final Map<AddressError, Long> _rejections;
+        private final Map<Operation, LatencyHistogram.Snapshot> _latencies;
+
+        private Snapshot(long addressesCreated, Map<AddressError, Long> rejections,
+                         Map<Operation, LatencyHistogram.Snapshot> latencies) {
+            this._addressesCreated = addressesCreated;
+            this._rejections = rejections;
+            this._latencies = latencies;
+        }
+
+        public long addressesCreated() {
+            return this._addressesCreated;
+        }
+
+        public long rejections(AddressError error) {
+            return this._rejections.get(error);
+        }
+
+        public LatencyHistogram.Snapshot latency(Operation operation) {
+            return this._latencies.get(operation);
+        }
+    }
+
+    /** Отмечает создание объекта IpAddress
+     *
+     */
+    public static void addressCreated() {
+        ADDRESSES_CREATED.increment();
+    }
+
+    /** Отмечает отклонённую проверку и возвращает ту же ошибку
+     *
+     */
+    public static AddressError rejected(AddressError error) {
+        REJECTIONS.get(error).increment();
+        return error;
+    }
+
+    /** Записывает задержку операции, начатой в момент startNanos (по System.nanoTime)
+     *
+     */
+    public static void record(Operation operation, long startNanos) {
+        LATENCIES.get(operation).record(System.nanoTime() - startNanos);
+    }
+
+    /** Возвращает снимок всех метрик
+     *
+     */
+    public static Snapshot snapshot() {
+        Map<AddressError, Long> rejections = new EnumMap<>(AddressError.class);
+        REJECTIONS.forEach((error, counter) -> rejections.put(error, counter.sum()));
+        Map<Operation, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Operation.class);
+        LATENCIES.forEach((operation, histogram) -> latencies.put(operation, histogram.snapshot()));
+
+        return new Snapshot(ADDRESSES_CREATED.sum(), rejections, latencies);
+    }
+
+    /** Сбрасывает все метрики
+     *
+     */
+    public static void reset() {
+        ADDRESSES_CREATED.reset();
+        REJECTIONS.values().forEach(LongAdder::reset);
+        LATENCIES.values().forEach(LatencyHistogram::reset);
+    }
+
+    /** Регистрирует объект JMX с метриками (повторная регистрация ничего не делает)
+     *
+     */
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register IP metrics MXBean", e);
+        }
+    }
+
+
+    /** Реализация интерфейса JMX поверх снимков
+     *
+     */
+    private static final class MXBean implements IpMetricsMXBean {
+        @Override
+        public long getAddressesCreated() {
+            return ADDRESSES_CREATED.sum();
+        }
+
+        @Override
+        public Map<String, Long> getRejections() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            REJECTIONS.forEach((error, counter) -> {
+                if (error != AddressError.OK) {
+                    result.put(error.name(), counter.sum());
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getOperationCounts() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            LATENCIES.forEach((operation, histogram) -> result.put(operation.name(), histogram.snapshot().count()));
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getLatencyPercentiles() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            LATENCIES.forEach((operation, histogram) -> {
+                LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    result.put(operation.name() + "." + PERCENTILE_NAMES[i], snapshot.percentile(PERCENTILES[i]));
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            IpMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.Map;
+
+/** Интерфейс JMX для метрик операций с IP-адресами
+ *
+ */
+public interface IpMetricsMXBean {
+    /** Возвращает количество созданных объектов IpAddress
+     *
+     */
+    long getAddressesCreated();
+
+    /** Возвращает количество отклонённых проверок по видам ошибок
+     *
+     */
+    Map<String, Long> getRejections();
+
+    /** Возвращает количество выполненных операций по их видам
+     *
+     */
+    Map<String, Long> getOperationCounts();
+
+    /** Возвращает задержки операций в наносекундах: ключи вида "APPLY_MASK.p50", "APPLY_MASK.p99", "APPLY_MASK.p999"
+     *
+     */
+    Map<String, Long> getLatencyPercentiles();
+
+    /** Сбрасывает все метрики
+     *
+     */
+    void reset();
+}
@@ -0,0 +1,111 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class IpMetricsTest {
+
+    @Test
+    @DisplayName("Снимок метрик отражает записанные события")
+    void testSnapshot() {
+        IpMetrics.reset();
+
+        IpMetrics.addressCreated();
+        IpMetrics.addressCreated();
+        assertEquals(AddressError.NON_CONTIGUOUS_MASK, IpMetrics.rejected(AddressError.NON_CONTIGUOUS_MASK));
+        IpMetrics.record(IpMetrics.Operation.APPLY_MASK, System.nanoTime());
+
+        IpMetrics.Snapshot snapshot = IpMetrics.snapshot();
+        assertEquals(2, snapshot.addressesCreated());
+        assertEquals(1, snapshot.rejections(AddressError.NON_CONTIGUOUS_MASK));
+        assertEquals(0, snapshot.rejections(AddressError.WRONG_OCTET_COUNT));
+        assertEquals(1, snapshot.latency(IpMetrics.Operation.APPLY_MASK).count());
+
+        IpMetrics.reset();
+        assertEquals(0, IpMetrics.snapshot().rejections(AddressError.NON_CONTIGUOUS_MASK));
+    }
+
+    @Test
+    @DisplayName("Метрики доступны через JMX")
+    void testMXBean() throws JMException {
+        IpMetrics.reset();
+        IpMetrics.registerMBean();
+        IpMetrics.registerMBean();
+        IpMetrics.rejected(AddressError.OCTET_OUT_OF_RANGE);
+        IpMetrics.record(IpMetrics.Operation.PREFIX_LOOKUP, System.nanoTime() - 1000);
+
+        IpMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                new ObjectName(IpMetrics.OBJECT_NAME), IpMetricsMXBean.class);
+
+        Map<String, Long> rejections = bean.getRejections();
+        assertEquals(1L, rejections.get("OCTET_OUT_OF_RANGE"));
+        assertFalse(rejections.containsKey("OK"));
+        assertEquals(1L, bean.getOperationCounts().get("PREFIX_LOOKUP"));
+        assertTrue(bean.getLatencyPercentiles().get("PREFIX_LOOKUP.p50") >= 1000);
+
+        bean.reset();
+        assertEquals(0L, bean.getRejections().get("OCTET_OUT_OF_RANGE"));
+    }
+
+    @Test
+    @DisplayName("Точки измерения IpAddress записывают события при включённом сборе")
+    void testAddressHooks() {
+        // Точки измерения добавляют события, только если сбор включён свойством -Dipaddress.metrics=true
+        assumeTrue(IpMetrics.ENABLED);
+        IpMetrics.reset();
+
+        IpAddress address = IpAddress.fromInt(0x0A000001);
+        IpAddress mask = new IpAddress(24);
+        assertEquals(2, IpMetrics.snapshot().addressesCreated());
+
+        // Результат applyMask - ещё один созданный адрес
+        address.applyMask(mask);
+        address.belongsToSubnet(IpAddress.fromInt(0x0A000000), mask);
+        assertThrows(IllegalArgumentException.class, () -> address.applyMask(IpAddress.fromInt(0xFF00FF00)));
+
+        IpMetrics.Snapshot snapshot = IpMetrics.snapshot();
+        assertEquals(5, snapshot.addressesCreated());
+        assertEquals(1, snapshot.rejections(AddressError.NON_CONTIGUOUS_MASK));
+        assertEquals(1, snapshot.latency(IpMetrics.Operation.APPLY_MASK).count());
+        assertEquals(1, snapshot.latency(IpMetrics.Operation.BELONGS_TO_SUBNET).count());
+        assertEquals(0, snapshot.latency(IpMetrics.Operation.COUNT_HOSTS_BETWEEN).count());
+    }
+
+    @Test
+    @DisplayName("Поиск в PrefixTable записывается в гистограмму задержек и виден через JMX")
+    void testLookupHistogram() throws JMException {
+        assumeTrue(IpMetrics.ENABLED);
+        PrefixTable<String> table = PrefixTableTest.createTable();
+        IpMetrics.reset();
+
+        int lookups = 1000;
+        for (int i = 0; i < lookups; i++) {
+            assertNotNull(table.lookup(0x0A010000 | i));
+        }
+
+        LatencyHistogram.Snapshot latency = IpMetrics.snapshot().latency(IpMetrics.Operation.PREFIX_LOOKUP);
+        assertEquals(lookups, latency.count());
+        assertTrue(latency.percentile(50) <= latency.percentile(99.9));
+        assertTrue(latency.percentile(100) > 0);
+
+        // Объект JMX регистрируется автоматически при включённом сборе
+        IpMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                new ObjectName(IpMetrics.OBJECT_NAME), IpMetricsMXBean.class);
+        assertEquals(0L, bean.getAddressesCreated());
+        assertEquals((long) lookups, bean.getOperationCounts().get("PREFIX_LOOKUP"));
+        assertEquals(0L, bean.getOperationCounts().get("APPLY_MASK"));
+        assertEquals(latency.percentile(50), bean.getLatencyPercentiles().get("PREFIX_LOOKUP.p50"));
+        assertEquals(latency.percentile(99), bean.getLatencyPercentiles().get("PREFIX_LOOKUP.p99"));
+
+        IpAddress.fromInt(0x0A000001);
+        assertEquals(1L, bean.getAddressesCreated());
+    }
+}
@@ -0,0 +1,311 @@
+import java.nio.ByteBuffer;
+
+/** IPv6-адрес, хранящийся в двух 64-битных числах (старшая и младшая половины адреса)
+ *
+ *  Маскирование, проверка принадлежности сети и подсчёт устройств выполняются 128-битной арифметикой над
+ *  парой чисел long без BigInteger и массивов. Статические методы с аргументами (high, low) позволяют
+ *  работать с адресами вовсе без создания объектов. Адреса IPv4 представляются в форме IPv4-mapped
+ *  (::ffff:a.b.c.d, RFC 4291, раздел 2.5.5.2).
+ */
+public final class Ipv6Address implements Comparable<Ipv6Address> {
+    public static final int MAX_PREFIX_LENGTH = 128;
+
+    private static final int HALF_LENGTH = Long.SIZE;
+    // Старшие 32 бита младшей половины адреса IPv4-mapped
+    private static final long IPV4_MAPPED_MARKER = 0xFFFFL << Integer.SIZE;
+    private static final long IPV4_MAPPED_MASK = 0xFFFFFFFF_00000000L;
+
+    // Все 129 возможных масок (от /0 до /128) создаются один раз и используются совместно
+    private static final Ipv6Address[] MASKS = new Ipv6Address[MAX_PREFIX_LENGTH + 1];
+
+    static {
+        for (int prefixLength = 0; prefixLength <= MAX_PREFIX_LENGTH; prefixLength++) {
+            MASKS[prefixLength] = new Ipv6Address(highMask(prefixLength), lowMask(prefixLength));
+        }
+    }
+
+    private final long _high;
+    private final long _low;
+
+    private Ipv6Address(long high, long low) {
+        this._high = high;
+        this._low = low;
+    }
+
+    /** Создаёт IPv6-адрес из старшей и младшей половин
+     *
+     */
+    public static Ipv6Address of(long high, long low) {
+        return new Ipv6Address(high, low);
+    }
+
+    /** Разбирает запись IPv6-адреса без префикса (полную или сокращённую с "::"), бросая исключение при ошибке
+     *
+     */
+    public static Ipv6Address parse(CharSequence text) {
+        return Ipv6AddressParser.parse(text);
+    }
+
+    /** Создаёт адрес IPv4-mapped (::ffff:a.b.c.d) для IPv4-адреса
+     *
+     */
+    public static Ipv6Address fromIpv4(IpAddress address) {
+        if (address == null) {
+            throw new IllegalArgumentException("IP address cannot be null");
+        }
+
+        return fromIpv4(address.toInt());
+    }
+
+    /** Создаёт адрес IPv4-mapped (::ffff:a.b.c.d) для упакованного IPv4-адреса
+     *
+     */
+    public static Ipv6Address fromIpv4(int address) {
+        return new Ipv6Address(0L, IPV4_MAPPED_MARKER | Integer.toUnsignedLong(address));
+    }
+
+    /** Возвращает общую (неизменяемую) маску заданной длины от 0 до 128 включительно
+     *
+     */
+    public static Ipv6Address mask(int prefixLength) {
+        checkPrefixLength(prefixLength);
+        return MASKS[prefixLength];
+    }
+
+    /** Возвращает старшую половину маски заданной длины
+     *
+     */
+    public static long highMask(int prefixLength) {
+        checkPrefixLength(prefixLength);
+        if (prefixLength == 0) {
+            return 0L;
+        }
+
+        return prefixLength >= HALF_LENGTH ? -1L : -1L << (HALF_LENGTH - prefixLength);
+    }
+
+    /** Возвращает младшую половину маски заданной длины
+     *
+     */
+    public static long lowMask(int prefixLength) {
+        checkPrefixLength(prefixLength);
+        return prefixLength <= HALF_LENGTH ? 0L : -1L << (MAX_PREFIX_LENGTH - prefixLength);
+    }
+
+    /** Возвращает старшую половину адреса
+     *
+     */
+    public long high() {
+        return this._high;
+    }
+
+    /** Возвращает младшую половину адреса
+     *
+     */
+    public long low() {
+        return this._low;
+    }
+
+    /** Проверяет, является ли адрес правильной маской (единицы в старших битах, нули в младших)
+     *
+     */
+    public boolean isMask() {
+        return isValidMask(this._high, this._low);
+    }
+
+    /** Возвращает длину маски (количество единиц в ней)
+     *
+     */
+    public int getMaskLength() {
+        checkMask(this);
+        return Long.bitCount(this._high) + Long.bitCount(this._low);
+    }
+
+    /** Применяет маску к адресу и возвращает адрес сети
+     *
+     */
+    public Ipv6Address applyMask(Ipv6Address mask) {
+        checkMask(mask);
+        return new Ipv6Address(this._high & mask._high, this._low & mask._low);
+    }
+
+    /** Применяет маску заданной длины к адресу и возвращает адрес сети
+     *
+     */
+    public Ipv6Address applyMask(int prefixLength) {
+        return applyMask(mask(prefixLength));
+    }
+
+    /** Проверяет принадлежность адреса к сети, заданной адресом и маской
+     *
+     */
+    public boolean belongsToSubnet(Ipv6Address network, Ipv6Address mask) {
+        checkMask(mask);
+        return network != null
+                && (this._high & mask._high) == network._high
+                && (this._low & mask._low) == network._low;
+    }
+
+    /** Проверяет принадлежность адреса к сети, заданной адресом и длиной префикса
+     *
+     */
+    public boolean belongsToSubnet(Ipv6Address network, int prefixLength) {
+        return belongsToSubnet(network, mask(prefixLength));
+    }
+
+    /** Вычисляет количество устройств (хостов) между двумя адресами одной сети (не включая эти адреса);
+     *  если количество не помещается в long, бросает ArithmeticException
+     */
+    public long countHostsBetween(Ipv6Address other, Ipv6Address mask) {
+        checkMask(mask);
+        if (other == null) {
+            throw new IllegalArgumentException("IPv6 address cannot be null");
+        }
+        if (((this._high ^ other._high) & mask._high) != 0 || ((this._low ^ other._low) & mask._low) != 0) {
+            throw new IllegalArgumentException(
+                    String.format("Addresses %s and %s are not in the same subnet", this, other));
+        }
+
+        return countHostsBetween(this._high, this._low, other._high, other._low);
+    }
+
+    /** Вычисляет количество устройств между двумя адресами сети с префиксом заданной длины
+     *
+     */
+    public long countHostsBetween(Ipv6Address other, int prefixLength) {
+        return countHostsBetween(other, mask(prefixLength));
+    }
+
+    /** Проверяет, является ли адрес представлением IPv4-адреса в форме IPv4-mapped (::ffff:a.b.c.d)
+     *
+     */
+    public boolean isIpv4Mapped() {
+        return isIpv4Mapped(this._high, this._low);
+    }
+
+    /** Возвращает IPv4-адрес, представленный адресом IPv4-mapped
+     *
+     */
+    public IpAddress toIpv4() {
+        if (!isIpv4Mapped()) {
+            throw new IllegalArgumentException(String.format("Address %s is not IPv4-mapped", this));
+        }
+
+        return IpAddress.fromInt((int) this._low);
+    }
+
+    /** Дописывает каноническую запись адреса в конец StringBuilder
+     *
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        return Ipv6AddressFormatter.appendTo(this._high, this._low, builder);
+    }
+
+    /** Записывает каноническую запись адреса ASCII-символами в буфер начиная с его текущей позиции
+     *
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer) {
+        return Ipv6AddressFormatter.writeTo(this._high, this._low, buffer);
+    }
+
+    /** Сравнивает адреса как беззнаковые 128-битные числа
+     *
+     */
+    @Override
+    public int compareTo(Ipv6Address other) {
+        int result = Long.compareUnsigned(this._high, other._high);
+        return result != 0 ? result : Long.compareUnsigned(this._low, other._low);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Ipv6Address other)) {
+            return false;
+        }
+
+        return this._high == other._high && this._low == other._low;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(this._high, this._low);
+    }
+
+    /** Создаёт каноническую запись адреса по RFC 5952
+     *
+     */
+    @Override
+    public String toString() {
+        return Ipv6AddressFormatter.toString(this._high, this._low);
+    }
+
+    /** Перемешивает обе половины адреса в 32-битный хеш (финализатор MurmurHash3 fmix64)
+     *
+     */
+    public static int hash(long high, long low) {
+        return (int) IpAddress.hash64(high * 0x9E3779B97F4A7C15L + low);
+    }
+
+    /** Проверяет, является ли пара половин правильной маской
+     *
+     */
+    public static boolean isValidMask(long high, long low) {
+        // Инвертированная правильная маска имеет вид 0...01...1, и прибавление единицы даёт степень двойки
+        if (low == 0) {
+            return (~high & (~high + 1)) == 0;
+        }
+
+        return high == -1L && (~low & (~low + 1)) == 0;
+    }
+
+    /** Проверяет, является ли пара половин адресом IPv4-mapped
+     *
+     */
+    public static boolean isIpv4Mapped(long high, long low) {
+        return high == 0 && (low & IPV4_MAPPED_MASK) == IPV4_MAPPED_MARKER;
+    }
+
+    /** Вычисляет |first - second| - 1 в 128-битной арифметике (0 для совпадающих адресов)
+     *
+     */
+    private static long countHostsBetween(long firstHigh, long firstLow, long secondHigh, long secondLow) {
+        if (Long.compareUnsigned(firstHigh, secondHigh) < 0
+                || (firstHigh == secondHigh && Long.compareUnsigned(firstLow, secondLow) < 0)) {
+            long high = firstHigh;
+            long low = firstLow;
+            firstHigh = secondHigh;
+            firstLow = secondLow;
+            secondHigh = high;
+            secondLow = low;
+        }
+
+        long low = firstLow - secondLow;
+        long high = firstHigh - secondHigh - (Long.compareUnsigned(firstLow, secondLow) < 0 ? 1 : 0);
+        if (high == 0 && low == 0) {
+            return 0L;
+        }
+
+        // Разность до 2^63 включительно даёт результат не больше Long.MAX_VALUE
+        if (high != 0 || Long.compareUnsigned(low, Long.MIN_VALUE) > 0) {
+            throw new ArithmeticException("Hosts count does not fit into long");
+        }
+
+        return low - 1;
+    }
+
+    private static void checkMask(Ipv6Address mask) {
+        if (mask == null) {
+            throw new IllegalArgumentException("Mask cannot be null");
+        }
+        if (!mask.isMask()) {
+            throw new IllegalArgumentException(String.format("Address %s is not a valid mask", mask));
+        }
+    }
+
+    private static void checkPrefixLength(int prefixLength) {
+        if (prefixLength < 0 || prefixLength > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Prefix length must be in range [%d..%d]", 0, MAX_PREFIX_LENGTH));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.nio.ByteBuffer;
+
+/** Форматирование IPv6-адреса в каноническую запись по RFC 5952 без создания промежуточных объектов
+ *
+ *  Группы записываются строчными шестнадцатеричными цифрами без ведущих нулей; самая длинная (при равенстве -
+ *  первая) серия из двух и более нулевых групп сокращается до "::". Адреса IPv4-mapped записываются
+ *  со встроенным IPv4-адресом ("::ffff:192.0.2.1", RFC 5952, раздел 5).
+ */
+public final class Ipv6AddressFormatter {
+    /** Максимальная длина канонической записи ("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff") */
+    public static final int MAX_LENGTH = 39;
+
+    private static final int GROUPS_COUNT = 8;
+    private static final int GROUPS_PER_HALF = 4;
+    private static final int GROUP_BITS = 16;
+    private static final int GROUP_MASK = 0xFFFF;
+    private static final int MIN_ZERO_RUN = 2;
+    private static final char SEPARATOR = ':';
+    private static final String IPV4_MAPPED_PREFIX = "::ffff:";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private Ipv6AddressFormatter() {
+    }
+
+    /** Создаёт каноническую запись адреса
+     *
+     */
+    public static String toString(long high, long low) {
+        return appendTo(high, low, new StringBuilder(MAX_LENGTH)).toString();
+    }
+
+    /** Дописывает каноническую запись адреса в конец StringBuilder
+     *
+     */
+    public static StringBuilder appendTo(long high, long low, StringBuilder builder) {
+        format(high, low, builder);
+        return builder;
+    }
+
+    /** Записывает каноническую запись адреса ASCII-символами в буфер начиная с его текущей позиции
+     *
+     */
+    public static ByteBuffer writeTo(long high, long low, ByteBuffer buffer) {
+        format(high, low, buffer);
+        return buffer;
+    }
+
+
+    /** Записывает адрес в StringBuilder или ByteBuffer; приёмник передаётся как Object, чтобы не дублировать
+     *  правила сокращения для двух видов выходных данных
+     */
+    private static void format(long high, long low, Object target) {
+        if (Ipv6Address.isIpv4Mapped(high, low)) {
+            for (int i = 0; i < IPV4_MAPPED_PREFIX.length(); i++) {
+                put(target, IPV4_MAPPED_PREFIX.charAt(i));
+            }
+
+            if (target instanceof StringBuilder builder) {
+                IpAddressFormatter.appendTo((int) low, builder);
+            } else {
+                IpAddressFormatter.writeTo((int) low, (ByteBuffer) target);
+            }
+            return;
+        }
+
+        int zeroRun = longestZeroRun(high, low);
+        int zeroStart = zeroRun >>> 4;
+        int zeroEnd = zeroStart + (zeroRun & 0xF);
+
+        for (int index = 0; index < GROUPS_COUNT; index++) {
+            if (index == zeroStart && zeroEnd > zeroStart) {
+                // "::" заменяет серию целиком вместе с разделителями по обе стороны
+                put(target, SEPARATOR);
+                if (zeroEnd == GROUPS_COUNT) {
+                    put(target, SEPARATOR);
+                }
+                index = zeroEnd - 1;
+                continue;
+            }
+
+            if (index != 0) {
+                put(target, SEPARATOR);
+            }
+            putGroup(target, group(high, low, index));
+        }
+    }
+
+    /** Находит самую длинную серию нулевых групп не короче двух; возвращает (начало << 4) | длина или 0
+     *
+     */
+    private static int longestZeroRun(long high, long low) {
+        int bestStart = 0;
+        int bestLength = 0;
+        int start = 0;
+        int length = 0;
+        for (int index = 0; index < GROUPS_COUNT; index++) {
+            if (group(high, low, index) == 0) {
+                if (length++ == 0) {
+                    start = index;
+                }
+                if (length > bestLength) {
+                    bestStart = start;
+                    bestLength = length;
+                }
+            } else {
+                length = 0;
+            }
+        }
+
+        return bestLength >= MIN_ZERO_RUN ? (bestStart << 4) | bestLength : 0;
+    }
+
+    /** Возвращает группу с заданным номером (начиная со старшей)
+     *
+     */
+    private static int group(long high, long low, int index) {
+        long half = index < GROUPS_PER_HALF ? high : low;
+        return (int) (half >>> (GROUP_BITS * (GROUPS_PER_HALF - 1 - index % GROUPS_PER_HALF))) & GROUP_MASK;
+    }
+
+    private static void putGroup(Object target, int group) {
+        // Число значащих шестнадцатеричных цифр: от одной (для нуля) до четырёх
+        int digits = Math.max(1, (Integer.SIZE - Integer.numberOfLeadingZeros(group) + 3) / 4);
+        for (int digit = digits - 1; digit >= 0; digit--) {
+            put(target, HEX_DIGITS[(group >>> (digit * 4)) & 0xF]);
+        }
+    }
+
+    private static void put(Object target, char c) {
+        if (target instanceof StringBuilder builder) {
+            builder.append(c);
+        } else {
+            ((ByteBuffer) target).put((byte) c);
+        }
+    }
+}
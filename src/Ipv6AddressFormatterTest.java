@@ -0,0 +1,46 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class Ipv6AddressFormatterTest {
+
+    @ParameterizedTest
+    @MethodSource("testFormatProvider")
+    @DisplayName("Каноническая запись IPv6-адреса в StringBuilder и ByteBuffer")
+    void testFormat(String text, String canonical) {
+        Ipv6Address address = Ipv6Address.parse(text);
+
+        assertEquals(canonical, address.toString());
+        assertEquals("ip=" + canonical, address.appendTo(new StringBuilder("ip=")).toString());
+
+        ByteBuffer buffer = ByteBuffer.allocate(Ipv6AddressFormatter.MAX_LENGTH + 1);
+        address.writeTo(buffer).put((byte) '\n');
+        assertEquals(canonical + "\n", new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+
+        assertEquals(address, Ipv6Address.parse(canonical));
+    }
+
+    static Stream<Arguments> testFormatProvider() {
+        return Stream.of(
+                arguments("2001:0DB8:0000:0000:0000:0000:0000:0001", "2001:db8::1"),
+                arguments("0:0:0:0:0:0:0:0", "::"),
+                arguments("0:0:0:0:0:0:0:1", "::1"),
+                arguments("1:0:0:0:0:0:0:0", "1::"),
+                arguments("2001:db8:0:1:1:1:1:1", "2001:db8:0:1:1:1:1:1"),
+                arguments("2001:0:0:1:0:0:0:1", "2001:0:0:1::1"),
+                arguments("2001:db8:0:0:1:0:0:1", "2001:db8::1:0:0:1"),
+                arguments("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"),
+                arguments("::ffff:c000:0201", "::ffff:192.0.2.1"),
+                arguments("::c000:0201", "::c000:201"),
+                arguments("fe80:00a0:0b00:c000::", "fe80:a0:b00:c000::")
+        );
+    }
+}
@@ -0,0 +1,252 @@
+import java.nio.ByteBuffer;
+
+/** Разбор текстовой записи IPv6-адреса (RFC 4291, раздел 2.2) без создания промежуточных объектов
+ *
+ *  Поддерживаются полная запись из восьми групп, сокращение "::", встроенный IPv4-адрес в последних
+ *  32 битах ("::ffff:192.0.2.1") и префикс "/len". Идентификаторы зон ("%eth0") не поддерживаются.
+ *  Методы tryParse не бросают исключений: половины адреса записываются в переданный массив out
+ *  (out[0] - старшая, out[1] - младшая), а возвращается длина префикса (128 для записи без префикса)
+ *  или {@link #INVALID} при ошибке.
+ */
+public final class Ipv6AddressParser {
+    /** Результат разбора неправильной записи */
+    public static final int INVALID = -1;
+
+    private static final int GROUPS_COUNT = 8;
+    private static final int GROUP_BITS = 16;
+    private static final int MAX_HEX_DIGITS = 4;
+    private static final int IPV4_GROUPS = 2;
+    private static final int MAX_PREFIX_DIGITS = 3;
+    private static final int HALF_LENGTH = Long.SIZE;
+
+    private Ipv6AddressParser() {
+    }
+
+    /** Разбирает запись IPv6-адреса без префикса, бросая исключение при ошибке
+     *
+     */
+    public static Ipv6Address parse(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("IPv6 address text cannot be null");
+        }
+
+        long[] halves = new long[2];
+        int prefixLength = tryParse(text, 0, text.length(), halves);
+        if (prefixLength == INVALID || addressEnd(text, 0, text.length()) != text.length()) {
+            throw new IllegalArgumentException(String.format("Invalid IPv6 address: %s", text));
+        }
+
+        return Ipv6Address.of(halves[0], halves[1]);
+    }
+
+    /** Разбирает запись вида "addr" или "addr/len" из последовательности символов
+     *
+     */
+    public static int tryParse(CharSequence text, long[] out) {
+        if (text == null) {
+            return INVALID;
+        }
+
+        return tryParse(text, 0, text.length(), out);
+    }
+
+    /** Разбирает запись, занимающую символы [start, end) последовательности
+     *
+     */
+    public static int tryParse(CharSequence text, int start, int end, long[] out) {
+        return parse(text, start, end, out);
+    }
+
+    /** Разбирает запись, занимающую байты [start, end) буфера (абсолютные индексы)
+     *
+     */
+    public static int tryParse(ByteBuffer buffer, int start, int end, long[] out) {
+        return parse(buffer, start, end, out);
+    }
+
+
+    /** Разбирает запись из CharSequence или ByteBuffer; источник передаётся как Object, чтобы не дублировать
+     *  автомат разбора для двух видов входных данных
+     */
+    private static int parse(Object source, int start, int end, long[] out) {
+        if (out == null || out.length < 2) {
+            throw new IllegalArgumentException("Output array must hold at least two values");
+        }
+
+        int addressEnd = addressEnd(source, start, end);
+        int prefixLength = Ipv6Address.MAX_PREFIX_LENGTH;
+        if (addressEnd != end) {
+            prefixLength = parsePrefixLength(source, addressEnd + 1, end);
+            if (prefixLength == INVALID) {
+                return INVALID;
+            }
+        }
+
+        // Группы до "::" накапливаются в head, после - в tail; каждая половина - 128-битное число
+        long headHigh = 0;
+        long headLow = 0;
+        int headGroups = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = start;
+        if (addressEnd - start >= 2 && charAt(source, start) == ':') {
+            if (charAt(source, start + 1) != ':') {
+                return INVALID;
+            }
+            compressed = true;
+            i += 2;
+        }
+
+        while (i < addressEnd) {
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            int digit;
+            while (i < addressEnd && (digit = hexValue(charAt(source, i))) >= 0) {
+                if (++digits > MAX_HEX_DIGITS) {
+                    return INVALID;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+
+            int groups = 1;
+            if (i < addressEnd && charAt(source, i) == '.') {
+                // Встроенный IPv4-адрес занимает две последние группы и завершает запись
+                long parsed = parseIpv4(source, groupStart, addressEnd);
+                if (parsed == IpAddressParser.INVALID) {
+                    return INVALID;
+                }
+
+                value = IpAddressParser.address(parsed);
+                groups = IPV4_GROUPS;
+                i = addressEnd;
+            } else if (digits == 0) {
+                return INVALID;
+            }
+
+            if (headGroups + tailGroups + groups > GROUPS_COUNT) {
+                return INVALID;
+            }
+
+            int shift = groups * GROUP_BITS;
+            long groupValue = Integer.toUnsignedLong(value);
+            if (compressed) {
+                tailHigh = (tailHigh << shift) | (tailLow >>> (HALF_LENGTH - shift));
+                tailLow = (tailLow << shift) | groupValue;
+                tailGroups += groups;
+            } else {
+                headHigh = (headHigh << shift) | (headLow >>> (HALF_LENGTH - shift));
+                headLow = (headLow << shift) | groupValue;
+                headGroups += groups;
+            }
+
+            if (i == addressEnd) {
+                break;
+            }
+            if (charAt(source, i) != ':') {
+                return INVALID;
+            }
+
+            i++;
+            if (i < addressEnd && charAt(source, i) == ':') {
+                if (compressed) {
+                    return INVALID;
+                }
+                compressed = true;
+                i++;
+            } else if (i == addressEnd) {
+                return INVALID;
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups >= GROUPS_COUNT : groups != GROUPS_COUNT) {
+            return INVALID;
+        }
+
+        // Группы до "::" сдвигаются в старшие биты, пропущенные нулевые группы оказываются между частями
+        int shift = (GROUPS_COUNT - headGroups) * GROUP_BITS;
+        if (shift >= HALF_LENGTH) {
+            headHigh = shift == Ipv6Address.MAX_PREFIX_LENGTH ? 0 : headLow << (shift - HALF_LENGTH);
+            headLow = 0;
+        } else if (shift > 0) {
+            headHigh = (headHigh << shift) | (headLow >>> (HALF_LENGTH - shift));
+            headLow <<= shift;
+        }
+
+        out[0] = headHigh | tailHigh;
+        out[1] = headLow | tailLow;
+        return prefixLength;
+    }
+
+    /** Разбирает длину префикса в символах [start, end): от 0 до 128 без ведущих нулей
+     *
+     */
+    private static int parsePrefixLength(Object source, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > MAX_PREFIX_DIGITS || (length > 1 && charAt(source, start) == '0')) {
+            return INVALID;
+        }
+
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = charAt(source, i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value <= Ipv6Address.MAX_PREFIX_LENGTH ? value : INVALID;
+    }
+
+    /** Разбирает встроенный IPv4-адрес без префикса
+     *
+     */
+    private static long parseIpv4(Object source, int start, int end) {
+        if (source instanceof CharSequence text) {
+            return IpAddressParser.tryParse(text, start, end);
+        }
+
+        return IpAddressParser.tryParse((ByteBuffer) source, start, end);
+    }
+
+    /** Возвращает позицию символа '/' или end, если префикса нет
+     *
+     */
+    private static int addressEnd(Object source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (charAt(source, i) == '/') {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    private static char charAt(Object source, int index) {
+        if (source instanceof CharSequence text) {
+            return text.charAt(index);
+        }
+
+        return (char) (((ByteBuffer) source).get(index) & 0xFF);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,96 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class Ipv6AddressParserTest {
+
+    @ParameterizedTest
+    @MethodSource("testParseProvider")
+    @DisplayName("Разбор текстовой записи IPv6-адреса")
+    void testParse(String text, long high, long low, int prefixLength) {
+        long[] halves = new long[2];
+
+        assertEquals(prefixLength, Ipv6AddressParser.tryParse(text, halves));
+        assertEquals(high, halves[0]);
+        assertEquals(low, halves[1]);
+
+        ByteBuffer buffer = ByteBuffer.wrap(("ip=" + text + ";").getBytes(StandardCharsets.US_ASCII));
+        long[] fromBuffer = new long[2];
+        assertEquals(prefixLength, Ipv6AddressParser.tryParse(buffer, 3, 3 + text.length(), fromBuffer));
+        assertArrayEquals(halves, fromBuffer);
+        assertEquals(0, buffer.position());
+    }
+
+    static Stream<Arguments> testParseProvider() {
+        return Stream.of(
+                arguments("2001:0db8:85a3:0000:0000:8a2e:0370:7334", 0x20010DB885A30000L, 0x00008A2E03707334L, 128),
+                arguments("2001:db8:85a3::8a2e:370:7334", 0x20010DB885A30000L, 0x00008A2E03707334L, 128),
+                arguments("::", 0L, 0L, 128),
+                arguments("::1", 0L, 1L, 128),
+                arguments("1::", 0x0001000000000000L, 0L, 128),
+                arguments("FE80::1:2/64", 0xFE80000000000000L, 0x0000000000010002L, 64),
+                arguments("::ffff:192.0.2.1", 0L, 0x0000FFFFC0000201L, 128),
+                arguments("64:ff9b::198.51.100.7/96", 0x0064FF9B00000000L, 0x00000000C6336407L, 96),
+                arguments("1:2:3:4:5:6:1.2.3.4", 0x0001000200030004L, 0x0005000601020304L, 128),
+                arguments("1:2:3:4:5:6:7::", 0x0001000200030004L, 0x0005000600070000L, 128),
+                arguments("::2:3:4:5:6:7:8", 0x0000000200030004L, 0x0005000600070008L, 128),
+                arguments("2001:db8::/0", 0x20010DB800000000L, 0L, 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidTextProvider")
+    @DisplayName("Неправильная текстовая запись IPv6-адреса")
+    void testInvalidText(String text) {
+        assertEquals(Ipv6AddressParser.INVALID, Ipv6AddressParser.tryParse(text, new long[2]));
+        assertThrows(IllegalArgumentException.class, () -> Ipv6AddressParser.parse(text));
+    }
+
+    static Stream<Arguments> testInvalidTextProvider() {
+        return Stream.of(
+                arguments(""),
+                arguments(":"),
+                arguments(":::"),
+                arguments("1:2:3:4:5:6:7"),
+                arguments("1:2:3:4:5:6:7:8:9"),
+                arguments("1:2:3:4:5:6:7:8::"),
+                arguments("::1:2:3:4:5:6:7:8"),
+                arguments("1::2::3"),
+                arguments(":1::"),
+                arguments("1::2:"),
+                arguments("12345::"),
+                arguments("g::"),
+                arguments("::ffff:256.0.0.1"),
+                arguments("::1.2.3.4:5"),
+                arguments("1:2:3:4:5:6:7:1.2.3.4"),
+                arguments("1.2.3.4"),
+                arguments("fe80::1%eth0"),
+                arguments("::/129"),
+                arguments("::/01"),
+                arguments("::/")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testParseWithPrefixProvider")
+    @DisplayName("Запись с префиксом не разбирается как отдельный адрес")
+    void testParseWithPrefix(String text) {
+        assertNotEquals(Ipv6AddressParser.INVALID, Ipv6AddressParser.tryParse(text, new long[2]));
+        assertThrows(IllegalArgumentException.class, () -> Ipv6AddressParser.parse(text));
+    }
+
+    static Stream<Arguments> testParseWithPrefixProvider() {
+        return Stream.of(
+                arguments("2001:db8::/32"),
+                arguments("::1/128")
+        );
+    }
+}
@@ -0,0 +1,272 @@
+import java.nio.LongBuffer;
+
+/** Множество IPv6-адресов без объектов на каждый элемент
+ *
+ *  Устроено так же, как {@link IpAddressSet}: хеш-таблица с открытой адресацией, линейным пробированием и
+ *  сдвигом элементов назад при удалении. Ячейка занимает два соседних числа long (старшая и младшая
+ *  половины адреса); пара нулей отмечает свободную ячейку, а адрес :: хранится отдельно от массива.
+ *  При создании через {@link #offHeap(int)} таблица размещается вне кучи.
+ */
+public class Ipv6AddressSet {
+    private static final int MIN_CAPACITY = 16;
+    // Ограничено размером ByteBuffer (менее 2^31 байт) при двух числах long на ячейку
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final double LOAD_FACTOR = 0.75;
+
+    /** Получатель адресов множества */
+    @FunctionalInterface
+    public interface AddressConsumer {
+        void accept(long high, long low);
+    }
+
+    private final boolean _offHeap;
+    private LongBuffer _keys;
+    private int _capacity;
+    // Количество адресов в массиве (без учёта адреса ::)
+    private int _size;
+    private boolean _hasZeroKey;
+    private int _threshold;
+
+    public Ipv6AddressSet() {
+        this(0);
+    }
+
+    public Ipv6AddressSet(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    private Ipv6AddressSet(int expectedSize, boolean offHeap) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+
+        this._offHeap = offHeap;
+        this._capacity = capacityFor(expectedSize);
+        this._keys = PrimitiveBuffers.allocateLongs(this._capacity * 2, offHeap);
+        this._threshold = (int) (this._capacity * LOAD_FACTOR);
+    }
+
+    /** Создаёт множество, таблица которого размещается вне кучи
+     *
+     */
+    public static Ipv6AddressSet offHeap(int expectedSize) {
+        return new Ipv6AddressSet(expectedSize, true);
+    }
+
+    /** Добавляет адрес; возвращает false, если он уже был в множестве
+     *
+     */
+    public boolean add(Ipv6Address address) {
+        return add(address.high(), address.low());
+    }
+
+    public boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            boolean added = !this._hasZeroKey;
+            this._hasZeroKey = true;
+            return added;
+        }
+
+        int mask = this._capacity - 1;
+        int slot = Ipv6Address.hash(high, low) & mask;
+        while (true) {
+            long currentHigh = this._keys.get(2 * slot);
+            long currentLow = this._keys.get(2 * slot + 1);
+            if (currentHigh == high && currentLow == low) {
+                return false;
+            }
+            if (currentHigh == 0 && currentLow == 0) {
+                if (this._size >= this._threshold) {
+                    grow();
+                    return add(high, low);
+                }
+
+                this._keys.put(2 * slot, high);
+                this._keys.put(2 * slot + 1, low);
+                this._size++;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Проверяет наличие адреса в множестве
+     *
+     */
+    public boolean contains(Ipv6Address address) {
+        return contains(address.high(), address.low());
+    }
+
+    public boolean contains(long high, long low) {
+        if (high == 0 && low == 0) {
+            return this._hasZeroKey;
+        }
+
+        return slotOf(high, low) >= 0;
+    }
+
+    /** Удаляет адрес; возвращает false, если его не было в множестве
+     *
+     */
+    public boolean remove(Ipv6Address address) {
+        return remove(address.high(), address.low());
+    }
+
+    public boolean remove(long high, long low) {
+        if (high == 0 && low == 0) {
+            boolean removed = this._hasZeroKey;
+            this._hasZeroKey = false;
+            return removed;
+        }
+
+        int slot = slotOf(high, low);
+        if (slot < 0) {
+            return false;
+        }
+
+        deleteSlot(slot);
+        return true;
+    }
+
+    /** Возвращает количество адресов
+     *
+     */
+    public int size() {
+        return this._size + (this._hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Проверяет, хранятся ли данные вне кучи
+     *
+     */
+    public boolean isOffHeap() {
+        return this._offHeap;
+    }
+
+    /** Удаляет все адреса
+     *
+     */
+    public void clear() {
+        for (int i = 0; i < this._capacity * 2; i++) {
+            this._keys.put(i, 0L);
+        }
+        this._size = 0;
+        this._hasZeroKey = false;
+    }
+
+    /** Передаёт каждый адрес множества в action (порядок не определён)
+     *
+     */
+    public void forEach(AddressConsumer action) {
+        if (this._hasZeroKey) {
+            action.accept(0L, 0L);
+        }
+
+        for (int slot = 0; slot < this._capacity; slot++) {
+            long high = this._keys.get(2 * slot);
+            long low = this._keys.get(2 * slot + 1);
+            if (high != 0 || low != 0) {
+                action.accept(high, low);
+            }
+        }
+    }
+
+
+    /** Возвращает номер ячейки с заданным (ненулевым) адресом или -1, если адреса нет
+     *
+     */
+    private int slotOf(long high, long low) {
+        int mask = this._capacity - 1;
+        int slot = Ipv6Address.hash(high, low) & mask;
+
+        while (true) {
+            long currentHigh = this._keys.get(2 * slot);
+            long currentLow = this._keys.get(2 * slot + 1);
+            if (currentHigh == high && currentLow == low) {
+                return slot;
+            }
+            if (currentHigh == 0 && currentLow == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Освобождает ячейку, сдвигая назад следующие за ней адреса той же цепочки
+     *
+     */
+    private void deleteSlot(int slot) {
+        int mask = this._capacity - 1;
+        int gap = slot;
+        int next = slot;
+
+        while (true) {
+            next = (next + 1) & mask;
+            long high = this._keys.get(2 * next);
+            long low = this._keys.get(2 * next + 1);
+            if (high == 0 && low == 0) {
+                break;
+            }
+
+            // Адрес переносится в освободившуюся ячейку, если она лежит между его исходной ячейкой и текущей
+            int ideal = Ipv6Address.hash(high, low) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                this._keys.put(2 * gap, high);
+                this._keys.put(2 * gap + 1, low);
+                gap = next;
+            }
+        }
+
+        this._keys.put(2 * gap, 0L);
+        this._keys.put(2 * gap + 1, 0L);
+        this._size--;
+    }
+
+    private void grow() {
+        if (this._capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException(String.format("Set cannot hold more than %d addresses",
+                    this._threshold));
+        }
+
+        int capacity = this._capacity * 2;
+        int mask = capacity - 1;
+        LongBuffer keys = PrimitiveBuffers.allocateLongs(capacity * 2, this._offHeap);
+
+        for (int from = 0; from < this._capacity; from++) {
+            long high = this._keys.get(2 * from);
+            long low = this._keys.get(2 * from + 1);
+            if (high == 0 && low == 0) {
+                continue;
+            }
+
+            int to = Ipv6Address.hash(high, low) & mask;
+            while (keys.get(2 * to) != 0 || keys.get(2 * to + 1) != 0) {
+                to = (to + 1) & mask;
+            }
+            keys.put(2 * to, high);
+            keys.put(2 * to + 1, low);
+        }
+
+        this._keys = keys;
+        this._capacity = capacity;
+        this._threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long required = (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+        if (required > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Expected size must not exceed %d",
+                    (int) (MAX_CAPACITY * LOAD_FACTOR)));
+        }
+
+        int capacity = MIN_CAPACITY;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+}
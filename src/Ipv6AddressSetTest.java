@@ -0,0 +1,63 @@
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class Ipv6AddressSetTest {
+
+    @ParameterizedTest
+    @MethodSource("testAddRemoveProvider")
+    @DisplayName("Добавление, поиск и удаление адресов IPv6")
+    void testAddRemove(Ipv6AddressSet set, int count) {
+        SplittableRandom random = new SplittableRandom(count);
+        Set<Ipv6Address> expected = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            // Адреса из одной сети /64 отличаются только младшей половиной
+            Ipv6Address address = Ipv6Address.of(0x20010DB800000000L, random.nextInt(count * 2));
+            assertEquals(expected.add(address), set.add(address));
+        }
+        assertEquals(set.add(Ipv6Address.parse("::")), expected.add(Ipv6Address.parse("::")));
+
+        assertEquals(expected.size(), set.size());
+        for (Ipv6Address address : expected) {
+            assertTrue(set.contains(address));
+        }
+
+        Set<Ipv6Address> visited = new HashSet<>();
+        set.forEach((high, low) -> visited.add(Ipv6Address.of(high, low)));
+        assertEquals(expected, visited);
+
+        int removed = 0;
+        for (Ipv6Address address : expected) {
+            if ((address.low() & 1) == 0) {
+                assertTrue(set.remove(address));
+                assertFalse(set.remove(address));
+                removed++;
+            }
+        }
+        for (Ipv6Address address : expected) {
+            assertEquals((address.low() & 1) != 0, set.contains(address));
+        }
+        assertEquals(expected.size() - removed, set.size());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    static Stream<Arguments> testAddRemoveProvider() {
+        return Stream.of(
+                arguments(new Ipv6AddressSet(), 10),
+                arguments(new Ipv6AddressSet(), 5000),
+                arguments(new Ipv6AddressSet(100_000), 20_000),
+                arguments(Ipv6AddressSet.offHeap(0), 5000)
+        );
+    }
+}
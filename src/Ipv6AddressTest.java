@@ -0,0 +1,158 @@
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class Ipv6AddressTest {
+
+    @ParameterizedTest
+    @MethodSource("testApplyMaskProvider")
+    @DisplayName("Определение сети IPv6 при помощи маски")
+    void testApplyMask(String address, int prefixLength, String network) {
+        Ipv6Address masked = Ipv6Address.parse(address).applyMask(prefixLength);
+
+        assertEquals(Ipv6Address.parse(network), masked);
+        assertEquals(masked, Ipv6Address.parse(address).applyMask(Ipv6Address.mask(prefixLength)));
+        assertTrue(Ipv6Address.parse(address).belongsToSubnet(masked, prefixLength));
+        assertEquals(prefixLength, Ipv6Address.mask(prefixLength).getMaskLength());
+    }
+
+    static Stream<Arguments> testApplyMaskProvider() {
+        return Stream.of(
+                arguments("2001:db8:85a3::8a2e:370:7334", 64, "2001:db8:85a3::"),
+                arguments("2001:db8:85a3:1234::1", 48, "2001:db8:85a3::"),
+                arguments("2001:db8::ffff", 127, "2001:db8::fffe"),
+                arguments("2001:db8::ffff", 128, "2001:db8::ffff"),
+                arguments("fe80::1", 10, "fe80::"),
+                arguments("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", 0, "::"),
+                arguments("2001:db8:ffff:ffff:8000::", 65, "2001:db8:ffff:ffff:8000::")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testNotBelongsProvider")
+    @DisplayName("Адрес IPv6 не принадлежит сети")
+    void testNotBelongs(String address, String network, int prefixLength) {
+        assertFalse(Ipv6Address.parse(address).belongsToSubnet(Ipv6Address.parse(network), prefixLength));
+        assertFalse(Ipv6Address.parse(address).belongsToSubnet(null, prefixLength));
+    }
+
+    static Stream<Arguments> testNotBelongsProvider() {
+        return Stream.of(
+                arguments("2001:db9::1", "2001:db8::", 32),
+                arguments("2001:db8:0:0:8000::1", "2001:db8::", 65),
+                arguments("2001:db8::2", "2001:db8::3", 128)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCountHostsBetweenProvider")
+    @DisplayName("Подсчёт устройств между двумя адресами IPv6")
+    void testCountHostsBetween(String first, String second, int prefixLength, long count) {
+        Ipv6Address firstAddress = Ipv6Address.parse(first);
+        Ipv6Address secondAddress = Ipv6Address.parse(second);
+
+        assertEquals(count, firstAddress.countHostsBetween(secondAddress, prefixLength));
+        assertEquals(count, secondAddress.countHostsBetween(firstAddress, prefixLength));
+    }
+
+    static Stream<Arguments> testCountHostsBetweenProvider() {
+        return Stream.of(
+                arguments("2001:db8::1", "2001:db8::1", 64, 0L),
+                arguments("2001:db8::1", "2001:db8::2", 64, 0L),
+                arguments("2001:db8::1", "2001:db8::ff", 120, 253L),
+                arguments("2001:db8::ffff:ffff:ffff:ffff", "2001:db8:0:1::", 63, 0L),
+                arguments("2001:db8::ffff:ffff:ffff:fff0", "2001:db8:0:1::10", 48, 31L),
+                arguments("2001:db8::", "2001:db8::8000:0:0:0", 64, Long.MAX_VALUE)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCountHostsOverflowProvider")
+    @DisplayName("Исключение, когда количество устройств не помещается в long")
+    void testCountHostsOverflow(String first, String second, int prefixLength) {
+        Ipv6Address firstAddress = Ipv6Address.parse(first);
+        Ipv6Address secondAddress = Ipv6Address.parse(second);
+
+        assertThrows(ArithmeticException.class, () -> firstAddress.countHostsBetween(secondAddress, prefixLength));
+    }
+
+    static Stream<Arguments> testCountHostsOverflowProvider() {
+        return Stream.of(
+                arguments("2001:db8::", "2001:db8::8000:0:0:1", 64),
+                arguments("2001:db8::", "2001:db8:0:1::", 48),
+                arguments("::", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidMaskProvider")
+    @DisplayName("Исключения при неправильной маске и адресах из разных сетей")
+    void testInvalidMask(Ipv6Address mask) {
+        Ipv6Address address = Ipv6Address.parse("2001:db8::1");
+
+        assertThrows(IllegalArgumentException.class, () -> address.applyMask(mask));
+        assertThrows(IllegalArgumentException.class, () -> address.belongsToSubnet(address, mask));
+        assertThrows(IllegalArgumentException.class, () -> address.countHostsBetween(address, mask));
+        assertThrows(IllegalArgumentException.class,
+                () -> address.countHostsBetween(Ipv6Address.parse("2001:db9::1"), 32));
+        assertThrows(IllegalArgumentException.class, () -> Ipv6Address.mask(129));
+    }
+
+    static Stream<Arguments> testInvalidMaskProvider() {
+        return Stream.of(
+                arguments((Ipv6Address) null),
+                arguments(Ipv6Address.parse("ffff::1")),
+                arguments(Ipv6Address.parse("ffff:ffff:ffff:fffe:8000::")),
+                arguments(Ipv6Address.parse("::ffff"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testIpv4MappedProvider")
+    @DisplayName("Представление IPv4-адреса в форме IPv4-mapped")
+    void testIpv4Mapped(IpAddress address, String text) {
+        Ipv6Address mapped = Ipv6Address.fromIpv4(address);
+
+        assertTrue(mapped.isIpv4Mapped());
+        assertEquals(address, mapped.toIpv4());
+        assertEquals(text, mapped.toString());
+        assertEquals(mapped, Ipv6Address.parse(text));
+    }
+
+    static Stream<Arguments> testIpv4MappedProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("192.0.2.1"), "::ffff:192.0.2.1"),
+                arguments(IpAddress.parse("0.0.0.0"), "::ffff:0.0.0.0"),
+                arguments(IpAddress.parse("255.255.255.255"), "::ffff:255.255.255.255")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCompareToProvider")
+    @DisplayName("Сравнение адресов IPv6 как беззнаковых 128-битных чисел")
+    void testCompareTo(String smaller, String bigger) {
+        Ipv6Address first = Ipv6Address.parse(smaller);
+        Ipv6Address second = Ipv6Address.parse(bigger);
+
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(first) > 0);
+        assertEquals(0, first.compareTo(Ipv6Address.of(first.high(), first.low())));
+        assertNotEquals(first, second);
+        assertEquals(first.hashCode(), Ipv6Address.parse(smaller).hashCode());
+    }
+
+    static Stream<Arguments> testCompareToProvider() {
+        return Stream.of(
+                arguments("::", "::1"),
+                arguments("::ffff:ffff:ffff:ffff", "0:0:0:1::"),
+                arguments("7fff::", "8000::"),
+                arguments("2001:db8::ffff", "ffff::")
+        );
+    }
+}
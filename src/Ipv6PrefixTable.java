@@ -0,0 +1,281 @@
+/** Таблица маршрутизации IPv6 с поиском по наиболее длинному совпадающему префиксу
+ *
+ *  Устроена так же, как {@link PrefixTable}: префиксы хранятся в двоичном дереве со сжатием путей (PATRICIA),
+ *  но каждый узел хранит 128-битный префикс в двух числах long. Поиск по паре (high, low) ничего не выделяет
+ *  и выполняет не больше шагов, чем префиксов на пути к адресу.
+ *
+ *  Поиск безопасен при одновременной работе многих потоков с единственным изменяющим потоком:
+ *  новые узлы полностью заполняются до публикации через volatile-ссылку, а изменяющие методы синхронизированы.
+ */
+public class Ipv6PrefixTable<V> {
+    private static final int MAX_PREFIX_LENGTH = Ipv6Address.MAX_PREFIX_LENGTH;
+    private static final int HALF_LENGTH = Long.SIZE;
+
+    private static final class Node<V> {
+        final long high;
+        final long low;
+        final int length;
+
+        volatile Node<V> left;
+        volatile Node<V> right;
+        volatile V value;
+
+        Node(long high, long low, int length, V value) {
+            this.high = high;
+            this.low = low;
+            this.length = length;
+            this.value = value;
+        }
+
+        Node<V> child(boolean isRight) {
+            return isRight ? this.right : this.left;
+        }
+
+        void setChild(boolean isRight, Node<V> child) {
+            if (isRight) {
+                this.right = child;
+            } else {
+                this.left = child;
+            }
+        }
+    }
+
+    // Корень соответствует префиксу ::/0 и существует всегда
+    private final Node<V> _root = new Node<>(0L, 0L, 0, null);
+    private volatile int _size;
+
+    /** Добавляет (или заменяет) значение для сети, заданной адресом и длиной префикса; возвращает прежнее значение
+     *
+     */
+    public V put(Ipv6Address network, int prefixLength, V value) {
+        if (network == null) {
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+
+        return put(network.high(), network.low(), prefixLength, value);
+    }
+
+    /** Добавляет (или заменяет) значение для сети, заданной половинами адреса и длиной префикса
+     *
+     */
+    public synchronized V put(long high, long low, int prefixLength, V value) {
+        checkPrefixLength(prefixLength);
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+
+        long prefixHigh = high & Ipv6Address.highMask(prefixLength);
+        long prefixLow = low & Ipv6Address.lowMask(prefixLength);
+
+        Node<V> parent = this._root;
+        if (prefixLength == 0) {
+            return replaceValue(parent, value);
+        }
+
+        while (true) {
+            boolean isRight = bit(prefixHigh, prefixLow, parent.length);
+            Node<V> child = parent.child(isRight);
+
+            if (child == null) {
+                parent.setChild(isRight, new Node<>(prefixHigh, prefixLow, prefixLength, value));
+                this._size++;
+                return null;
+            }
+
+            int common = commonLength(child.high, child.low, prefixHigh, prefixLow, Math.min(child.length, prefixLength));
+
+            // Префикс дочернего узла является началом добавляемого префикса - спускаемся ниже
+            if (common == child.length) {
+                if (child.length == prefixLength) {
+                    return replaceValue(child, value);
+                }
+
+                parent = child;
+                continue;
+            }
+
+            Node<V> inserted = new Node<>(prefixHigh, prefixLow, prefixLength, value);
+            this._size++;
+
+            // Добавляемый префикс является началом префикса дочернего узла - вставляем узел между ними
+            if (common == prefixLength) {
+                inserted.setChild(bit(child.high, child.low, prefixLength), child);
+                parent.setChild(isRight, inserted);
+                return null;
+            }
+
+            // Префиксы расходятся - создаём промежуточный узел на общей части
+            Node<V> branch = new Node<>(prefixHigh & Ipv6Address.highMask(common),
+                    prefixLow & Ipv6Address.lowMask(common), common, null);
+            boolean insertedIsRight = bit(prefixHigh, prefixLow, common);
+            branch.setChild(insertedIsRight, inserted);
+            branch.setChild(!insertedIsRight, child);
+            parent.setChild(isRight, branch);
+            return null;
+        }
+    }
+
+    /** Удаляет значение для сети, заданной адресом и длиной префикса; возвращает удалённое значение
+     *
+     */
+    public V remove(Ipv6Address network, int prefixLength) {
+        if (network == null) {
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+
+        return remove(network.high(), network.low(), prefixLength);
+    }
+
+    /** Удаляет значение для сети, заданной половинами адреса и длиной префикса
+     *
+     */
+    public synchronized V remove(long high, long low, int prefixLength) {
+        checkPrefixLength(prefixLength);
+        long prefixHigh = high & Ipv6Address.highMask(prefixLength);
+        long prefixLow = low & Ipv6Address.lowMask(prefixLength);
+
+        Node<V> grandParent = null;
+        Node<V> parent = null;
+        Node<V> node = this._root;
+        while (node != null && node.length < prefixLength && matches(node, prefixHigh, prefixLow)) {
+            grandParent = parent;
+            parent = node;
+            node = node.child(bit(prefixHigh, prefixLow, node.length));
+        }
+
+        if (node == null || node.length != prefixLength || node.high != prefixHigh || node.low != prefixLow
+                || node.value == null) {
+            return null;
+        }
+
+        V removed = node.value;
+        node.value = null;
+        this._size--;
+
+        if (parent != null) {
+            compact(grandParent, parent, node);
+        }
+
+        return removed;
+    }
+
+    /** Возвращает значение, сохранённое ровно для заданной сети, или null
+     *
+     */
+    public V get(long high, long low, int prefixLength) {
+        checkPrefixLength(prefixLength);
+        long prefixHigh = high & Ipv6Address.highMask(prefixLength);
+        long prefixLow = low & Ipv6Address.lowMask(prefixLength);
+
+        Node<V> node = this._root;
+        while (node != null && node.length < prefixLength && matches(node, prefixHigh, prefixLow)) {
+            node = node.child(bit(prefixHigh, prefixLow, node.length));
+        }
+
+        if (node == null || node.length != prefixLength || node.high != prefixHigh || node.low != prefixLow) {
+            return null;
+        }
+
+        return node.value;
+    }
+
+    /** Находит значение для наиболее длинного префикса, которому принадлежит адрес, или null
+     *
+     */
+    public V lookup(Ipv6Address address) {
+        return lookup(address.high(), address.low());
+    }
+
+    /** Находит значение для наиболее длинного префикса, которому принадлежит адрес, заданный половинами, или null
+     *
+     */
+    public V lookup(long high, long low) {
+        V best = null;
+
+        Node<V> node = this._root;
+        while (node != null && matches(node, high, low)) {
+            V value = node.value;
+            if (value != null) {
+                best = value;
+            }
+
+            if (node.length == MAX_PREFIX_LENGTH) {
+                break;
+            }
+            node = node.child(bit(high, low, node.length));
+        }
+
+        return best;
+    }
+
+    /** Возвращает количество сохранённых префиксов
+     *
+     */
+    public int size() {
+        return this._size;
+    }
+
+
+    /** Заменяет значение в существующем узле и возвращает прежнее
+     *
+     */
+    private V replaceValue(Node<V> node, V value) {
+        V previous = node.value;
+        node.value = value;
+        if (previous == null) {
+            this._size++;
+        }
+
+        return previous;
+    }
+
+    /** Убирает из дерева узел без значения, если он больше не нужен для ветвления
+     *
+     */
+    private void compact(Node<V> grandParent, Node<V> parent, Node<V> node) {
+        boolean isRight = parent.right == node;
+
+        if (node.left != null && node.right != null) {
+            return;
+        }
+
+        Node<V> onlyChild = node.left != null ? node.left : node.right;
+        parent.setChild(isRight, onlyChild);
+
+        // Промежуточный узел родителя мог остаться лишь с одним потомком
+        if (onlyChild == null && grandParent != null && parent.value == null) {
+            Node<V> sibling = parent.child(!isRight);
+            if (sibling != null) {
+                grandParent.setChild(grandParent.right == parent, sibling);
+            }
+        }
+    }
+
+    private static void checkPrefixLength(int prefixLength) {
+        if (prefixLength < 0 || prefixLength > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Prefix length must be in range [%d..%d]", 0, MAX_PREFIX_LENGTH)
+            );
+        }
+    }
+
+    private static boolean matches(Node<?> node, long high, long low) {
+        return (high & Ipv6Address.highMask(node.length)) == node.high
+                && (low & Ipv6Address.lowMask(node.length)) == node.low;
+    }
+
+    /** Возвращает значение бита с заданным номером (начиная со старшего)
+     *
+     */
+    private static boolean bit(long high, long low, int index) {
+        return index < HALF_LENGTH ? (high << index) < 0 : (low << (index - HALF_LENGTH)) < 0;
+    }
+
+    private static int commonLength(long firstHigh, long firstLow, long secondHigh, long secondLow, int maxLength) {
+        long difference = firstHigh ^ secondHigh;
+        int common = difference != 0
+                ? Long.numberOfLeadingZeros(difference)
+                : HALF_LENGTH + Long.numberOfLeadingZeros(firstLow ^ secondLow);
+        return Math.min(common, maxLength);
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class Ipv6PrefixTableTest {
+
+    private static Ipv6PrefixTable<String> createTable() {
+        Ipv6PrefixTable<String> table = new Ipv6PrefixTable<>();
+        table.put(Ipv6Address.parse("::"), 0, "default");
+        table.put(Ipv6Address.parse("2001:db8::"), 32, "documentation");
+        table.put(Ipv6Address.parse("2001:db8:85a3::"), 48, "site");
+        table.put(Ipv6Address.parse("2001:db8:85a3:1::"), 64, "lan");
+        table.put(Ipv6Address.parse("2001:db8:85a3:1:8000::"), 65, "upper half");
+        table.put(Ipv6Address.parse("2001:db8:85a3:1::1"), 128, "gateway");
+        table.put(Ipv6Address.parse("fe80::"), 10, "link-local");
+        return table;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testLookupProvider")
+    @DisplayName("Поиск наиболее длинного префикса IPv6")
+    void testLookup(String address, String expected) {
+        assertEquals(expected, createTable().lookup(Ipv6Address.parse(address)));
+    }
+
+    static Stream<Arguments> testLookupProvider() {
+        return Stream.of(
+                arguments("2001:db8:85a3:1::1", "gateway"),
+                arguments("2001:db8:85a3:1::2", "lan"),
+                arguments("2001:db8:85a3:1:ffff::", "upper half"),
+                arguments("2001:db8:85a3:2::1", "site"),
+                arguments("2001:db8:1::1", "documentation"),
+                arguments("febf:ffff::1", "link-local"),
+                arguments("2001:db9::1", "default")
+        );
+    }
+
+    @Test
+    @DisplayName("Замена, точный поиск и удаление префиксов IPv6")
+    void testPutGetRemove() {
+        Ipv6PrefixTable<String> table = createTable();
+        Ipv6Address lan = Ipv6Address.parse("2001:db8:85a3:1::");
+
+        assertEquals(7, table.size());
+        assertEquals("lan", table.put(lan, 64, "office"));
+        assertEquals("office", table.get(lan.high(), lan.low(), 64));
+        assertNull(table.get(lan.high(), lan.low(), 63));
+
+        assertEquals("office", table.remove(lan, 64));
+        assertNull(table.remove(lan, 64));
+        assertEquals(6, table.size());
+        assertEquals("site", table.lookup(Ipv6Address.parse("2001:db8:85a3:1::2")));
+        assertEquals("gateway", table.lookup(Ipv6Address.parse("2001:db8:85a3:1::1")));
+        assertEquals("upper half", table.lookup(Ipv6Address.parse("2001:db8:85a3:1:8000::1")));
+
+        assertEquals("default", table.remove(Ipv6Address.parse("::"), 0));
+        assertNull(table.lookup(Ipv6Address.parse("2001:db9::1")));
+    }
+
+    @Test
+    @DisplayName("Исключения при неправильных аргументах таблицы IPv6")
+    void testInvalidArguments() {
+        Ipv6PrefixTable<String> table = new Ipv6PrefixTable<>();
+
+        assertThrows(IllegalArgumentException.class, () -> table.put(Ipv6Address.parse("::"), 129, "x"));
+        assertThrows(IllegalArgumentException.class, () -> table.put(Ipv6Address.parse("::"), -1, "x"));
+        assertThrows(IllegalArgumentException.class, () -> table.put(Ipv6Address.parse("::"), 0, null));
+        assertThrows(IllegalArgumentException.class, () -> table.put(null, 0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> table.remove(null, 0));
+    }
+}
@@ -0,0 +1,90 @@
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/** Неблокирующие счётчики запросов по подсетям IPv6 заданной длины с ограничением частоты
+ *
+ *  Работает так же, как {@link SubnetCounter}, и использует ту же таблицу {@link SubnetCounterTable}; ключом
+ *  подсети служат обе половины адреса после наложения маски, поэтому поддерживается любая длина префикса
+ *  (обычно /64 - сеть одного абонента). Методы, принимающие половины адреса, ничего не выделяют.
+ */
+public class Ipv6SubnetCounter {
+    private final long _highMask;
+    private final long _lowMask;
+    private final SubnetCounterTable _table;
+
+    /** Создаёт счётчики для подсетей длины prefixLength (не более capacity подсетей) с окном подсчёта window
+     *  и ограничением permitsPerSecond запросов в секунду с допустимым всплеском burst
+     */
+    public Ipv6SubnetCounter(int prefixLength, int capacity, Duration window, double permitsPerSecond, int burst) {
+        this(prefixLength, capacity, window, permitsPerSecond, burst, System::nanoTime);
+    }
+
+    Ipv6SubnetCounter(int prefixLength, int capacity, Duration window, double permitsPerSecond, int burst,
+                      LongSupplier clock) {
+        this._highMask = Ipv6Address.highMask(prefixLength);
+        this._lowMask = Ipv6Address.lowMask(prefixLength);
+        this._table = new SubnetCounterTable(capacity, window, permitsPerSecond, burst, clock);
+    }
+
+    /** Учитывает запрос с IPv6-адреса; false, если таблица заполнена активными подсетями и запрос не учтён
+     *
+     */
+    public boolean increment(Ipv6Address address) {
+        return add(address.high(), address.low(), 1);
+    }
+
+    /** Учитывает запрос с адреса, заданного половинами
+     *
+     */
+    public boolean increment(long high, long low) {
+        return add(high, low, 1);
+    }
+
+    /** Прибавляет delta к счётчику подсети адреса, заданного половинами
+     *
+     */
+    public boolean add(long high, long low, long delta) {
+        long networkHigh = high & this._highMask;
+        long networkLow = low & this._lowMask;
+        return this._table.add(networkHigh, networkLow, Ipv6Address.hash(networkHigh, networkLow), delta);
+    }
+
+    /** Возвращает оценку числа запросов из подсети IPv6-адреса за последнее окно
+     *
+     */
+    public long count(Ipv6Address address) {
+        return count(address.high(), address.low());
+    }
+
+    /** Возвращает оценку числа запросов из подсети адреса, заданного половинами, за последнее окно
+     *
+     */
+    public long count(long high, long low) {
+        long networkHigh = high & this._highMask;
+        long networkLow = low & this._lowMask;
+        return this._table.count(networkHigh, networkLow, Ipv6Address.hash(networkHigh, networkLow));
+    }
+
+    /** Пытается получить разрешение на запрос с IPv6-адреса; false, если подсеть превысила ограничение частоты
+     *  (или таблица заполнена активными подсетями)
+     */
+    public boolean tryAcquire(Ipv6Address address) {
+        return tryAcquire(address.high(), address.low());
+    }
+
+    /** Пытается получить разрешение на запрос с адреса, заданного половинами
+     *
+     */
+    public boolean tryAcquire(long high, long low) {
+        long networkHigh = high & this._highMask;
+        long networkLow = low & this._lowMask;
+        return this._table.tryAcquire(networkHigh, networkLow, Ipv6Address.hash(networkHigh, networkLow));
+    }
+
+    /** Возвращает количество отслеживаемых подсетей
+     *
+     */
+    public int size() {
+        return this._table.size();
+    }
+}
@@ -0,0 +1,121 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class Ipv6SubnetCounterTest {
+
+    static final long SECOND = 1_000_000_000L;
+
+    @ParameterizedTest
+    @MethodSource("testCountProvider")
+    @DisplayName("Запросы IPv6 считаются по подсети адреса")
+    void testCount(int prefixLength, String[] addresses, String probe, long expected) {
+        Ipv6SubnetCounter counter = new Ipv6SubnetCounter(prefixLength, 16, Duration.ofSeconds(1), 1000, 10,
+                () -> SECOND);
+        for (String address : addresses) {
+            assertTrue(counter.increment(Ipv6Address.parse(address)));
+        }
+
+        assertEquals(expected, counter.count(Ipv6Address.parse(probe)));
+    }
+
+    static Stream<Arguments> testCountProvider() {
+        String[] addresses = {"2001:db8::1", "2001:db8::ffff:1", "2001:db8:0:1::1", "::", "::1",
+                "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"};
+        return Stream.of(
+                arguments(64, addresses, "2001:db8::77", 2L),
+                arguments(48, addresses, "2001:db8:0:ffff::", 3L),
+                arguments(128, addresses, "2001:db8::1", 1L),
+                arguments(96, addresses, "::", 2L),
+                arguments(64, addresses, "ffff:ffff:ffff:ffff::", 1L),
+                arguments(0, addresses, "2002::", 6L),
+                arguments(64, addresses, "2001:db8:0:2::", 0L)
+        );
+    }
+
+    @Test
+    @DisplayName("Скользящее окно и ограничение частоты для подсетей IPv6")
+    void testSlidingWindowAndTryAcquire() {
+        AtomicLong clock = new AtomicLong(10 * SECOND);
+        Ipv6SubnetCounter counter = new Ipv6SubnetCounter(64, 16, Duration.ofSeconds(1), 10, 5, clock::get);
+        long high = 0x20010DB800000000L;
+
+        counter.add(high, 1, 100);
+        clock.set(11 * SECOND + SECOND / 4);
+        counter.add(high, 2, 10);
+        assertEquals(85, counter.count(high, 3));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(counter.tryAcquire(high, i));
+        }
+        assertFalse(counter.tryAcquire(high, 5));
+        assertTrue(counter.tryAcquire(high + 1, 5));
+        assertEquals(2, counter.size());
+    }
+
+    @Test
+    @DisplayName("Одновременные увеличения подсетей IPv6 на границе окон не теряются")
+    void testConcurrentIncrements() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(10 * SECOND + SECOND / 2);
+        Ipv6SubnetCounter counter = new Ipv6SubnetCounter(64, 64, Duration.ofSeconds(1), 1000, 10, clock::get);
+        int threadsCount = 8;
+        int increments = 50_000;
+        int networks = 16;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadsCount; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < increments; i++) {
+                    if (seed == 0 && i == increments / 2) {
+                        clock.set(11 * SECOND + SECOND / 2);
+                    }
+                    assertTrue(counter.increment(0x20010DB800000000L | (i + seed) % networks, i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // В начале окна оценка равна сумме текущего и предыдущего окон целиком
+        clock.set(11 * SECOND);
+        long total = 0;
+        for (int network = 0; network < networks; network++) {
+            total += counter.count(0x20010DB800000000L | network, 0);
+        }
+        assertEquals((long) threadsCount * increments, total);
+        assertEquals(networks, counter.size());
+    }
+
+    @Test
+    @DisplayName("Ячейки неактивных подсетей IPv6 переходят к новым подсетям")
+    void testReclaim() {
+        AtomicLong clock = new AtomicLong(SECOND);
+        Ipv6SubnetCounter counter = new Ipv6SubnetCounter(64, 2, Duration.ofSeconds(1), 1000, 10, clock::get);
+
+        assertTrue(counter.increment(Ipv6Address.parse("2001:db8:0:1::1")));
+        assertTrue(counter.increment(Ipv6Address.parse("2001:db8:0:2::1")));
+        assertFalse(counter.increment(Ipv6Address.parse("2001:db8:0:3::1")));
+        assertFalse(counter.tryAcquire(Ipv6Address.parse("2001:db8:0:3::1")));
+
+        clock.set(3 * SECOND);
+        assertTrue(counter.increment(Ipv6Address.parse("2001:db8:0:3::1")));
+        assertEquals(1, counter.count(Ipv6Address.parse("2001:db8:0:3::ffff")));
+        assertEquals(0, counter.count(Ipv6Address.parse("2001:db8:0:1::1")));
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/** Гистограмма задержек с логарифмически-линейными корзинами (в духе HdrHistogram)
+ *
+ *  Значения до 16 хранятся точно, более крупные попадают в одну из 16 равных корзин внутри своей степени
+ *  двойки, поэтому относительная погрешность не превышает 1/16 на всём диапазоне long. Счётчики корзин -
+ *  LongAdder, поэтому запись из многих потоков не создаёт конкуренции за одну ячейку.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] _buckets = new LongAdder[BUCKETS_COUNT];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            this._buckets[i] = new LongAdder();
+        }
+    }
+
+    /** Неизменяемый снимок гистограммы
+     *
+     */
+    public static final class Snapshot {
+        private final long[] _counts;
+        private final long _count;
+
+        private Snapshot(long[] counts) {
+            this._counts = counts;
+            long count = 0;
+            for (long bucket : counts) {
+                count += bucket;
+            }
+            this._count = count;
+        }
+
+        /** Возвращает количество записанных значений
+         *
+         */
+        public long count() {
+            return this._count;
+        }
+
+        /** Возвращает значение, не меньше которого percentile процентов записанных значений
+         *  (верхняя граница корзины); 0 для пустой гистограммы
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be in range [0..100]");
+            }
+            if (this._count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(this._count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < this._counts.length; i++) {
+                seen += this._counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+
+            return upperBound(this._counts.length - 1);
+        }
+
+        /** Возвращает среднее значение по серединам корзин
+         *
+         */
+        public double mean() {
+            if (this._count == 0) {
+                return 0;
+            }
+
+            double sum = 0;
+            for (int i = 0; i < this._counts.length; i++) {
+                if (this._counts[i] != 0) {
+                    sum += this._counts[i] * ((double) lowerBound(i) + upperBound(i)) / 2;
+                }
+            }
+
+            return sum / this._count;
+        }
+    }
+
+    /** Записывает неотрицательное значение (отрицательные считаются нулём)
+     *
+     */
+    public void record(long value) {
+        this._buckets[bucketOf(Math.max(0, value))].increment();
+    }
+
+    /** Возвращает снимок гистограммы; при одновременной записи снимок может не включать последние значения
+     *
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS_COUNT];
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            counts[i] = this._buckets[i].sum();
+        }
+
+        return new Snapshot(counts);
+    }
+
+    /** Сбрасывает гистограмму
+     *
+     */
+    public void reset() {
+        for (LongAdder bucket : this._buckets) {
+            bucket.reset();
+        }
+    }
+
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long upper = lowerBound(bucket) + width - 1;
+        // Последняя корзина доходит до Long.MAX_VALUE
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @MethodSource("testPercentileProvider")
+    @DisplayName("Процентили с относительной погрешностью не более 1/16")
+    void testPercentile(long maxValue, double percentile) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(maxValue);
+        long[] values = random.longs(10_000, 0, maxValue).sorted().toArray();
+        for (long value : values) {
+            histogram.record(value);
+        }
+
+        long expected = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+        long actual = histogram.snapshot().percentile(percentile);
+
+        assertTrue(actual >= expected, actual + " < " + expected);
+        assertTrue(actual - expected <= expected / 16 + 1, actual + " is too far from " + expected);
+    }
+
+    static Stream<Arguments> testPercentileProvider() {
+        return Stream.of(
+                arguments(10L, 50.0),
+                arguments(1000L, 50.0),
+                arguments(1000L, 99.0),
+                arguments(1_000_000_000L, 99.9),
+                arguments(Long.MAX_VALUE, 100.0)
+        );
+    }
+
+    @Test
+    @DisplayName("Пустая гистограмма и сброс")
+    void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().percentile(99));
+
+        histogram.record(100);
+        histogram.record(-5);
+        assertEquals(2, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().percentile(50));
+        assertEquals(50, histogram.snapshot().mean(), 4);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count());
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Параллельный подсчёт обращений по подсетям в больших текстовых журналах
+ *
+ *  Файл журнала отображается в память участками, границы которых выровнены по концам строк.
+ *  Участки обрабатываются задачами fork-join: адрес в начале каждой строки разбирается прямо в отображённой
+ *  памяти, подсеть определяется по наиболее длинному совпадающему префиксу, а счётчики накапливаются
+ *  в собственном массиве каждой задачи и складываются при объединении результатов.
+ */
+public class LogClassifier {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 26;
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+    private static final int SCAN_BUFFER_SIZE = 1 << 13;
+
+    private final List<Subnet> _subnets;
+    // Значения таблицы - заранее созданные индексы подсетей, поэтому поиск ничего не выделяет
+    private final PrefixTable<Integer> _table = new PrefixTable<>();
+
+    /** Результат подсчёта
+     *
+     */
+    public static final class Result {
+        private final List<Subnet> _subnets;
+        private final long[] _counters;
+
+        private Result(List<Subnet> subnets, long[] counters) {
+            this._subnets = subnets;
+            this._counters = counters;
+        }
+
+        /** Возвращает количество строк, адрес которых отнесён к подсети с заданным индексом
+         *
+         */
+        public long hits(int index) {
+            if (index < 0 || index >= this._subnets.size()) {
+                throw new IllegalArgumentException(String.format("Subnet index %d is out of range", index));
+            }
+
+            return this._counters[index];
+        }
+
+        /** Возвращает количество строк, адрес которых отнесён к заданной подсети
+         *
+         */
+        public long hits(Subnet subnet) {
+            int index = this._subnets.indexOf(subnet);
+            if (index < 0) {
+                throw new IllegalArgumentException(String.format("Unknown subnet %s", subnet));
+            }
+
+            return this._counters[index];
+        }
+
+        /** Возвращает количество строк с правильным адресом, не попавшим ни в одну подсеть
+         *
+         */
+        public long unmatched() {
+            return this._counters[this._subnets.size()];
+        }
+
+        /** Возвращает количество непустых строк, не начинающихся с правильного IP-адреса
+         *
+         */
+        public long invalid() {
+            return this._counters[this._subnets.size() + 1];
+        }
+
+        /** Возвращает количество обработанных непустых строк
+         *
+         */
+        public long total() {
+            long total = 0;
+            for (long counter : this._counters) {
+                total += counter;
+            }
+
+            return total;
+        }
+    }
+
+    /** Создаёт классификатор для списка подсетей; индекс подсети в списке используется в результате
+     *
+     */
+    public LogClassifier(List<Subnet> subnets) {
+        if (subnets == null) {
+            throw new IllegalArgumentException("Subnets cannot be null");
+        }
+
+        this._subnets = List.copyOf(subnets);
+        for (int i = 0; i < this._subnets.size(); i++) {
+            if (this._table.put(this._subnets.get(i), i) != null) {
+                throw new IllegalArgumentException(String.format("Duplicate subnet %s", this._subnets.get(i)));
+            }
+        }
+    }
+
+    /** Подсчитывает обращения по подсетям в файле журнала, используя общий пул fork-join
+     *
+     */
+    public Result classify(Path path) throws IOException {
+        return classify(path, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /** Подсчитывает обращения по подсетям в файле журнала в заданном пуле, разбивая файл на участки
+     *  примерно по chunkSize байтов
+     */
+    public Result classify(Path path, ForkJoinPool pool, int chunkSize) throws IOException {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException(String.format("Chunk size must be in range 1..%d", MAX_CHUNK_SIZE));
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel, chunkSize);
+            long[] counters = pool.invoke(new ChunkTask(channel, boundaries, 0, boundaries.length - 1));
+            return new Result(this._subnets, counters);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Подсчитывает обращения по подсетям в байтах [start, end) буфера (абсолютные индексы)
+     *
+     */
+    public Result classify(ByteBuffer buffer, int start, int end) {
+        long[] counters = newCounters();
+        classifyLines(buffer, start, end, counters);
+        return new Result(this._subnets, counters);
+    }
+
+
+    private long[] newCounters() {
+        // После счётчиков подсетей - счётчики строк без подсети и строк с ошибкой
+        return new long[this._subnets.size() + 2];
+    }
+
+    /** Разбирает строки буфера и увеличивает счётчики
+     *
+     */
+    private void classifyLines(ByteBuffer buffer, int start, int end, long[] counters) {
+        int unmatched = this._subnets.size();
+        int invalid = unmatched + 1;
+
+        int i = start;
+        while (i < end) {
+            // Пропускаем пробелы в начале строки
+            while (i < end && isBlank(buffer.get(i))) {
+                i++;
+            }
+
+            int addressStart = i;
+            while (i < end && isAddressByte(buffer.get(i))) {
+                i++;
+            }
+            int addressEnd = i;
+
+            while (i < end && buffer.get(i) != '\n') {
+                i++;
+            }
+            i++;
+
+            if (addressStart == addressEnd) {
+                // Пустые строки не учитываются
+                if (addressEnd < end && !isLineEnd(buffer.get(addressEnd))) {
+                    counters[invalid]++;
+                }
+                continue;
+            }
+
+            long parsed = IpAddressParser.tryParse(buffer, addressStart, addressEnd);
+            if (parsed == IpAddressParser.INVALID) {
+                counters[invalid]++;
+                continue;
+            }
+
+            Integer index = this._table.lookup(IpAddressParser.address(parsed));
+            counters[index == null ? unmatched : index]++;
+        }
+    }
+
+    /** Разбивает файл на участки примерно по chunkSize байтов; каждая граница следует сразу за переводом строки
+     *
+     */
+    private static long[] chunkBoundaries(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long boundary = nextLineStart(channel, position, size, scan);
+            boundaries.add(boundary);
+            position = boundary + chunkSize;
+        }
+        if (boundaries.get(boundaries.size() - 1) != size) {
+            boundaries.add(size);
+        }
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+
+        return result;
+    }
+
+    /** Возвращает начало первой строки, начинающейся не раньше position, или размер файла
+     *
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer scan) throws IOException {
+        // Строка начинается в position, если перед ней стоит перевод строки
+        long offset = position - 1;
+        while (offset < size) {
+            scan.clear();
+            int read = channel.read(scan, offset);
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+
+        return size;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static boolean isAddressByte(byte b) {
+        return (b >= '0' && b <= '9') || b == '.';
+    }
+
+
+    /** Задача обработки участков [from, to) файла; возвращает сумму их счётчиков
+     *
+     */
+    private final class ChunkTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel _channel;
+        private final long[] _boundaries;
+        private final int _from;
+        private final int _to;
+
+        ChunkTask(FileChannel channel, long[] boundaries, int from, int to) {
+            this._channel = channel;
+            this._boundaries = boundaries;
+            this._from = from;
+            this._to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (this._to - this._from > 1) {
+                int middle = (this._from + this._to) >>> 1;
+                ChunkTask left = new ChunkTask(this._channel, this._boundaries, this._from, middle);
+                left.fork();
+                long[] counters = new ChunkTask(this._channel, this._boundaries, middle, this._to).compute();
+                long[] leftCounters = left.join();
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] += leftCounters[i];
+                }
+
+                return counters;
+            }
+
+            long[] counters = newCounters();
+            if (this._to == this._from) {
+                return counters;
+            }
+
+            long start = this._boundaries[this._from];
+            long length = this._boundaries[this._to] - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(String.format("Line at offset %d is too long", start));
+            }
+
+            MappedByteBuffer chunk;
+            try {
+                chunk = this._channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            classifyLines(chunk, 0, (int) length, counters);
+            return counters;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class LogClassifierTest {
+
+    static final List<Subnet> SUBNETS = List.of(
+            Subnet.parse("10.0.0.0/8"),
+            Subnet.parse("10.1.0.0/16"),
+            Subnet.parse("192.168.0.0/24"));
+
+    @ParameterizedTest
+    @MethodSource("testClassifyProvider")
+    @DisplayName("Подсчёт строк журнала по подсетям")
+    void testClassify(String log, long[] expectedHits, long expectedUnmatched, long expectedInvalid) {
+        LogClassifier classifier = new LogClassifier(SUBNETS);
+        byte[] bytes = log.getBytes(StandardCharsets.US_ASCII);
+
+        LogClassifier.Result result = classifier.classify(ByteBuffer.wrap(bytes), 0, bytes.length);
+
+        for (int i = 0; i < expectedHits.length; i++) {
+            assertEquals(expectedHits[i], result.hits(i));
+        }
+        assertEquals(expectedUnmatched, result.unmatched());
+        assertEquals(expectedInvalid, result.invalid());
+    }
+
+    static Stream<Arguments> testClassifyProvider() {
+        return Stream.of(
+                arguments("10.2.3.4 - - GET /\n10.1.2.3 - - GET /\n", new long[] {1, 1, 0}, 0, 0),
+                arguments("192.168.0.7\r\n192.168.1.7\r\n", new long[] {0, 0, 1}, 1, 0),
+                arguments("  10.0.0.1\tGET\n\n\r\nhost GET\n300.1.1.1 GET\n", new long[] {1, 0, 0}, 0, 2),
+                arguments("10.1.255.255", new long[] {0, 1, 0}, 0, 0),
+                arguments("", new long[] {0, 0, 0}, 0, 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testClassifyFileProvider")
+    @DisplayName("Подсчёт по файлу при разных размерах участков совпадает с последовательным подсчётом")
+    void testClassifyFile(int lines, int chunkSize) throws IOException {
+        Random random = new Random(lines);
+        long[] expected = new long[SUBNETS.size() + 2];
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            int address = random.nextBoolean() ? 0x0A000000 | random.nextInt(1 << 18) : random.nextInt();
+            if (random.nextInt(50) == 0) {
+                log.append("garbage line\n");
+                expected[SUBNETS.size() + 1]++;
+                continue;
+            }
+
+            log.append(IpAddress.fromInt(address)).append(" - - [17/Oct/2026] \"GET /index.html\" 200\n");
+            int best = -1;
+            for (int j = 0; j < SUBNETS.size(); j++) {
+                if (SUBNETS.get(j).contains(address)
+                        && (best < 0 || SUBNETS.get(j).prefixLength() > SUBNETS.get(best).prefixLength())) {
+                    best = j;
+                }
+            }
+            expected[best < 0 ? SUBNETS.size() : best]++;
+        }
+
+        Path file = Files.createTempFile("log-classifier", ".log");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, log, StandardCharsets.US_ASCII);
+
+        LogClassifier.Result result = new LogClassifier(SUBNETS).classify(file, ForkJoinPool.commonPool(), chunkSize);
+
+        for (int i = 0; i < SUBNETS.size(); i++) {
+            assertEquals(expected[i], result.hits(SUBNETS.get(i)));
+        }
+        assertEquals(expected[SUBNETS.size()], result.unmatched());
+        assertEquals(expected[SUBNETS.size() + 1], result.invalid());
+        assertEquals(lines, result.total());
+    }
+
+    static Stream<Arguments> testClassifyFileProvider() {
+        return Stream.of(
+                arguments(0, 1),
+                arguments(1, 1),
+                arguments(1000, 1),
+                arguments(1000, 100),
+                arguments(10000, 4096),
+                arguments(10000, 1 << 26)
+        );
+    }
+
+    @Test
+    @DisplayName("Повторяющиеся подсети недопустимы")
+    void testDuplicateSubnet() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LogClassifier(List.of(Subnet.parse("10.0.0.0/8"), Subnet.parse("10.1.2.3/8"))));
+    }
+}
@@ -0,0 +1,331 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Таблица маршрутизации с поиском по наиболее длинному совпадающему префиксу (longest prefix match)
+ *
+ *  Префиксы хранятся в двоичных деревьях со сжатием путей (PATRICIA): каждый узел хранит префикс целиком,
+ *  поэтому цепочки узлов без ветвлений не создаются. Префиксы длиной от 16 бит попадают в отдельное дерево
+ *  своей сети /16, которое выбирается по индексу за один шаг, короткие префиксы - в общее небольшое дерево.
+ *  Поиск выполняет не более 33 шагов (на практике - единицы) и ничего не выделяет.
+ *
+ *  Поиск безопасен при одновременной работе многих потоков с единственным изменяющим потоком:
+ *  новые узлы полностью заполняются до публикации через volatile-ссылку, а изменяющие методы синхронизированы.
+ */
+public class PrefixTable<V> {
+    private static final int MAX_PREFIX_LENGTH = 32;
+    private static final int SLOT_PREFIX_LENGTH = 16;
+    private static final int SLOTS_COUNT = 1 << SLOT_PREFIX_LENGTH;
+
+    private static final class Node<V> {
+        final int prefix;
+        final int length;
+
+        volatile Node<V> left;
+        volatile Node<V> right;
+        volatile V value;
+
+        Node(int prefix, int length, V value) {
+            this.prefix = prefix;
+            this.length = length;
+            this.value = value;
+        }
+
+        Node<V> child(boolean isRight) {
+            return isRight ? this.right : this.left;
+        }
+
+        void setChild(boolean isRight, Node<V> child) {
+            if (isRight) {
+                this.right = child;
+            } else {
+                this.left = child;
+            }
+        }
+    }
+
+    // Корень дерева коротких префиксов соответствует префиксу 0.0.0.0/0 и существует всегда
+    private final Node<V> _root = new Node<>(0, 0, null);
+    // Корни деревьев префиксов длиной от 16 бит, по одному на каждую сеть /16 (создаются по мере надобности)
+    private final AtomicReferenceArray<Node<V>> _slots = new AtomicReferenceArray<>(SLOTS_COUNT);
+    private volatile int _size;
+
+    /** Добавляет (или заменяет) значение для сети, заданной адресом и маской; возвращает прежнее значение
+     *
+     */
+    public V put(IpAddress network, IpAddress mask, V value) {
+        return put(network.applyMask(mask).toInt(), mask.getMaskLength(), value);
+    }
+
+    /** Добавляет (или заменяет) значение для сети, заданной адресом и длиной префикса
+     *
+     */
+    public V put(IpAddress network, int prefixLength, V value) {
+        if (network == null) {
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+
+        return put(network.toInt(), prefixLength, value);
+    }
+
+    /** Добавляет (или заменяет) значение для подсети
+     *
+     */
+    public V put(Subnet subnet, V value) {
+        return put(subnet.networkInt(), subnet.prefixLength(), value);
+    }
+
+    /** Добавляет (или заменяет) значение для сети, заданной упакованным адресом и длиной префикса
+     *
+     */
+    public synchronized V put(int network, int prefixLength, V value) {
+        checkPrefixLength(prefixLength);
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+
+        int prefix = network & maskOf(prefixLength);
+
+        Node<V> parent = startNode(prefix, prefixLength, true);
+        if (parent.length == prefixLength) {
+            return replaceValue(parent, value);
+        }
+
+        while (true) {
+            boolean isRight = bit(prefix, parent.length);
+            Node<V> child = parent.child(isRight);
+
+            if (child == null) {
+                parent.setChild(isRight, new Node<>(prefix, prefixLength, value));
+                _size++;
+                return null;
+            }
+
+            int common = commonLength(child.prefix, prefix, Math.min(child.length, prefixLength));
+
+            // Префикс дочернего узла является началом добавляемого префикса - спускаемся ниже
+            if (common == child.length) {
+                if (child.length == prefixLength) {
+                    return replaceValue(child, value);
+                }
+
+                parent = child;
+                continue;
+            }
+
+            Node<V> inserted = new Node<>(prefix, prefixLength, value);
+            _size++;
+
+            // Добавляемый префикс является началом префикса дочернего узла - вставляем узел между ними
+            if (common == prefixLength) {
+                inserted.setChild(bit(child.prefix, prefixLength), child);
+                parent.setChild(isRight, inserted);
+                return null;
+            }
+
+            // Префиксы расходятся - создаём промежуточный узел на общей части
+            Node<V> branch = new Node<>(prefix & maskOf(common), common, null);
+            boolean insertedIsRight = bit(prefix, common);
+            branch.setChild(insertedIsRight, inserted);
+            branch.setChild(!insertedIsRight, child);
+            parent.setChild(isRight, branch);
+            return null;
+        }
+    }
+
+    /** Удаляет значение для сети, заданной адресом и маской; возвращает удалённое значение
+     *
+     */
+    public V remove(IpAddress network, IpAddress mask) {
+        return remove(network.applyMask(mask).toInt(), mask.getMaskLength());
+    }
+
+    /** Удаляет значение для подсети
+     *
+     */
+    public V remove(Subnet subnet) {
+        return remove(subnet.networkInt(), subnet.prefixLength());
+    }
+
+    /** Удаляет значение для сети, заданной упакованным адресом и длиной префикса
+     *
+     */
+    public synchronized V remove(int network, int prefixLength) {
+        checkPrefixLength(prefixLength);
+        int prefix = network & maskOf(prefixLength);
+
+        Node<V> grandParent = null;
+        Node<V> parent = null;
+        Node<V> node = startNode(prefix, prefixLength, false);
+        while (node != null && node.length < prefixLength && matches(node, prefix)) {
+            grandParent = parent;
+            parent = node;
+            node = node.child(bit(prefix, node.length));
+        }
+
+        if (node == null || node.length != prefixLength || node.prefix != prefix || node.value == null) {
+            return null;
+        }
+
+        V removed = node.value;
+        node.value = null;
+        _size--;
+
+        if (parent != null) {
+            compact(grandParent, parent, node);
+        }
+
+        return removed;
+    }
+
+    /** Возвращает значение, сохранённое ровно для заданной сети, или null
+     *
+     */
+    public V get(int network, int prefixLength) {
+        checkPrefixLength(prefixLength);
+        int prefix = network & maskOf(prefixLength);
+
+        Node<V> node = startNode(prefix, prefixLength, false);
+        while (node != null && node.length < prefixLength && matches(node, prefix)) {
+            node = node.child(bit(prefix, node.length));
+        }
+
+        if (node == null || node.length != prefixLength || node.prefix != prefix) {
+            return null;
+        }
+
+        return node.value;
+    }
+
+    /** Находит значение для наиболее длинного префикса, которому принадлежит IP-адрес, или null
+     *
+     */
+    public V lookup(IpAddress address) {
+        return lookup(address.toInt());
+    }
+
+    /** Находит значение для наиболее длинного префикса, которому принадлежит упакованный IP-адрес, или null
+     *
+     */
+    public V lookup(int address) {
+        long start = IpMetrics.ENABLED ? System.nanoTime() : 0;
+
+        // Префиксы из дерева сети /16 всегда длиннее коротких, поэтому найденное там значение окончательное
+        V best = lookupFrom(_slots.get(address >>> SLOT_PREFIX_LENGTH), address);
+        if (best == null) {
+            best = lookupFrom(_root, address);
+        }
+
+        if (IpMetrics.ENABLED) {
+            IpMetrics.record(IpMetrics.Operation.PREFIX_LOOKUP, start);
+        }
+        return best;
+    }
+
+    /** Возвращает количество сохранённых префиксов
+     *
+     */
+    public int size() {
+        return _size;
+    }
+
+
+    /** Спускается по дереву от заданного узла и возвращает значение наиболее длинного совпавшего префикса
+     *
+     */
+    private static <V> V lookupFrom(Node<V> node, int address) {
+        V best = null;
+
+        while (node != null && matches(node, address)) {
+            V value = node.value;
+            if (value != null) {
+                best = value;
+            }
+
+            if (node.length == MAX_PREFIX_LENGTH) {
+                break;
+            }
+            node = node.child(bit(address, node.length));
+        }
+
+        return best;
+    }
+
+    /** Возвращает корень дерева, в котором должен храниться префикс (при необходимости создавая его)
+     *
+     */
+    private Node<V> startNode(int prefix, int prefixLength, boolean create) {
+        if (prefixLength < SLOT_PREFIX_LENGTH) {
+            return _root;
+        }
+
+        int slot = prefix >>> SLOT_PREFIX_LENGTH;
+        Node<V> slotRoot = _slots.get(slot);
+        if (slotRoot == null && create) {
+            slotRoot = new Node<>(prefix & maskOf(SLOT_PREFIX_LENGTH), SLOT_PREFIX_LENGTH, null);
+            _slots.set(slot, slotRoot);
+        }
+
+        return slotRoot;
+    }
+
+    /** Заменяет значение в существующем узле и возвращает прежнее
+     *
+     */
+    private V replaceValue(Node<V> node, V value) {
+        V previous = node.value;
+        node.value = value;
+        if (previous == null) {
+            _size++;
+        }
+
+        return previous;
+    }
+
+    /** Убирает из дерева узел без значения, если он больше не нужен для ветвления
+     *
+     */
+    private void compact(Node<V> grandParent, Node<V> parent, Node<V> node) {
+        boolean isRight = parent.right == node;
+
+        if (node.left != null && node.right != null) {
+            return;
+        }
+
+        Node<V> onlyChild = node.left != null ? node.left : node.right;
+        parent.setChild(isRight, onlyChild);
+
+        // Промежуточный узел родителя мог остаться лишь с одним потомком
+        if (onlyChild == null && grandParent != null && parent.value == null) {
+            Node<V> sibling = parent.child(!isRight);
+            if (sibling != null) {
+                grandParent.setChild(grandParent.right == parent, sibling);
+            }
+        }
+    }
+
+    private static void checkPrefixLength(int prefixLength) {
+        if (prefixLength < 0 || prefixLength > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Prefix length must be in range [%d..%d]", 0, MAX_PREFIX_LENGTH)
+            );
+        }
+    }
+
+    private static boolean matches(Node<?> node, int address) {
+        return (address & maskOf(node.length)) == node.prefix;
+    }
+
+    /** Возвращает значение бита с заданным номером (начиная со старшего)
+     *
+     */
+    private static boolean bit(int address, int index) {
+        return (address << index) < 0;
+    }
+
+    private static int maskOf(int prefixLength) {
+        return prefixLength == 0 ? 0 : -1 << (MAX_PREFIX_LENGTH - prefixLength);
+    }
+
+    private static int commonLength(int first, int second, int maxLength) {
+        return Math.min(Integer.numberOfLeadingZeros(first ^ second), maxLength);
+    }
+}
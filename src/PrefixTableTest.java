@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class PrefixTableTest {
+
+    static PrefixTable<String> createTable() {
+        PrefixTable<String> table = new PrefixTable<>();
+        table.put(IpAddress.parse("0.0.0.0"), 0, "default");
+        table.put(IpAddress.parse("10.0.0.0"), new IpAddress(8), "10/8");
+        table.put(IpAddress.parse("10.1.0.0"), new IpAddress(16), "10.1/16");
+        table.put(IpAddress.parse("10.1.2.0"), new IpAddress(24), "10.1.2/24");
+        table.put(IpAddress.parse("10.1.2.3"), 32, "host");
+        table.put(IpAddress.parse("192.168.0.0"), new IpAddress(new int[]{ 255, 255, 0, 0 }), "192.168/16");
+        return table;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testLookupProvider")
+    @DisplayName("Поиск наиболее длинного совпадающего префикса")
+    void testLookup(IpAddress address, String expected) {
+        assertEquals(createTable().lookup(address), expected);
+    }
+
+    static Stream<Arguments> testLookupProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("10.1.2.3"), "host"),
+                arguments(IpAddress.parse("10.1.2.4"), "10.1.2/24"),
+                arguments(IpAddress.parse("10.1.3.4"), "10.1/16"),
+                arguments(IpAddress.parse("10.200.3.4"), "10/8"),
+                arguments(IpAddress.parse("192.168.77.1"), "192.168/16"),
+                arguments(IpAddress.parse("8.8.8.8"), "default")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testRemoveProvider")
+    @DisplayName("Удаление префикса из таблицы")
+    void testRemove(IpAddress network, int prefixLength, IpAddress address, String expected) {
+        PrefixTable<String> table = createTable();
+
+        assertNotNull(table.remove(network.toInt(), prefixLength));
+        assertNull(table.get(network.toInt(), prefixLength));
+        assertEquals(table.size(), 5);
+
+        assertEquals(table.lookup(address), expected);
+    }
+
+    static Stream<Arguments> testRemoveProvider() {
+        return Stream.of(
+                arguments(IpAddress.parse("10.1.2.3"), 32, IpAddress.parse("10.1.2.3"), "10.1.2/24"),
+                arguments(IpAddress.parse("10.1.0.0"), 16, IpAddress.parse("10.1.3.4"), "10/8"),
+                arguments(IpAddress.parse("10.1.0.0"), 16, IpAddress.parse("10.1.2.200"), "10.1.2/24"),
+                arguments(IpAddress.parse("0.0.0.0"), 0, IpAddress.parse("8.8.8.8"), null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidPrefixProvider")
+    @DisplayName("Исключение при неправильной длине префикса")
+    void testInvalidPrefix(int prefixLength) {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new PrefixTable<String>().put(IpAddress.localHost(), prefixLength, "value");
+        });
+    }
+
+    static Stream<Integer> testInvalidPrefixProvider() {
+        return Stream.of(-1, 33);
+    }
+
+    @Test
+    @DisplayName("Совпадение с полным перебором belongsToSubnet на случайных префиксах")
+    void testMatchesLinearScan() {
+        Random random = new Random(42);
+        PrefixTable<Integer> table = new PrefixTable<>();
+        List<IpAddress> networks = new ArrayList<>();
+        List<IpAddress> masks = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            IpAddress mask = new IpAddress(1 + random.nextInt(32));
+            // Ограничиваем старшие биты, чтобы префиксы часто вкладывались друг в друга
+            IpAddress network = IpAddress.fromInt(random.nextInt() & 0x0F0FFFFF).applyMask(mask);
+            table.put(network, mask, i);
+            networks.add(network);
+            masks.add(mask);
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            IpAddress address = IpAddress.fromInt(random.nextInt() & 0x0F0FFFFF);
+
+            Integer expected = null;
+            int bestLength = -1;
+            for (int j = 0; j < networks.size(); j++) {
+                int length = Integer.bitCount(masks.get(j).toInt());
+                if (length > bestLength && address.belongsToSubnet(networks.get(j), masks.get(j))) {
+                    expected = table.get(networks.get(j).toInt(), length);
+                    bestLength = length;
+                }
+            }
+
+            assertEquals(table.lookup(address), expected);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/** Выделение числовых буферов в куче или вне её для хеш-таблиц, множеств и отображений адресов
+ *
+ *  Буфер в куче - обёртка над обычным массивом; буфер вне кучи выделяется через ByteBuffer.allocateDirect
+ *  с порядком байтов платформы, чтобы чтение и запись не требовали перестановки байтов.
+ */
+final class PrimitiveBuffers {
+    private PrimitiveBuffers() {
+    }
+
+    /** Выделяет обнулённый буфер из capacity чисел int
+     *
+     */
+    static IntBuffer allocateInts(int capacity, boolean offHeap) {
+        if (!offHeap) {
+            return IntBuffer.wrap(new int[capacity]);
+        }
+
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /** Выделяет обнулённый буфер из capacity чисел long
+     *
+     */
+    static LongBuffer allocateLongs(int capacity, boolean offHeap) {
+        if (!offHeap) {
+            return LongBuffer.wrap(new long[capacity]);
+        }
+
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+}
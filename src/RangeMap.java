@@ -0,0 +1,133 @@
+import java.nio.IntBuffer;
+
+/** Неизменяемое отображение непересекающихся диапазонов адресов [start, end] на значения
+ *  (например, для определения автономной системы или страны по адресу)
+ *
+ *  Диапазоны хранятся отсортированными в одном массиве, где начало и конец каждого диапазона лежат рядом,
+ *  поэтому проверка конца найденного диапазона не требует обращения к другой строке кэша. Поиск
+ *  двухуровневый: по старшим 16 битам адреса за один шаг выбирается участок диапазонов, начинающихся
+ *  в той же сети /16 (таблица из 65537 чисел остаётся в кэше), а внутри участка выполняется двоичный поиск
+ *  без непредсказуемых переходов. Числовые массивы могут располагаться вне кучи.
+ */
+public final class RangeMap<V> {
+    // Признак того, что адрес не попал ни в один диапазон
+    private static final int NOT_FOUND = -1;
+    private static final int BUCKET_SHIFT = 16;
+    private static final int BUCKETS_COUNT = 1 << BUCKET_SHIFT;
+
+    private final int _size;
+    private final boolean _offHeap;
+    // Пары (начало с инвертированным знаковым битом, конец) в порядке возрастания начал
+    private final IntBuffer _ranges;
+    // Номер первого диапазона, начинающегося не раньше каждой сети /16 (и общее число диапазонов в конце)
+    private final IntBuffer _buckets;
+    private final Object[] _values;
+
+    private RangeMap(int[] starts, int[] ends, Object[] values, boolean offHeap) {
+        this._size = starts.length;
+        this._offHeap = offHeap;
+        this._ranges = PrimitiveBuffers.allocateInts(2 * this._size, offHeap);
+        this._buckets = PrimitiveBuffers.allocateInts(BUCKETS_COUNT + 1, offHeap);
+        this._values = values.clone();
+
+        int index = 0;
+        for (int bucket = 0; bucket <= BUCKETS_COUNT; bucket++) {
+            while (index < this._size && (starts[index] >>> BUCKET_SHIFT) < bucket) {
+                index++;
+            }
+            this._buckets.put(bucket, index);
+        }
+
+        for (int i = 0; i < this._size; i++) {
+            this._ranges.put(2 * i, starts[i] ^ Integer.MIN_VALUE);
+            this._ranges.put(2 * i + 1, ends[i]);
+        }
+    }
+
+    /** Строит отображение в куче по диапазонам, отсортированным по возрастанию (без знака)
+     *
+     */
+    public static <V> RangeMap<V> of(int[] starts, int[] ends, V[] values) {
+        return of(starts, ends, values, false);
+    }
+
+    /** Строит отображение по диапазонам, отсортированным по возрастанию (без знака); при offHeap числовые
+     *  массивы размещаются вне кучи
+     */
+    public static <V> RangeMap<V> of(int[] starts, int[] ends, V[] values, boolean offHeap) {
+        if (starts == null || ends == null || values == null) {
+            throw new IllegalArgumentException("Range arrays cannot be null");
+        }
+        if (starts.length != ends.length || starts.length != values.length) {
+            throw new IllegalArgumentException("Range arrays must have the same length");
+        }
+
+        for (int i = 0; i < starts.length; i++) {
+            if (Integer.compareUnsigned(starts[i], ends[i]) > 0) {
+                throw new IllegalArgumentException(String.format("Range %d start must not exceed range end", i));
+            }
+            if (i > 0 && Integer.compareUnsigned(ends[i - 1], starts[i]) >= 0) {
+                throw new IllegalArgumentException(
+                        String.format("Range %d must start after the end of range %d", i, i - 1));
+            }
+        }
+
+        return new RangeMap<>(starts, ends, values, offHeap);
+    }
+
+    /** Возвращает значение диапазона, содержащего IP-адрес, или null
+     *
+     */
+    public V get(IpAddress address) {
+        return get(address.toInt());
+    }
+
+    /** Возвращает значение диапазона, содержащего упакованный IP-адрес, или null
+     *
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int address) {
+        int index = indexOf(address);
+        return index == NOT_FOUND ? null : (V) this._values[index];
+    }
+
+    /** Возвращает номер (в исходных массивах) диапазона, содержащего упакованный IP-адрес, или -1
+     *
+     */
+    public int indexOf(int address) {
+        int key = address ^ Integer.MIN_VALUE;
+        int bucket = address >>> BUCKET_SHIFT;
+
+        // Искомый диапазон - последний с началом не больше адреса: он либо начинается в той же сети /16,
+        // либо является последним диапазоном, начавшимся раньше неё
+        int base = this._buckets.get(bucket) - 1;
+        int length = this._buckets.get(bucket + 1) - base - 1;
+        while (length > 0) {
+            int half = length >>> 1;
+            int middle = base + half + 1;
+            boolean notGreater = this._ranges.get(2 * middle) <= key;
+            base = notGreater ? middle : base;
+            length = notGreater ? length - half - 1 : half;
+        }
+
+        if (base < 0 || Integer.compareUnsigned(this._ranges.get(2 * base + 1), address) < 0) {
+            return NOT_FOUND;
+        }
+
+        return base;
+    }
+
+    /** Возвращает количество диапазонов
+     *
+     */
+    public int size() {
+        return this._size;
+    }
+
+    /** Проверяет, хранятся ли числовые массивы вне кучи
+     *
+     */
+    public boolean isOffHeap() {
+        return this._offHeap;
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class RangeMapTest {
+
+    static final int[] STARTS = {
+            IpAddress.parse("0.0.0.0").toInt(),
+            IpAddress.parse("10.0.0.0").toInt(),
+            IpAddress.parse("10.0.1.5").toInt(),
+            IpAddress.parse("128.0.0.0").toInt(),
+            IpAddress.parse("255.255.255.255").toInt()
+    };
+    static final int[] ENDS = {
+            IpAddress.parse("0.0.0.9").toInt(),
+            IpAddress.parse("10.0.1.4").toInt(),
+            IpAddress.parse("10.0.1.200").toInt(),
+            IpAddress.parse("200.0.0.0").toInt(),
+            IpAddress.parse("255.255.255.255").toInt()
+    };
+    static final String[] VALUES = {"zero", "AS1", "AS2", "high", "last"};
+
+    @ParameterizedTest
+    @MethodSource("testGetProvider")
+    @DisplayName("Поиск диапазона, содержащего адрес")
+    void testGet(String address, String expected, int expectedIndex) {
+        for (boolean offHeap : new boolean[] {false, true}) {
+            RangeMap<String> map = RangeMap.of(STARTS, ENDS, VALUES, offHeap);
+
+            assertEquals(expected, map.get(IpAddress.parse(address)));
+            assertEquals(expectedIndex, map.indexOf(IpAddress.parse(address).toInt()));
+            assertEquals(offHeap, map.isOffHeap());
+        }
+    }
+
+    static Stream<Arguments> testGetProvider() {
+        return Stream.of(
+                arguments("0.0.0.0", "zero", 0),
+                arguments("0.0.0.10", null, -1),
+                arguments("10.0.1.4", "AS1", 1),
+                arguments("10.0.1.5", "AS2", 2),
+                arguments("10.0.1.201", null, -1),
+                arguments("150.1.2.3", "high", 3),
+                arguments("200.0.0.1", null, -1),
+                arguments("255.255.255.255", "last", 4)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testRandomProvider")
+    @DisplayName("Поиск совпадает с двоичным поиском по отсортированным диапазонам")
+    void testRandom(int count) {
+        Random random = new Random(count);
+        long[] bounds = random.longs(count * 2L, 0, 1L << 32).sorted().distinct().toArray();
+        int size = bounds.length / 2;
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = (int) bounds[2 * i];
+            ends[i] = (int) bounds[2 * i + 1];
+            values[i] = i;
+        }
+
+        RangeMap<Integer> map = RangeMap.of(starts, ends, values, count % 2 == 0);
+
+        for (int i = 0; i < 10000; i++) {
+            int address = random.nextInt();
+            if (size > 0 && random.nextBoolean()) {
+                int range = random.nextInt(size);
+                address = (random.nextBoolean() ? starts[range] : ends[range]) + random.nextInt(3) - 1;
+            }
+
+            long key = Integer.toUnsignedLong(address);
+            int position = Arrays.binarySearch(bounds, 0, size * 2, key);
+            // Адрес внутри диапазона, если перед ним нечётное число границ или он сам является границей
+            int range = position >= 0 ? position / 2 : ((-position - 1) % 2 == 1 ? (-position - 1) / 2 : -1);
+
+            assertEquals(range, map.indexOf(address));
+            assertEquals(range < 0 ? null : values[range], map.get(address));
+        }
+    }
+
+    static Stream<Arguments> testRandomProvider() {
+        return Stream.of(
+                arguments(0),
+                arguments(1),
+                arguments(2),
+                arguments(7),
+                arguments(1000),
+                arguments(100001)
+        );
+    }
+
+    @Test
+    @DisplayName("Исключение при пересекающихся или неотсортированных диапазонах")
+    void testInvalidRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RangeMap.of(new int[] {10, 5}, new int[] {20, 8}, new String[] {"a", "b"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> RangeMap.of(new int[] {10, 20}, new int[] {20, 30}, new String[] {"a", "b"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> RangeMap.of(new int[] {10}, new int[] {5}, new String[] {"a"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> RangeMap.of(new int[] {10}, new int[] {20}, new String[] {"a", "b"}));
+    }
+}
@@ -0,0 +1,344 @@
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/** Подсеть в нотации CIDR: адрес сети вместе с длиной префикса
+ *
+ *  Все вычисления (принадлежность, размер, границы, разбиение и объединение) выполняются
+ *  за константное время битовыми операциями над упакованным адресом.
+ */
+public final class Subnet {
+    private static final int MIN_PREFIX_LENGTH = 0;
+    private static final int MAX_PREFIX_LENGTH = 32;
+
+    // В подсетях /31 и /32 нет отдельных адресов сети и широковещательной рассылки (RFC 3021)
+    private static final int POINT_TO_POINT_PREFIX_LENGTH = 31;
+
+    private final int _network;
+    private final int _prefixLength;
+
+    /** Создаёт подсеть по адресу и маске; биты адреса за пределами маски обнуляются
+     *
+     */
+    public Subnet(IpAddress network, IpAddress mask) {
+        this(network.applyMask(mask).toInt(), mask.getMaskLength());
+    }
+
+    /** Создаёт подсеть по адресу и длине префикса; биты адреса за пределами префикса обнуляются
+     *
+     */
+    public Subnet(IpAddress network, int prefixLength) {
+        this(network.toInt(), prefixLength);
+    }
+
+    private Subnet(int network, int prefixLength) {
+        checkPrefixLength(prefixLength);
+        this._prefixLength = prefixLength;
+        this._network = network & maskOf(prefixLength);
+    }
+
+    /** Создаёт подсеть по упакованному адресу и длине префикса
+     *
+     */
+    public static Subnet of(int network, int prefixLength) {
+        return new Subnet(network, prefixLength);
+    }
+
+    /** Разбирает запись вида "a.b.c.d/len" (запись без префикса считается подсетью /32)
+     *
+     */
+    public static Subnet parse(CharSequence text) {
+        long parsed = IpAddressParser.tryParse(text);
+        if (parsed == IpAddressParser.INVALID) {
+            throw new IllegalArgumentException(String.format("Invalid subnet: %s", text));
+        }
+
+        return new Subnet(IpAddressParser.address(parsed), IpAddressParser.prefixLength(parsed));
+    }
+
+    /** Возвращает адрес сети
+     *
+     */
+    public IpAddress network() {
+        return IpAddress.fromInt(this._network);
+    }
+
+    /** Возвращает маску подсети
+     *
+     */
+    public IpAddress mask() {
+        return IpAddress.mask(this._prefixLength);
+    }
+
+    /** Возвращает адрес широковещательной рассылки (последний адрес подсети)
+     *
+     */
+    public IpAddress broadcast() {
+        return IpAddress.fromInt(broadcastInt());
+    }
+
+    /** Возвращает первый адрес, доступный для хостов
+     *
+     */
+    public IpAddress first() {
+        return IpAddress.fromInt(firstHostInt());
+    }
+
+    /** Возвращает последний адрес, доступный для хостов
+     *
+     */
+    public IpAddress last() {
+        return IpAddress.fromInt(lastHostInt());
+    }
+
+    public int prefixLength() {
+        return this._prefixLength;
+    }
+
+    public int networkInt() {
+        return this._network;
+    }
+
+    public int maskInt() {
+        return maskOf(this._prefixLength);
+    }
+
+    public int broadcastInt() {
+        return this._network | ~maskOf(this._prefixLength);
+    }
+
+    public int firstHostInt() {
+        return this._prefixLength >= POINT_TO_POINT_PREFIX_LENGTH ? this._network : this._network + 1;
+    }
+
+    public int lastHostInt() {
+        return this._prefixLength >= POINT_TO_POINT_PREFIX_LENGTH ? broadcastInt() : broadcastInt() - 1;
+    }
+
+    /** Возвращает общее количество адресов в подсети
+     *
+     */
+    public long size() {
+        return 1L << (MAX_PREFIX_LENGTH - this._prefixLength);
+    }
+
+    /** Возвращает количество адресов, доступных для хостов
+     *
+     */
+    public long hostCount() {
+        return Integer.toUnsignedLong(lastHostInt()) - Integer.toUnsignedLong(firstHostInt()) + 1;
+    }
+
+    /** Проверяет принадлежность IP-адреса подсети
+     *
+     */
+    public boolean contains(IpAddress address) {
+        return contains(address.toInt());
+    }
+
+    /** Проверяет принадлежность упакованного IP-адреса подсети
+     *
+     */
+    public boolean contains(int address) {
+        return (address & maskOf(this._prefixLength)) == this._network;
+    }
+
+    /** Проверяет, что другая подсеть целиком содержится в этой
+     *
+     */
+    public boolean contains(Subnet other) {
+        return other._prefixLength >= this._prefixLength && contains(other._network);
+    }
+
+    /** Вычисляет количество хостов между двумя адресами подсети (не включая эти адреса)
+     *
+     */
+    public long countHostsBetween(IpAddress first, IpAddress second) {
+        if (!contains(first) || !contains(second)) {
+            throw new IllegalArgumentException("IP-addresses not in the same net");
+        }
+
+        if (first.equals(second)) {
+            return 0L;
+        }
+
+        return Math.abs(first.toLong() - second.toLong()) - 1;
+    }
+
+    /** Разбивает подсеть на две половины с префиксом на единицу длиннее
+     *
+     */
+    public Subnet[] split() {
+        if (this._prefixLength == MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Subnet /32 cannot be split");
+        }
+
+        int halfPrefixLength = this._prefixLength + 1;
+        return new Subnet[]{
+                new Subnet(this._network, halfPrefixLength),
+                new Subnet(this._network | (1 << (MAX_PREFIX_LENGTH - halfPrefixLength)), halfPrefixLength),
+        };
+    }
+
+    /** Возвращает подсеть с заданным номером среди подсетей с более длинным префиксом, на которые делится эта
+     *
+     */
+    public Subnet subnet(int prefixLength, long index) {
+        if (prefixLength < this._prefixLength || prefixLength > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Prefix length must be in range [%d..%d]", this._prefixLength, MAX_PREFIX_LENGTH)
+            );
+        }
+
+        long count = 1L << (prefixLength - this._prefixLength);
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format("Subnet index must be in range [0..%d]", count - 1));
+        }
+
+        return new Subnet(this._network + (int) (index << (MAX_PREFIX_LENGTH - prefixLength)), prefixLength);
+    }
+
+    /** Возвращает ближайшую объемлющую подсеть (с префиксом на единицу короче)
+     *
+     */
+    public Subnet supernet() {
+        if (this._prefixLength == MIN_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Subnet /0 has no supernet");
+        }
+
+        return new Subnet(this._network, this._prefixLength - 1);
+    }
+
+    /** Проверяет, что две подсети являются половинами одной объемлющей подсети
+     *
+     */
+    public boolean isSiblingOf(Subnet other) {
+        return this._prefixLength == other._prefixLength
+                && this._prefixLength != MIN_PREFIX_LENGTH
+                && this._network != other._network
+                && supernet().contains(other._network);
+    }
+
+    /** Объединяет две соседние подсети-половины в объемлющую подсеть
+     *
+     */
+    public Subnet merge(Subnet other) {
+        if (!isSiblingOf(other)) {
+            throw new IllegalArgumentException("Subnets cannot be merged into a supernet");
+        }
+
+        return supernet();
+    }
+
+    /** Возвращает поток упакованных адресов хостов подсети, который равномерно делится для parallel()
+     *
+     */
+    public IntStream hosts() {
+        return StreamSupport.intStream(hostSpliterator(), false);
+    }
+
+    /** Возвращает Spliterator упакованных адресов хостов подсети
+     *
+     */
+    public Spliterator.OfInt hostSpliterator() {
+        return new HostSpliterator(Integer.toUnsignedLong(firstHostInt()), Integer.toUnsignedLong(lastHostInt()) + 1);
+    }
+
+
+    /** Сравнивает две подсети
+     *
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Subnet other)) {
+            return false;
+        }
+
+        return this._network == other._network && this._prefixLength == other._prefixLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this._network + this._prefixLength;
+    }
+
+    /** Создаёт строковое представление подсети вида "a.b.c.d/len"
+     *
+     */
+    @Override
+    public String toString() {
+        return IpAddressFormatter.appendTo(this._network, new StringBuilder(IpAddressFormatter.MAX_LENGTH + 3))
+                .append('/')
+                .append(this._prefixLength)
+                .toString();
+    }
+
+
+    private static void checkPrefixLength(int prefixLength) {
+        if (prefixLength < MIN_PREFIX_LENGTH || prefixLength > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Prefix length must be in range [%d..%d]", MIN_PREFIX_LENGTH, MAX_PREFIX_LENGTH)
+            );
+        }
+    }
+
+    private static int maskOf(int prefixLength) {
+        return prefixLength == MIN_PREFIX_LENGTH ? 0 : -1 << (MAX_PREFIX_LENGTH - prefixLength);
+    }
+
+
+    /** Перебирает диапазон упакованных адресов [from, to), деля его пополам при распараллеливании
+     *
+     */
+    private static final class HostSpliterator implements Spliterator.OfInt {
+        private long _from;
+        private final long _to;
+
+        HostSpliterator(long from, long to) {
+            this._from = from;
+            this._to = to;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            long middle = (this._from + this._to) >>> 1;
+            if (middle <= this._from) {
+                return null;
+            }
+
+            HostSpliterator prefix = new HostSpliterator(this._from, middle);
+            this._from = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (this._from >= this._to) {
+                return false;
+            }
+
+            action.accept((int) this._from++);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            long to = this._to;
+            for (long address = this._from; address < to; address++) {
+                action.accept((int) address);
+            }
+            this._from = to;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this._to - this._from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/** Неблокирующие счётчики запросов по подсетям заданной длины с ограничением частоты
+ *
+ *  Ключ подсети вычисляется наложением маски на упакованный адрес и ищется в таблице с открытой адресацией
+ *  ({@link SubnetCounterTable}), поиск в которой не требует блокировок. Счётчик каждой подсети разбит на полосы
+ *  по числу процессоров (не более 8); полосы хранятся в отдельных участках массива, поэтому разные потоки
+ *  увеличивают счётчики разных строк кэша.
+ *
+ *  Подсчёт ведётся скользящим окном: хранятся текущее и предыдущее окна, и оценка числа запросов за
+ *  последнее окно равна текущему значению плюс доля предыдущего, пропорциональная ещё не прошедшей части
+ *  окна. Каждая ячейка помнит номер своего окна и сбрасывается при первом обращении в новом окне, поэтому
+ *  смена окна не останавливает запросы и не теряет увеличений. Когда таблица заполнена, место подсетей,
+ *  не встречавшихся два окна, переходит к новым; если таких нет, запрос новой подсети не учитывается.
+ *
+ *  Ограничение частоты - маркерная корзина в форме GCRA: для каждой подсети хранится одно число
+ *  (теоретическое время следующего запроса), которое обновляется операцией CAS.
+ */
+public class SubnetCounter {
+    private final int _mask;
+    private final SubnetCounterTable _table;
+
+    /** Создаёт счётчики для подсетей длины prefixLength (не более capacity подсетей) с окном подсчёта window
+     *  и ограничением permitsPerSecond запросов в секунду с допустимым всплеском burst
+     */
+    public SubnetCounter(int prefixLength, int capacity, Duration window, double permitsPerSecond, int burst) {
+        this(prefixLength, capacity, window, permitsPerSecond, burst, System::nanoTime);
+    }
+
+    SubnetCounter(int prefixLength, int capacity, Duration window, double permitsPerSecond, int burst,
+                  LongSupplier clock) {
+        this._mask = IpAddress.mask(prefixLength).toInt();
+        this._table = new SubnetCounterTable(capacity, window, permitsPerSecond, burst, clock);
+    }
+
+    /** Учитывает запрос с IP-адреса; false, если таблица заполнена активными подсетями и запрос не учтён
+     *
+     */
+    public boolean increment(IpAddress address) {
+        return add(address.toInt(), 1);
+    }
+
+    /** Учитывает запрос с упакованного IP-адреса
+     *
+     */
+    public boolean increment(int address) {
+        return add(address, 1);
+    }
+
+    /** Прибавляет delta к счётчику подсети упакованного IP-адреса
+     *
+     */
+    public boolean add(int address, long delta) {
+        int network = address & this._mask;
+        return this._table.add(0L, Integer.toUnsignedLong(network), IpAddress.hash(network), delta);
+    }
+
+    /** Возвращает оценку числа запросов из подсети IP-адреса за последнее окно
+     *
+     */
+    public long count(IpAddress address) {
+        return count(address.toInt());
+    }
+
+    /** Возвращает оценку числа запросов из подсети упакованного IP-адреса за последнее окно
+     *
+     */
+    public long count(int address) {
+        int network = address & this._mask;
+        return this._table.count(0L, Integer.toUnsignedLong(network), IpAddress.hash(network));
+    }
+
+    /** Пытается получить разрешение на запрос с IP-адреса; false, если подсеть превысила ограничение частоты
+     *  (или таблица заполнена активными подсетями)
+     */
+    public boolean tryAcquire(IpAddress address) {
+        return tryAcquire(address.toInt());
+    }
+
+    /** Пытается получить разрешение на запрос с упакованного IP-адреса
+     *
+     */
+    public boolean tryAcquire(int address) {
+        int network = address & this._mask;
+        return this._table.tryAcquire(0L, Integer.toUnsignedLong(network), IpAddress.hash(network));
+    }
+
+    /** Возвращает количество отслеживаемых подсетей
+     *
+     */
+    public int size() {
+        return this._table.size();
+    }
+}
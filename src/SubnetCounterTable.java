@@ -0,0 +1,354 @@
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/** Общая таблица счётчиков со скользящим окном и ограничением частоты для {@link SubnetCounter} и
+ *  {@link Ipv6SubnetCounter}; ключ подсети - пара чисел long (для IPv4 старшая половина всегда равна нулю)
+ *
+ *  Состояние каждой ячейки хранится в массиве эпох: номер окна, в котором ячейка последний раз использовалась,
+ *  либо одно из служебных значений (свободна, удалена, сбрасывается). Счётчики ячейки сбрасываются лениво -
+ *  первым потоком, обратившимся к ней в новом окне, - поэтому смена окна не требует обхода таблицы и не
+ *  теряет увеличения других ячеек. Поиск подсети не блокирует; новые подсети добавляются под блокировкой,
+ *  а при заполнении таблицы ячейки подсетей, не использовавшихся два окна, освобождаются для новых.
+ */
+final class SubnetCounterTable {
+    static final int MAX_CAPACITY = 1 << 26;
+
+    // Служебные значения эпохи; номера окон, вычисленные по времени, никогда их не достигают
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long TOMBSTONE = Long.MIN_VALUE + 1;
+    private static final long RESETTING = Long.MIN_VALUE + 2;
+    // Результат поиска или захвата ячейки, которая занята другой подсетью
+    private static final long STALE = Long.MIN_VALUE;
+    private static final int NOT_FOUND = -1;
+
+    private static final double LOAD_FACTOR = 0.75;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Больше полос почти не уменьшает конкуренцию, но заметно увеличивает расход памяти
+    private static final int MAX_STRIPES = 8;
+
+    private final int _tableSize;
+    private final int _tableMask;
+    private final int _maxSize;
+    private final int _stripes;
+    private final long _windowNanos;
+    private final long _emissionInterval;
+    private final long _burstTolerance;
+    private final LongSupplier _clock;
+
+    // Ключи меняются только при эпохе RESETTING и публикуются последующей записью эпохи
+    private final long[] _highs;
+    private final long[] _lows;
+    private final AtomicLongArray _epochs;
+    // Счётчики чётных и нечётных окон; полоса s ячейки i хранится по индексу s * tableSize + i
+    private final AtomicLongArray[] _counts = new AtomicLongArray[2];
+    // Теоретическое время следующего разрешённого запроса для каждой ячейки
+    private final AtomicLongArray _arrivals;
+    // Изменяются только под блокировкой таблицы
+    private volatile int _size;
+    private int _used;
+
+    SubnetCounterTable(int capacity, Duration window, double permitsPerSecond, int burst, LongSupplier clock) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Capacity must be in range [1..%d]", MAX_CAPACITY));
+        }
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (!(permitsPerSecond > 0) || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+
+        this._tableSize = Integer.highestOneBit((int) Math.ceil(capacity / LOAD_FACTOR) - 1) << 1;
+        this._tableMask = this._tableSize - 1;
+        this._maxSize = capacity;
+        this._stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this._windowNanos = window.toNanos();
+        this._emissionInterval = Math.max(1L, (long) (NANOS_PER_SECOND / permitsPerSecond));
+        this._burstTolerance = this._emissionInterval * burst;
+        this._clock = clock;
+
+        this._highs = new long[this._tableSize];
+        this._lows = new long[this._tableSize];
+        this._epochs = new AtomicLongArray(this._tableSize);
+        for (int slot = 0; slot < this._tableSize; slot++) {
+            this._epochs.set(slot, EMPTY);
+        }
+        this._counts[0] = new AtomicLongArray(this._tableSize * this._stripes);
+        this._counts[1] = new AtomicLongArray(this._tableSize * this._stripes);
+        this._arrivals = new AtomicLongArray(this._tableSize);
+    }
+
+    /** Прибавляет delta к счётчику подсети; false, если таблица заполнена активными подсетями и запрос не учтён
+     *
+     */
+    boolean add(long high, long low, int hash, long delta) {
+        long now = this._clock.getAsLong();
+        long window = windowOf(now);
+
+        while (true) {
+            int slot = slotOf(high, low, hash, window, now);
+            if (slot == NOT_FOUND) {
+                return false;
+            }
+
+            long epoch = touch(slot, high, low, window);
+            if (epoch != STALE) {
+                this._counts[(int) (epoch & 1)].getAndAdd(stripe() * this._tableSize + slot, delta);
+                return true;
+            }
+        }
+    }
+
+    /** Возвращает оценку числа запросов из подсети за последнее окно
+     *
+     */
+    long count(long high, long low, int hash) {
+        int slot = find(high, low, hash);
+        if (slot == NOT_FOUND) {
+            return 0;
+        }
+
+        long now = this._clock.getAsLong();
+        long epoch = stableEpoch(slot);
+        if (!isWindow(epoch) || this._highs[slot] != high || this._lows[slot] != low) {
+            return 0;
+        }
+
+        // Ячейка могла перейти в новое окно раньше, чем часы этого потока
+        long window = Math.max(windowOf(now), epoch);
+        long current = 0;
+        long previous = 0;
+        if (epoch == window) {
+            current = sum(this._counts[(int) (window & 1)], slot);
+            previous = sum(this._counts[(int) ((window + 1) & 1)], slot);
+        } else if (epoch == window - 1) {
+            previous = sum(this._counts[(int) (epoch & 1)], slot);
+        }
+
+        // Доля предыдущего окна, ещё попадающая в скользящее окно
+        double remaining = 1.0 - (double) Math.max(0L, now - window * this._windowNanos) / this._windowNanos;
+        return current + (long) (previous * remaining);
+    }
+
+    /** Пытается получить разрешение на запрос из подсети; false при превышении частоты или заполненной таблице
+     *
+     */
+    boolean tryAcquire(long high, long low, int hash) {
+        long now = this._clock.getAsLong();
+        long window = windowOf(now);
+
+        while (true) {
+            int slot = slotOf(high, low, hash, window, now);
+            if (slot == NOT_FOUND) {
+                return false;
+            }
+            if (touch(slot, high, low, window) == STALE) {
+                continue;
+            }
+
+            while (true) {
+                long arrival = this._arrivals.get(slot);
+                // Пустая ячейка (0) означает полную корзину
+                long next = Math.max(arrival == 0 ? now : arrival, now) + this._emissionInterval;
+                if (next - now > this._burstTolerance) {
+                    return false;
+                }
+                if (this._arrivals.compareAndSet(slot, arrival, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /** Возвращает количество отслеживаемых подсетей
+     *
+     */
+    int size() {
+        return this._size;
+    }
+
+
+    /** Находит ячейку подсети или занимает для неё новую; NOT_FOUND, если свободных ячеек нет
+     *
+     */
+    private int slotOf(long high, long low, int hash, long window, long now) {
+        int slot = find(high, low, hash);
+        return slot != NOT_FOUND ? slot : insert(high, low, hash, window, now);
+    }
+
+    /** Ищет ячейку подсети без блокировок
+     *
+     */
+    private int find(long high, long low, int hash) {
+        int slot = hash & this._tableMask;
+
+        while (true) {
+            long epoch = this._epochs.get(slot);
+            if (epoch == EMPTY) {
+                return NOT_FOUND;
+            }
+            if (epoch == RESETTING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // Совпадение ключа, прочитанного во время его замены, перепроверяется в touch
+            if (epoch != TOMBSTONE && this._highs[slot] == high && this._lows[slot] == low) {
+                return slot;
+            }
+
+            slot = (slot + 1) & this._tableMask;
+        }
+    }
+
+    /** Занимает ячейку для новой подсети; при заполненной таблице сначала освобождает ячейки неактивных подсетей
+     *
+     */
+    private synchronized int insert(long high, long low, int hash, long window, long now) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            int slot = hash & this._tableMask;
+            int free = NOT_FOUND;
+
+            while (true) {
+                long epoch = stableEpoch(slot);
+                if (epoch == EMPTY) {
+                    break;
+                }
+                if (epoch == TOMBSTONE) {
+                    if (free == NOT_FOUND) {
+                        free = slot;
+                    }
+                } else if (this._highs[slot] == high && this._lows[slot] == low) {
+                    // Подсеть успел добавить другой поток
+                    return slot;
+                }
+
+                slot = (slot + 1) & this._tableMask;
+            }
+
+            if (this._size < this._maxSize) {
+                if (free != NOT_FOUND) {
+                    claim(free, high, low, window);
+                    return free;
+                }
+                // Удалённые ячейки тоже занимают место, иначе в таблице может не остаться свободных для остановки поиска
+                if (this._used < this._maxSize) {
+                    this._used++;
+                    claim(slot, high, low, window);
+                    return slot;
+                }
+            }
+
+            if (attempt == 0) {
+                sweep(window, now);
+            }
+        }
+
+        return NOT_FOUND;
+    }
+
+    /** Записывает ключ новой подсети в свободную или удалённую ячейку и обнуляет её счётчики
+     *
+     */
+    private void claim(int slot, long high, long low, long window) {
+        this._epochs.set(slot, RESETTING);
+        this._highs[slot] = high;
+        this._lows[slot] = low;
+        reset(this._counts[0], slot);
+        reset(this._counts[1], slot);
+        this._arrivals.set(slot, 0);
+        this._epochs.set(slot, window);
+        this._size++;
+    }
+
+    /** Удаляет подсети, не использовавшиеся ни в текущем, ни в предыдущем окне и не ограниченные по частоте;
+     *  затем освобождает удалённые ячейки, после которых цепочка поиска всё равно обрывается
+     */
+    private void sweep(long window, long now) {
+        for (int slot = 0; slot < this._tableSize; slot++) {
+            long epoch = this._epochs.get(slot);
+            long arrival = this._arrivals.get(slot);
+            if (isWindow(epoch) && epoch < window - 1 && (arrival == 0 || arrival - now <= 0)
+                    && this._epochs.compareAndSet(slot, epoch, TOMBSTONE)) {
+                this._size--;
+            }
+        }
+
+        for (int slot = 0; slot < this._tableSize; slot++) {
+            if (this._epochs.get(slot) != EMPTY) {
+                continue;
+            }
+
+            int previous = (slot - 1) & this._tableMask;
+            while (this._epochs.get(previous) == TOMBSTONE) {
+                this._epochs.set(previous, EMPTY);
+                this._used--;
+                previous = (previous - 1) & this._tableMask;
+            }
+        }
+    }
+
+    /** Переводит ячейку подсети в окно window, при первом обращении в новом окне обнуляя устаревшие счётчики;
+     *  возвращает окно, в которое нужно записывать, или STALE, если ячейка уже занята другой подсетью
+     */
+    private long touch(int slot, long high, long low, long window) {
+        while (true) {
+            long epoch = stableEpoch(slot);
+            if (!isWindow(epoch) || this._highs[slot] != high || this._lows[slot] != low) {
+                return STALE;
+            }
+            if (epoch >= window) {
+                return epoch;
+            }
+
+            if (this._epochs.compareAndSet(slot, epoch, RESETTING)) {
+                reset(this._counts[(int) (window & 1)], slot);
+                // Если пропущено больше одного окна, предыдущее окно тоже устарело
+                if (window - epoch > 1) {
+                    reset(this._counts[(int) ((window + 1) & 1)], slot);
+                }
+                this._epochs.set(slot, window);
+                return window;
+            }
+        }
+    }
+
+    /** Читает эпоху ячейки, дожидаясь окончания её сброса другим потоком
+     *
+     */
+    private long stableEpoch(int slot) {
+        long epoch;
+        while ((epoch = this._epochs.get(slot)) == RESETTING) {
+            Thread.onSpinWait();
+        }
+
+        return epoch;
+    }
+
+    private long windowOf(long now) {
+        return Math.floorDiv(now, this._windowNanos);
+    }
+
+    private long sum(AtomicLongArray counts, int slot) {
+        long sum = 0;
+        for (int stripe = 0; stripe < this._stripes; stripe++) {
+            sum += counts.get(stripe * this._tableSize + slot);
+        }
+
+        return sum;
+    }
+
+    private void reset(AtomicLongArray counts, int slot) {
+        for (int stripe = 0; stripe < this._stripes; stripe++) {
+            counts.set(stripe * this._tableSize + slot, 0);
+        }
+    }
+
+    private int stripe() {
+        return IpAddress.hash((int) Thread.currentThread().getId()) & (this._stripes - 1);
+    }
+
+    private static boolean isWindow(long epoch) {
+        return epoch > RESETTING;
+    }
+}
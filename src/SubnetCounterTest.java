@@ -0,0 +1,193 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class SubnetCounterTest {
+
+    static final long SECOND = 1_000_000_000L;
+
+    @ParameterizedTest
+    @MethodSource("testCountProvider")
+    @DisplayName("Запросы считаются по подсети адреса")
+    void testCount(int prefixLength, String[] addresses, String probe, long expected) {
+        SubnetCounter counter = new SubnetCounter(prefixLength, 16, Duration.ofSeconds(1), 1000, 10, () -> SECOND);
+        for (String address : addresses) {
+            counter.increment(IpAddress.parse(address));
+        }
+
+        assertEquals(expected, counter.count(IpAddress.parse(probe)));
+    }
+
+    static Stream<Arguments> testCountProvider() {
+        String[] addresses = {"10.0.0.1", "10.0.0.200", "10.0.1.1", "0.0.0.5", "255.255.255.255"};
+        return Stream.of(
+                arguments(24, addresses, "10.0.0.77", 2L),
+                arguments(16, addresses, "10.0.77.77", 3L),
+                arguments(24, addresses, "0.0.0.0", 1L),
+                arguments(24, addresses, "255.255.255.0", 1L),
+                arguments(24, addresses, "11.0.0.0", 0L)
+        );
+    }
+
+    @Test
+    @DisplayName("Скользящее окно учитывает долю предыдущего окна")
+    void testSlidingWindow() {
+        AtomicLong clock = new AtomicLong(10 * SECOND);
+        SubnetCounter counter = new SubnetCounter(24, 16, Duration.ofSeconds(1), 1000, 10, clock::get);
+        int address = IpAddress.parse("192.168.1.1").toInt();
+
+        counter.add(address, 100);
+        assertEquals(100, counter.count(address));
+
+        // Прошла четверть следующего окна - в оценку входят три четверти предыдущего
+        clock.set(11 * SECOND + SECOND / 4);
+        counter.add(address, 10);
+        assertEquals(85, counter.count(address));
+
+        // Через два окна старые значения полностью забыты
+        clock.set(13 * SECOND);
+        assertEquals(0, counter.count(address));
+    }
+
+    @Test
+    @DisplayName("Маркерная корзина ограничивает частоту и пополняется со временем")
+    void testTryAcquire() {
+        AtomicLong clock = new AtomicLong(SECOND);
+        SubnetCounter counter = new SubnetCounter(24, 16, Duration.ofSeconds(1), 10, 5, clock::get);
+        IpAddress address = IpAddress.parse("10.0.0.1");
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(counter.tryAcquire(address));
+        }
+        assertFalse(counter.tryAcquire(IpAddress.parse("10.0.0.2")));
+        assertTrue(counter.tryAcquire(IpAddress.parse("10.0.1.1")));
+
+        // За 0.1 секунды при 10 разрешениях в секунду восстанавливается одно разрешение
+        clock.addAndGet(SECOND / 10);
+        assertTrue(counter.tryAcquire(address));
+        assertFalse(counter.tryAcquire(address));
+    }
+
+    @Test
+    @DisplayName("Одновременные увеличения из многих потоков не теряются")
+    void testConcurrentIncrements() throws InterruptedException {
+        SubnetCounter counter = new SubnetCounter(16, 1024, Duration.ofDays(1), 1000, 10);
+        int threadsCount = 8;
+        int increments = 100_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadsCount; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < increments; i++) {
+                    counter.increment(0x0A000000 | ((i + seed) & 0xFF) << 16 | i & 0xFFFF);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = 0;
+        for (int network = 0; network < 256; network++) {
+            total += counter.count(0x0A000000 | network << 16);
+        }
+        assertEquals((long) threadsCount * increments, total);
+        assertEquals(256, counter.size());
+    }
+
+    @Test
+    @DisplayName("Одновременные увеличения на границе окон не теряются")
+    void testConcurrentIncrementsAcrossWindows() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(10 * SECOND + SECOND / 2);
+        SubnetCounter counter = new SubnetCounter(24, 64, Duration.ofSeconds(1), 1000, 10, clock::get);
+        int threadsCount = 8;
+        int increments = 50_000;
+        int networks = 16;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadsCount; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < increments; i++) {
+                    // Окно сменяется посередине работы потоков
+                    if (seed == 0 && i == increments / 2) {
+                        clock.set(11 * SECOND + SECOND / 2);
+                    }
+                    assertTrue(counter.increment(0x0A000000 | ((i + seed) % networks) << 8));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // В начале окна оценка равна сумме текущего и предыдущего окон целиком
+        clock.set(11 * SECOND);
+        long total = 0;
+        for (int network = 0; network < networks; network++) {
+            total += counter.count(0x0A000000 | network << 8);
+        }
+        assertEquals((long) threadsCount * increments, total);
+    }
+
+    @Test
+    @DisplayName("Ячейки неактивных подсетей переходят к новым подсетям")
+    void testReclaim() {
+        AtomicLong clock = new AtomicLong(SECOND);
+        int capacity = 4;
+        SubnetCounter counter = new SubnetCounter(24, capacity, Duration.ofSeconds(1), 1000, 10, clock::get);
+
+        // Каждые два окна появляется новый набор подсетей, всего намного больше ёмкости
+        for (int round = 0; round < 50; round++) {
+            clock.set((2L * round + 1) * SECOND);
+            for (int i = 0; i < capacity; i++) {
+                int address = 0x0A000000 | (round * capacity + i) << 8;
+                assertTrue(counter.increment(address));
+                assertTrue(counter.increment(address));
+                assertEquals(2, counter.count(address));
+            }
+            assertEquals(capacity, counter.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Заполненная активными подсетями таблица не учитывает новые подсети")
+    void testFull() {
+        AtomicLong clock = new AtomicLong(SECOND);
+        SubnetCounter counter = new SubnetCounter(24, 2, Duration.ofSeconds(1), 1000, 10, clock::get);
+        assertTrue(counter.increment(IpAddress.parse("10.0.0.1")));
+        assertTrue(counter.increment(IpAddress.parse("10.0.1.1")));
+        assertTrue(counter.increment(IpAddress.parse("10.0.1.2")));
+
+        assertFalse(counter.increment(IpAddress.parse("10.0.2.1")));
+        assertFalse(counter.tryAcquire(IpAddress.parse("10.0.2.1")));
+        assertEquals(0, counter.count(IpAddress.parse("10.0.2.1")));
+        assertEquals(2, counter.size());
+
+        // Подсети предыдущего окна ещё активны, а через два окна их место освобождается
+        clock.set(2 * SECOND);
+        assertFalse(counter.increment(IpAddress.parse("10.0.2.1")));
+        clock.set(3 * SECOND);
+        assertTrue(counter.increment(IpAddress.parse("10.0.2.1")));
+        assertEquals(1, counter.count(IpAddress.parse("10.0.2.1")));
+        assertEquals(0, counter.count(IpAddress.parse("10.0.0.1")));
+    }
+}
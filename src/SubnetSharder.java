@@ -0,0 +1,140 @@
+/** Распределение IP-адресов по шардам так, что все адреса одной подсети заданной длины попадают в один шард
+ *
+ *  Ключом шардирования служит адрес сети (адрес с наложенной маской), перемешанный финализатором fmix64;
+ *  номер шарда выбирается согласованным хешированием jump consistent hash (Lamping, Veach). Поэтому
+ *  при увеличении числа шардов с N до N + 1 переезжает лишь около 1/(N + 1) подсетей, и все они переезжают
+ *  в новый шард. Объект неизменяем и потокобезопасен; пакетные методы не создают объектов.
+ */
+public final class SubnetSharder {
+    // Множитель линейного конгруэнтного генератора из описания jump consistent hash
+    private static final long JUMP_MULTIPLIER = 2862933555777941757L;
+    private static final double JUMP_SCALE = 1L << 31;
+
+    private final int _shards;
+    private final int _prefixLength;
+    private final int _mask;
+
+    /** Создаёт распределение по shards шардам, группирующее адреса по подсетям длины prefixLength
+     *
+     */
+    public SubnetSharder(int shards, int prefixLength) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException(String.format("Shards count must be positive: %d", shards));
+        }
+
+        this._shards = shards;
+        this._prefixLength = prefixLength;
+        this._mask = IpAddress.mask(prefixLength).toInt();
+    }
+
+    /** Возвращает количество шардов
+     *
+     */
+    public int shards() {
+        return this._shards;
+    }
+
+    /** Возвращает длину префикса подсетей, адреса которых попадают в один шард
+     *
+     */
+    public int prefixLength() {
+        return this._prefixLength;
+    }
+
+    /** Возвращает распределение с той же длиной префикса и другим количеством шардов
+     *
+     */
+    public SubnetSharder withShards(int shards) {
+        return new SubnetSharder(shards, this._prefixLength);
+    }
+
+    /** Возвращает номер шарда IP-адреса
+     *
+     */
+    public int shard(IpAddress address) {
+        return shard(address.toInt());
+    }
+
+    /** Возвращает номер шарда подсети; подсеть должна быть не крупнее подсетей распределения
+     *
+     */
+    public int shard(Subnet subnet) {
+        if (subnet.prefixLength() < this._prefixLength) {
+            throw new IllegalArgumentException(String.format(
+                    "Subnet %s is larger than /%d and spans several shards", subnet, this._prefixLength));
+        }
+
+        return shard(subnet.networkInt());
+    }
+
+    /** Возвращает номер шарда упакованного IP-адреса
+     *
+     */
+    public int shard(int address) {
+        return jump(IpAddress.hash64(Integer.toUnsignedLong(address & this._mask)), this._shards);
+    }
+
+    /** Записывает номера шардов адресов [from, to) в массив shards, начиная с индекса shardsFrom
+     *
+     */
+    public void shard(int[] addresses, int from, int to, int[] shards, int shardsFrom) {
+        AddressSorting.checkRange(addresses, from, to);
+        AddressSorting.checkRange(shards, shardsFrom, shardsFrom + (to - from));
+
+        for (int i = from; i < to; i++) {
+            shards[shardsFrom + i - from] = shard(addresses[i]);
+        }
+    }
+
+    /** Раскладывает адреса [from, to) по шардам в массив target (с индекса 0) с сохранением исходного порядка
+     *  внутри шарда; в bounds (длиной не меньше shards() + 1) записываются границы: адреса шарда s занимают
+     *  отрезок [bounds[s], bounds[s + 1])
+     */
+    public void partition(int[] addresses, int from, int to, int[] target, int[] bounds) {
+        AddressSorting.checkRange(addresses, from, to);
+        AddressSorting.checkRange(target, 0, to - from);
+        AddressSorting.checkRange(bounds, 0, this._shards + 1);
+
+        // Сначала bounds[s + 1] подсчитывает адреса шарда s, затем становится концом его отрезка
+        for (int shard = 0; shard <= this._shards; shard++) {
+            bounds[shard] = 0;
+        }
+        for (int i = from; i < to; i++) {
+            bounds[shard(addresses[i]) + 1]++;
+        }
+        for (int shard = 0; shard < this._shards; shard++) {
+            bounds[shard + 1] += bounds[shard];
+        }
+
+        // Номер шарда вычисляется повторно, чтобы не заводить промежуточный массив; bounds[s] временно
+        // служит позицией записи и после раскладки равен концу шарда s, поэтому границы затем сдвигаются
+        for (int i = from; i < to; i++) {
+            int address = addresses[i];
+            target[bounds[shard(address)]++] = address;
+        }
+        for (int shard = this._shards; shard > 0; shard--) {
+            bounds[shard] = bounds[shard - 1];
+        }
+        bounds[0] = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SubnetSharder[shards=%d, prefix=/%d]", this._shards, this._prefixLength);
+    }
+
+    /** Выбирает шард для 64-битного ключа (jump consistent hash)
+     *
+     */
+    static int jump(long key, int shards) {
+        long bucket = -1;
+        long next = 0;
+        while (next < shards) {
+            bucket = next;
+            key = key * JUMP_MULTIPLIER + 1;
+            next = (long) ((bucket + 1) * (JUMP_SCALE / ((key >>> 33) + 1)));
+        }
+
+        return (int) bucket;
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class SubnetSharderTest {
+
+    @ParameterizedTest
+    @MethodSource("testSameSubnetProvider")
+    @DisplayName("Все адреса одной подсети попадают в один шард")
+    void testSameSubnet(int shards, Subnet subnet) {
+        SubnetSharder sharder = new SubnetSharder(shards, subnet.prefixLength());
+        int expected = sharder.shard(subnet);
+
+        assertTrue(expected >= 0 && expected < shards);
+        assertEquals(expected, sharder.shard(subnet.network()));
+        assertEquals(expected, sharder.shard(subnet.broadcast()));
+        subnet.hosts().limit(1000).forEach(address -> assertEquals(expected, sharder.shard(address)));
+    }
+
+    static Stream<Arguments> testSameSubnetProvider() {
+        return Stream.of(
+                arguments(1, Subnet.parse("10.0.0.0/8")),
+                arguments(7, Subnet.parse("192.168.1.0/24")),
+                arguments(64, Subnet.parse("172.16.0.0/20")),
+                arguments(1000, Subnet.parse("255.255.255.255/32")),
+                arguments(3, Subnet.parse("0.0.0.0/0"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testBalanceProvider")
+    @DisplayName("Подсети распределяются по шардам равномерно")
+    void testBalance(int shards, int prefixLength) {
+        SubnetSharder sharder = new SubnetSharder(shards, prefixLength);
+        int subnets = shards * 1000;
+        int[] counts = new int[shards];
+        for (int i = 0; i < subnets; i++) {
+            counts[sharder.shard(0x0A000000 + (i << (32 - prefixLength)))]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 850 && count < 1150, String.format("Unbalanced shard: %d", count));
+        }
+    }
+
+    static Stream<Arguments> testBalanceProvider() {
+        return Stream.of(
+                arguments(2, 24),
+                arguments(10, 24),
+                arguments(16, 28),
+                arguments(33, 32)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testResizeProvider")
+    @DisplayName("При добавлении шарда переезжает малая доля подсетей и только в новый шард")
+    void testResize(int shards) {
+        SubnetSharder before = new SubnetSharder(shards, 24);
+        SubnetSharder after = before.withShards(shards + 1);
+        int subnets = 100_000;
+        int moved = 0;
+        for (int i = 0; i < subnets; i++) {
+            int address = i << 8;
+            int oldShard = before.shard(address);
+            int newShard = after.shard(address);
+            if (oldShard != newShard) {
+                assertEquals(shards, newShard);
+                moved++;
+            }
+        }
+
+        double expected = (double) subnets / (shards + 1);
+        assertTrue(Math.abs(moved - expected) < expected * 0.1, String.format("Moved %d subnets", moved));
+    }
+
+    static Stream<Arguments> testResizeProvider() {
+        return Stream.of(
+                arguments(1),
+                arguments(4),
+                arguments(9),
+                arguments(31)
+        );
+    }
+
+    @Test
+    @DisplayName("Пакетное вычисление шардов и раскладка адресов по шардам")
+    void testBatch() {
+        SubnetSharder sharder = new SubnetSharder(5, 20);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] addresses = new int[3000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt();
+        }
+
+        int[] shards = new int[addresses.length + 10];
+        sharder.shard(addresses, 100, 2100, shards, 10);
+        for (int i = 100; i < 2100; i++) {
+            assertEquals(sharder.shard(addresses[i]), shards[i - 90]);
+        }
+
+        int[] target = new int[2000];
+        int[] bounds = new int[6];
+        sharder.partition(addresses, 100, 2100, target, bounds);
+
+        assertEquals(0, bounds[0]);
+        assertEquals(2000, bounds[5]);
+        int next = 0;
+        for (int shard = 0; shard < 5; shard++) {
+            for (int i = 100; i < 2100; i++) {
+                if (sharder.shard(addresses[i]) == shard) {
+                    assertEquals(addresses[i], target[next++]);
+                }
+            }
+            assertEquals(bounds[shard + 1], next);
+        }
+    }
+
+    @Test
+    @DisplayName("Исключения при неправильных параметрах")
+    void testInvalidArguments() {
+        SubnetSharder sharder = new SubnetSharder(4, 24);
+
+        assertThrows(IllegalArgumentException.class, () -> new SubnetSharder(0, 24));
+        assertThrows(IllegalArgumentException.class, () -> new SubnetSharder(4, 33));
+        assertThrows(IllegalArgumentException.class, () -> sharder.shard(Subnet.parse("10.0.0.0/16")));
+        assertThrows(IllegalArgumentException.class, () -> sharder.shard(new int[10], 0, 10, new int[9], 0));
+        assertThrows(IllegalArgumentException.class, () -> sharder.partition(new int[10], 0, 10, new int[10], new int[4]));
+    }
+}
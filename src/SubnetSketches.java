@@ -0,0 +1,160 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/** Оценки числа различных IP-адресов отдельно для каждой подсети заданной длины
+ *
+ *  Подсеть адреса определяется наложением маски, оценки хранятся в {@link IpAddressMap} по адресу сети
+ *  и создаются при первом адресе из подсети. Семейства оценок с одинаковыми параметрами объединяются
+ *  и сериализуются, поэтому их можно собирать в каждом потоке отдельно и пересылать между узлами.
+ *  Класс не потокобезопасен.
+ */
+public class SubnetSketches {
+    private static final int FILE_MAGIC = 0x49505346;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + 4;
+
+    private final int _prefixLength;
+    private final int _mask;
+    private final int _precision;
+    private final IpAddressMap<AddressSketch> _sketches = new IpAddressMap<>();
+
+    /** Создаёт семейство оценок для подсетей длины prefixLength с 2^precision регистрами в каждой оценке
+     *
+     */
+    public SubnetSketches(int prefixLength, int precision) {
+        this._mask = IpAddress.mask(prefixLength).toInt();
+        this._prefixLength = prefixLength;
+        // Проверяем точность заранее, чтобы ошибка не проявилась только при первом адресе
+        AddressSketch.checkPrecision(precision);
+        this._precision = precision;
+    }
+
+    /** Учитывает IP-адрес в оценке его подсети
+     *
+     */
+    public void add(IpAddress address) {
+        add(address.toInt());
+    }
+
+    /** Учитывает упакованный IP-адрес в оценке его подсети
+     *
+     */
+    public void add(int address) {
+        sketchOf(address & this._mask).add(address);
+    }
+
+    /** Возвращает оценку числа различных адресов в подсети, содержащей IP-адрес
+     *
+     */
+    public long estimate(IpAddress address) {
+        return estimate(address.toInt());
+    }
+
+    /** Возвращает оценку числа различных адресов в подсети, содержащей упакованный IP-адрес
+     *
+     */
+    public long estimate(int address) {
+        AddressSketch sketch = this._sketches.get(address & this._mask);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /** Передаёт адрес сети и оценку для каждой подсети, в которой встречались адреса
+     *
+     */
+    public void forEach(IpAddressMap.EntryConsumer<? super AddressSketch> action) {
+        this._sketches.forEach(action);
+    }
+
+    /** Возвращает количество подсетей, в которых встречались адреса
+     *
+     */
+    public int size() {
+        return this._sketches.size();
+    }
+
+    public int prefixLength() {
+        return this._prefixLength;
+    }
+
+    public int precision() {
+        return this._precision;
+    }
+
+    /** Добавляет все оценки другого семейства с теми же длиной префикса и точностью
+     *
+     */
+    public void merge(SubnetSketches other) {
+        if (other._prefixLength != this._prefixLength || other._precision != this._precision) {
+            throw new IllegalArgumentException(String.format("Cannot merge /%d (precision %d) and /%d (precision %d) sketches",
+                    this._prefixLength, this._precision, other._prefixLength, other._precision));
+        }
+
+        other._sketches.forEach((network, sketch) -> sketchOf(network).merge(sketch));
+    }
+
+    /** Сбрасывает все оценки
+     *
+     */
+    public void clear() {
+        this._sketches.clear();
+    }
+
+    /** Сериализует семейство оценок в массив байтов
+     *
+     */
+    public byte[] toBytes() {
+        int sketchBytes = AddressSketch.serializedSize(this._precision);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + this._sketches.size() * (Integer.BYTES + sketchBytes));
+        buffer.putInt(FILE_MAGIC).put(FORMAT_VERSION).put((byte) this._prefixLength).put((byte) this._precision)
+                .put((byte) 0).putInt(this._sketches.size());
+        this._sketches.forEach((network, sketch) -> sketch.writeTo(buffer.putInt(network)));
+
+        return buffer.array();
+    }
+
+    /** Восстанавливает семейство оценок из массива байтов
+     *
+     */
+    public static SubnetSketches fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != FILE_MAGIC) {
+                throw new IllegalArgumentException("Data is not a subnet sketches family");
+            }
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException(String.format("Unsupported subnet sketches version %d", version));
+            }
+
+            SubnetSketches sketches = new SubnetSketches(buffer.get(), buffer.get());
+            buffer.get();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int network = buffer.getInt();
+                AddressSketch sketch = AddressSketch.readFrom(buffer);
+                if ((network & sketches._mask) != network || sketch.precision() != sketches._precision
+                        || sketches._sketches.put(network, sketch) != null) {
+                    throw new IllegalArgumentException("Subnet sketches data is corrupted");
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Subnet sketches data has trailing bytes");
+            }
+
+            return sketches;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Subnet sketches data is truncated");
+        }
+    }
+
+
+    private AddressSketch sketchOf(int network) {
+        AddressSketch sketch = this._sketches.get(network);
+        if (sketch == null) {
+            sketch = new AddressSketch(this._precision);
+            this._sketches.put(network, sketch);
+        }
+
+        return sketch;
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubnetSketchesTest {
+
+    @Test
+    @DisplayName("Оценки ведутся отдельно для каждой подсети")
+    void testEstimatePerSubnet() {
+        SubnetSketches sketches = new SubnetSketches(16, 12);
+        for (int i = 0; i < 20_000; i++) {
+            sketches.add(IpAddress.parse("10.1.0.0").toInt() + i % 1000);
+            sketches.add(IpAddress.parse("10.2.0.0").toInt() + i % 10_000);
+        }
+
+        assertEquals(2, sketches.size());
+        assertEquals(1000, sketches.estimate(IpAddress.parse("10.1.200.200")), 100);
+        assertEquals(10_000, sketches.estimate(IpAddress.parse("10.2.0.0")), 1000);
+        assertEquals(0, sketches.estimate(IpAddress.parse("10.3.0.0")));
+    }
+
+    @Test
+    @DisplayName("Объединение и сериализация семейств оценок")
+    void testMergeAndSerialization() {
+        Random random = new Random(16);
+        SubnetSketches first = new SubnetSketches(24, 8);
+        SubnetSketches second = new SubnetSketches(24, 8);
+        SubnetSketches union = new SubnetSketches(24, 8);
+        for (int i = 0; i < 100_000; i++) {
+            int address = 0x0A000000 | random.nextInt(1 << 12);
+            (random.nextBoolean() ? first : second).add(address);
+            union.add(address);
+        }
+
+        first.merge(SubnetSketches.fromBytes(second.toBytes()));
+
+        assertEquals(union.size(), first.size());
+        union.forEach((network, sketch) -> assertEquals(sketch.estimate(), first.estimate(network)));
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new SubnetSketches(16, 8)));
+        assertThrows(IllegalArgumentException.class, () -> SubnetSketches.fromBytes(new byte[] {0, 0, 0}));
+    }
+}
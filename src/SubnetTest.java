@@ -0,0 +1,130 @@
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class SubnetTest {
+
+    @ParameterizedTest
+    @MethodSource("testBoundsProvider")
+    @DisplayName("Границы и размер подсети")
+    void testBounds(Subnet subnet, String first, String last, String broadcast, long size, long hostCount) {
+        assertEquals(subnet.first(), IpAddress.parse(first));
+        assertEquals(subnet.last(), IpAddress.parse(last));
+        assertEquals(subnet.broadcast(), IpAddress.parse(broadcast));
+        assertEquals(subnet.size(), size);
+        assertEquals(subnet.hostCount(), hostCount);
+    }
+
+    static Stream<Arguments> testBoundsProvider() {
+        return Stream.of(
+                arguments(Subnet.parse("192.168.1.0/24"), "192.168.1.1", "192.168.1.254", "192.168.1.255", 256L, 254L),
+                arguments(Subnet.parse("10.0.0.0/8"), "10.0.0.1", "10.255.255.254", "10.255.255.255", 16777216L, 16777214L),
+                arguments(Subnet.parse("10.0.0.0/31"), "10.0.0.0", "10.0.0.1", "10.0.0.1", 2L, 2L),
+                arguments(Subnet.parse("10.0.0.7/32"), "10.0.0.7", "10.0.0.7", "10.0.0.7", 1L, 1L),
+                arguments(Subnet.parse("0.0.0.0/0"), "0.0.0.1", "255.255.255.254", "255.255.255.255", 4294967296L, 4294967294L)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testContainsProvider")
+    @DisplayName("Принадлежность IP-адреса подсети")
+    void testContains(Subnet subnet, IpAddress address, boolean expected) {
+        assertEquals(subnet.contains(address), expected);
+        assertEquals(address.belongsToSubnet(subnet.network(), subnet.mask()), expected);
+    }
+
+    static Stream<Arguments> testContainsProvider() {
+        return Stream.of(
+                arguments(new Subnet(IpAddress.parse("127.1.0.0"), new IpAddress(24)), IpAddress.parse("127.1.0.10"), true),
+                arguments(new Subnet(IpAddress.parse("176.132.45.10"), 8), IpAddress.parse("176.0.0.0"), true),
+                arguments(Subnet.parse("176.0.0.0/16"), IpAddress.parse("176.132.45.10"), false),
+                arguments(Subnet.parse("128.0.0.0/1"), IpAddress.parse("255.1.2.3"), true)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSplitAndMergeProvider")
+    @DisplayName("Разбиение подсети на половины и объединение обратно")
+    void testSplitAndMerge(Subnet subnet, Subnet lower, Subnet upper) {
+        Subnet[] halves = subnet.split();
+
+        assertEquals(halves[0], lower);
+        assertEquals(halves[1], upper);
+        assertTrue(lower.isSiblingOf(upper));
+        assertEquals(lower.merge(upper), subnet);
+        assertEquals(subnet.subnet(lower.prefixLength(), 1), upper);
+    }
+
+    static Stream<Arguments> testSplitAndMergeProvider() {
+        return Stream.of(
+                arguments(Subnet.parse("10.0.0.0/8"), Subnet.parse("10.0.0.0/9"), Subnet.parse("10.128.0.0/9")),
+                arguments(Subnet.parse("0.0.0.0/0"), Subnet.parse("0.0.0.0/1"), Subnet.parse("128.0.0.0/1")),
+                arguments(Subnet.parse("192.168.1.4/31"), Subnet.parse("192.168.1.4/32"), Subnet.parse("192.168.1.5/32"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidMergeProvider")
+    @DisplayName("Исключение при объединении подсетей, не являющихся половинами одной сети")
+    void testInvalidMerge(Subnet first, Subnet second) {
+        assertThrows(IllegalArgumentException.class, () -> {
+            first.merge(second);
+        });
+    }
+
+    static Stream<Arguments> testInvalidMergeProvider() {
+        return Stream.of(
+                arguments(Subnet.parse("10.128.0.0/9"), Subnet.parse("11.0.0.0/9")),
+                arguments(Subnet.parse("10.0.0.0/9"), Subnet.parse("10.0.0.0/9")),
+                arguments(Subnet.parse("10.0.0.0/9"), Subnet.parse("10.128.0.0/10"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCountHostsBetweenProvider")
+    @DisplayName("Подсчет устройств (хостов) между двумя адресами подсети")
+    void testCountHostsBetween(Subnet subnet, IpAddress first, IpAddress second) {
+        assertEquals(subnet.countHostsBetween(first, second), first.countHostsBetween(second, subnet.mask()));
+    }
+
+    static Stream<Arguments> testCountHostsBetweenProvider() {
+        return Stream.of(
+                arguments(Subnet.parse("127.0.0.0/24"), IpAddress.parse("127.0.0.1"), IpAddress.parse("127.0.0.10")),
+                arguments(Subnet.parse("127.0.0.0/24"), IpAddress.parse("127.0.0.0"), IpAddress.parse("127.0.0.0")),
+                arguments(Subnet.parse("184.5.0.0/16"), IpAddress.parse("184.5.0.134"), IpAddress.parse("184.5.146.0"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testInvalidSubnetProvider")
+    @DisplayName("Исключение при неправильной записи подсети")
+    void testInvalidSubnet(String text) {
+        assertThrows(IllegalArgumentException.class, () -> {
+            Subnet.parse(text);
+        });
+    }
+
+    static Stream<String> testInvalidSubnetProvider() {
+        return Stream.of("10.0.0.0/33", "10.0.0/8", "10.0.0.0/", "");
+    }
+
+    @Test
+    @DisplayName("Параллельный перебор хостов подсети")
+    void testParallelHosts() {
+        Subnet subnet = Subnet.parse("10.0.0.0/12");
+
+        assertEquals(subnet.hosts().parallel().count(), subnet.hostCount());
+        assertEquals(subnet.hosts().parallel().mapToLong(Integer::toUnsignedLong).sum(),
+                subnet.hosts().mapToLong(Integer::toUnsignedLong).sum());
+        assertEquals(Subnet.parse("255.255.255.252/30").hosts().boxed().toList(),
+                List.of(IpAddress.parse("255.255.255.253").toInt(), IpAddress.parse("255.255.255.254").toInt()));
+    }
+}